@@ -0,0 +1,82 @@
+package com.example.book_store_backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Jauges complémentaires aux métriques fournies par Spring Boot (hikaricp.*, hibernate.*,
+ * http.server.requests, spring.data.repository.invocations) : saturation du pool de connexions
+ * et taux de succès du cache de second niveau, calculés à la lecture.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder connectionPoolSaturationMetrics(DataSource dataSource) {
+        return registry -> {
+            HikariDataSource hikari;
+            try {
+                if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                    return;
+                }
+                hikari = dataSource.unwrap(HikariDataSource.class);
+            } catch (SQLException e) {
+                return;
+            }
+            Gauge.builder("bookstore.datasource.pool.saturation", hikari, MetricsConfig::poolSaturation)
+                    .description("Part des connexions du pool en cours d'utilisation")
+                    .tag("pool", String.valueOf(hikari.getPoolName()))
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder secondLevelCacheHitRatioMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            Gauge.builder("bookstore.cache.hit.ratio", statistics,
+                            s -> hitRatio(s.getSecondLevelCacheHitCount(), s.getSecondLevelCacheMissCount()))
+                    .description("Taux de succès du cache")
+                    .tag("cache", "second-level")
+                    .register(registry);
+            Gauge.builder("bookstore.cache.hit.ratio", statistics,
+                            s -> hitRatio(s.getQueryCacheHitCount(), s.getQueryCacheMissCount()))
+                    .description("Taux de succès du cache")
+                    .tag("cache", "query")
+                    .register(registry);
+            for (String region : statistics.getSecondLevelCacheRegionNames()) {
+                Gauge.builder("bookstore.cache.hit.ratio", statistics, s -> regionHitRatio(s, region))
+                        .description("Taux de succès du cache")
+                        .tag("cache", region)
+                        .register(registry);
+            }
+        };
+    }
+
+    private static double poolSaturation(HikariDataSource hikari) {
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        int maximum = hikari.getMaximumPoolSize();
+        return pool != null && maximum > 0 ? (double) pool.getActiveConnections() / maximum : 0.0;
+    }
+
+    private static double regionHitRatio(Statistics statistics, String region) {
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        return regionStatistics != null ? hitRatio(regionStatistics.getHitCount(), regionStatistics.getMissCount()) : 0.0;
+    }
+
+    private static double hitRatio(long hits, long misses) {
+        long total = hits + misses;
+        return total > 0 ? (double) hits / total : 0.0;
+    }
+}
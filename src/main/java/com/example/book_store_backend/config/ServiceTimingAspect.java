@@ -0,0 +1,74 @@
+package com.example.book_store_backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minuteur bookstore.service (classe, méthode, exception) sur chaque méthode publique des services,
+ * appelée depuis un autre bean. Les minuteurs sont mis en cache par classe et méthode : un appel
+ * réussi ne crée pas d'identifiant de métrique.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "bookstore.metrics.service-timers.enabled", havingValue = "true", matchIfMissing = true)
+public class ServiceTimingAspect {
+
+    private static final String METRIC_NAME = "bookstore.service";
+    private static final String NO_EXCEPTION = "none";
+
+    // Registre résolu au premier appel : l'aspect est créé avant la configuration du registre
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Map<Class<?>, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    public ServiceTimingAspect(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("within(com.example.book_store_backend.service..*) "
+            + "&& @within(org.springframework.stereotype.Service) "
+            + "&& execution(public * *(..)) "
+            + "&& !within(com.example.book_store_backend.service.BusinessMetrics)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            successTimer(joinPoint).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            timer(userClass(joinPoint), joinPoint.getSignature().getName(), e.getClass().getSimpleName())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer successTimer(ProceedingJoinPoint joinPoint) {
+        Class<?> type = userClass(joinPoint);
+        String method = joinPoint.getSignature().getName();
+        return timers.computeIfAbsent(type, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, key -> timer(type, method, NO_EXCEPTION));
+    }
+
+    private Timer timer(Class<?> type, String method, String exception) {
+        return Timer.builder(METRIC_NAME)
+                .description("Durée des appels aux services")
+                .tag("class", type.getSimpleName())
+                .tag("method", method)
+                .tag("exception", exception)
+                .register(meterRegistry.getObject());
+    }
+
+    private static Class<?> userClass(ProceedingJoinPoint joinPoint) {
+        return ClassUtils.getUserClass(joinPoint.getTarget());
+    }
+}
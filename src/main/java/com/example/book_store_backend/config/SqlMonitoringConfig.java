@@ -0,0 +1,50 @@
+package com.example.book_store_backend.config;
+
+import com.example.book_store_backend.util.SqlCountingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Comptage des requêtes SQL par requête HTTP : la source de données est enveloppée pour compter chaque
+ * requête et sa forme et mesurer le temps d'exécution JDBC, qu'elle vienne d'Hibernate ou de JdbcTemplate
+ * (lots d'écriture), et le filtre publie le résultat (en-têtes de réponse, métriques par endpoint,
+ * alerte sur les requêtes répétées).
+ */
+@Configuration
+@ConditionalOnProperty(name = "bookstore.sql-monitoring.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMonitoringConfig {
+
+    // Statique : le post-processeur doit exister avant la création de la source de données
+    @Bean
+    public static BeanPostProcessor sqlCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof SqlCountingDataSource)
+                        ? new SqlCountingDataSource(dataSource)
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlMonitoringFilter> sqlMonitoringFilter(
+            MeterRegistry meterRegistry,
+            @Value("${bookstore.sql-monitoring.repeated-threshold:5}") int repeatedThreshold,
+            @Value("${bookstore.sql-monitoring.response-headers:true}") boolean responseHeaders) {
+        FilterRegistrationBean<SqlMonitoringFilter> registration =
+                new FilterRegistrationBean<>(new SqlMonitoringFilter(meterRegistry, repeatedThreshold, responseHeaders));
+        registration.addUrlPatterns("/api/*");
+        // En tête de chaîne : toute la requête est comptée et la réponse mise en tampon avant écriture
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
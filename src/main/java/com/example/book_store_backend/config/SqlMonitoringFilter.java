@@ -0,0 +1,107 @@
+package com.example.book_store_backend.config;
+
+import com.example.book_store_backend.util.SqlStatementRecorder;
+import com.example.book_store_backend.util.SqlStatementRecorder.Recording;
+import com.example.book_store_backend.util.SqlStatementRecorder.RepeatedStatement;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compte les requêtes SQL de chaque requête HTTP, sérialisation JSON comprise (associations
+ * chargées à la demande), et signale les formes de requête répétées (N+1 probable).
+ * Avec les en-têtes de réponse activés, le corps est mis en tampon pour qu'ils puissent encore être ajoutés.
+ */
+@Slf4j
+public class SqlMonitoringFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    public static final String TIME_HEADER = "X-SQL-Time-Ms";
+    public static final String REPEATED_HEADER = "X-SQL-Repeated";
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+    private static final int MAX_LOGGED_SQL_LENGTH = 300;
+
+    private final MeterRegistry meterRegistry;
+    private final int repeatedThreshold;
+    private final boolean responseHeaders;
+
+    public SqlMonitoringFilter(MeterRegistry meterRegistry, int repeatedThreshold, boolean responseHeaders) {
+        this.meterRegistry = meterRegistry;
+        this.repeatedThreshold = repeatedThreshold;
+        this.responseHeaders = responseHeaders;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper bufferedResponse = responseHeaders ? new ContentCachingResponseWrapper(response) : null;
+        try (Recording recording = SqlStatementRecorder.start()) {
+            try {
+                filterChain.doFilter(request, bufferedResponse != null ? bufferedResponse : response);
+            } finally {
+                List<RepeatedStatement> repeated = recording.getRepeatedStatements(repeatedThreshold);
+                report(request, recording, repeated);
+                if (bufferedResponse != null) {
+                    bufferedResponse.setHeader(STATEMENTS_HEADER, String.valueOf(recording.getStatementCount()));
+                    bufferedResponse.setHeader(TIME_HEADER, String.format(Locale.ROOT, "%.2f", recording.getExecutionNanos() / 1_000_000.0));
+                    if (!repeated.isEmpty()) {
+                        bufferedResponse.setHeader(REPEATED_HEADER, String.valueOf(repeated.get(0).getCount()));
+                    }
+                    bufferedResponse.copyBodyToResponse();
+                }
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, Recording recording, List<RepeatedStatement> repeated) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+        String method = request.getMethod();
+
+        DistributionSummary.builder("bookstore.sql.statements")
+                .description("Requêtes SQL par requête HTTP")
+                .baseUnit("statements")
+                .tag("method", method)
+                .tag("uri", uri)
+                .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100)
+                .register(meterRegistry)
+                .record(recording.getStatementCount());
+        Timer.builder("bookstore.sql.time")
+                .description("Temps d'exécution SQL par requête HTTP")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(recording.getExecutionNanos(), TimeUnit.NANOSECONDS);
+
+        if (!repeated.isEmpty()) {
+            Counter.builder("bookstore.sql.repeated")
+                    .description("Requêtes HTTP exécutant plusieurs fois la même forme de requête SQL")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            RepeatedStatement worst = repeated.get(0);
+            log.warn("Requête SQL répétée {} fois sur {} {} ({} requêtes au total, N+1 probable): {}",
+                    worst.getCount(), method, uri, recording.getStatementCount(), abbreviate(worst.getSql()));
+        }
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() > MAX_LOGGED_SQL_LENGTH ? sql.substring(0, MAX_LOGGED_SQL_LENGTH) + "..." : sql;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.book_store_backend.controller;
+
+import com.example.book_store_backend.service.OrderAnalyticsService;
+import com.example.book_store_backend.service.OrderAnalyticsService.AnalyticsQuery;
+import com.example.book_store_backend.service.OrderAnalyticsService.AnalyticsResult;
+import com.example.book_store_backend.service.OrderAnalyticsService.AnalyticsStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@Tag(name = "Analytics", description = "API d'analyse des ventes (moteur colonnaire en mémoire)")
+@CrossOrigin(origins = "*")
+public class AnalyticsController {
+
+    private final OrderAnalyticsService orderAnalyticsService;
+
+    @PostMapping("/orders/query")
+    @Operation(summary = "Exécuter une requête d'agrégation sur les commandes")
+    public ResponseEntity<AnalyticsResult> queryOrders(@RequestBody AnalyticsQuery query) {
+        AnalyticsResult result = orderAnalyticsService.query(query);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/orders/status")
+    @Operation(summary = "Récupérer l'état de la table de faits")
+    public ResponseEntity<AnalyticsStatus> getStatus() {
+        AnalyticsStatus status = orderAnalyticsService.getStatus();
+        return ResponseEntity.ok(status);
+    }
+
+    // Gestion des erreurs
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -120,6 +120,13 @@ public class BookController {
         return ResponseEntity.ok(categories);
     }
 
+    @GetMapping("/authors")
+    @Operation(summary = "Récupérer tous les auteurs")
+    public ResponseEntity<List<String>> getAllAuthors() {
+        List<String> authors = bookService.getAllAuthors();
+        return ResponseEntity.ok(authors);
+    }
+
     @GetMapping("/low-stock")
     @Operation(summary = "Récupérer les livres avec stock faible")
     public ResponseEntity<List<Book>> getBooksWithLowStock(
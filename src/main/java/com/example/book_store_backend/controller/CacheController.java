@@ -0,0 +1,47 @@
+package com.example.book_store_backend.controller;
+
+import com.example.book_store_backend.service.SecondLevelCacheService;
+import com.example.book_store_backend.service.SecondLevelCacheService.CacheStatistics;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+@Tag(name = "Cache", description = "API de supervision du cache de second niveau")
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    private final SecondLevelCacheService secondLevelCacheService;
+
+    @GetMapping("/statistics")
+    @Operation(summary = "Récupérer les taux de succès du cache par région")
+    public ResponseEntity<CacheStatistics> getStatistics() {
+        return ResponseEntity.ok(secondLevelCacheService.getStatistics());
+    }
+
+    @DeleteMapping("/statistics")
+    @Operation(summary = "Remettre les statistiques du cache à zéro")
+    public ResponseEntity<Void> clearStatistics() {
+        secondLevelCacheService.clearStatistics();
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/regions/{region}")
+    @Operation(summary = "Vider une région du cache")
+    public ResponseEntity<Void> evictRegion(
+            @Parameter(description = "Nom de la région") @PathVariable String region) {
+        secondLevelCacheService.evictRegion(region);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Gestion des erreurs
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.book_store_backend.controller;
+
+import com.example.book_store_backend.entity.Order;
+import com.example.book_store_backend.service.CartService;
+import com.example.book_store_backend.service.CartService.CartView;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/carts")
+@RequiredArgsConstructor
+@Tag(name = "Carts", description = "API de gestion des paniers")
+@CrossOrigin(origins = "*")
+public class CartController {
+
+    private final CartService cartService;
+
+    @PostMapping
+    @Operation(summary = "Créer un panier")
+    public ResponseEntity<CartView> createCart(
+            @Parameter(description = "ID du client (optionnel)") @RequestParam(required = false) Long customerId) {
+        CartView cart = cartService.createCart(customerId);
+        return new ResponseEntity<>(cart, HttpStatus.CREATED);
+    }
+
+    @GetMapping("/{cartId}")
+    @Operation(summary = "Récupérer un panier")
+    public ResponseEntity<CartView> getCart(
+            @Parameter(description = "ID du panier") @PathVariable String cartId) {
+        return ResponseEntity.ok(cartService.getCart(cartId));
+    }
+
+    @PostMapping("/{cartId}/items")
+    @Operation(summary = "Ajouter un livre au panier")
+    public ResponseEntity<CartView> addItem(
+            @Parameter(description = "ID du panier") @PathVariable String cartId,
+            @RequestBody CartItemRequest request) {
+        CartView cart = cartService.addItem(cartId, request.getBookId(),
+                request.getQuantity() != null ? request.getQuantity() : 1);
+        return ResponseEntity.ok(cart);
+    }
+
+    @PutMapping("/{cartId}/items/{bookId}")
+    @Operation(summary = "Modifier la quantité d'un livre du panier")
+    public ResponseEntity<CartView> updateItem(
+            @Parameter(description = "ID du panier") @PathVariable String cartId,
+            @Parameter(description = "ID du livre") @PathVariable Long bookId,
+            @Parameter(description = "Nouvelle quantité (0 pour retirer)") @RequestParam int quantity) {
+        return ResponseEntity.ok(cartService.updateItem(cartId, bookId, quantity));
+    }
+
+    @DeleteMapping("/{cartId}/items/{bookId}")
+    @Operation(summary = "Retirer un livre du panier")
+    public ResponseEntity<CartView> removeItem(
+            @Parameter(description = "ID du panier") @PathVariable String cartId,
+            @Parameter(description = "ID du livre") @PathVariable Long bookId) {
+        return ResponseEntity.ok(cartService.removeItem(cartId, bookId));
+    }
+
+    @DeleteMapping("/{cartId}")
+    @Operation(summary = "Supprimer un panier")
+    public ResponseEntity<Void> deleteCart(
+            @Parameter(description = "ID du panier") @PathVariable String cartId) {
+        cartService.deleteCart(cartId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/{cartId}/checkout")
+    @Operation(summary = "Valider le panier et créer la commande")
+    public ResponseEntity<Order> checkout(
+            @Parameter(description = "ID du panier") @PathVariable String cartId,
+            @RequestBody(required = false) CheckoutRequest request) {
+        CheckoutRequest checkout = request != null ? request : new CheckoutRequest();
+        Order order = cartService.checkout(cartId, checkout.getCustomerId(), checkout.getShippingAddress(), checkout.getNotes());
+        return new ResponseEntity<>(order, HttpStatus.CREATED);
+    }
+
+    // DTOs pour les requêtes
+    public static class CartItemRequest {
+        private Long bookId;
+        private Integer quantity;
+
+        // Constructeurs
+        public CartItemRequest() {}
+
+        // Getters et setters
+        public Long getBookId() { return bookId; }
+        public void setBookId(Long bookId) { this.bookId = bookId; }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    }
+
+    public static class CheckoutRequest {
+        private Long customerId;
+        private String shippingAddress;
+        private String notes;
+
+        // Constructeurs
+        public CheckoutRequest() {}
+
+        // Getters et setters
+        public Long getCustomerId() { return customerId; }
+        public void setCustomerId(Long customerId) { this.customerId = customerId; }
+
+        public String getShippingAddress() { return shippingAddress; }
+        public void setShippingAddress(String shippingAddress) { this.shippingAddress = shippingAddress; }
+
+        public String getNotes() { return notes; }
+        public void setNotes(String notes) { this.notes = notes; }
+    }
+
+    // Gestion des erreurs
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleIllegalState(IllegalStateException e) {
+        return ResponseEntity.status(409).body(e.getMessage());
+    }
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<String> handleRuntimeException(RuntimeException e) {
+        return ResponseEntity.notFound().build();
+    }
+}
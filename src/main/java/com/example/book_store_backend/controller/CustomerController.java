@@ -1,8 +1,15 @@
 package com.example.book_store_backend.controller;
 
 import com.example.book_store_backend.entity.Customer;
+import com.example.book_store_backend.service.CustomerDeduplicationService;
+import com.example.book_store_backend.service.CustomerDeduplicationService.DeduplicationReport;
+import com.example.book_store_backend.service.CustomerDeduplicationService.MergeResult;
 import com.example.book_store_backend.service.CustomerService;
 import com.example.book_store_backend.service.CustomerService.CustomerStatistics;
+import com.example.book_store_backend.service.CustomerValueEngine;
+import com.example.book_store_backend.service.CustomerValueEngine.CustomerValue;
+import com.example.book_store_backend.service.CustomerValueEngine.Segment;
+import com.example.book_store_backend.service.CustomerValueEngine.SegmentOverview;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -23,6 +30,8 @@ import java.util.Optional;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerValueEngine customerValueEngine;
+    private final CustomerDeduplicationService customerDeduplicationService;
 
     @PostMapping
     @Operation(summary = "Créer un nouveau client")
@@ -121,11 +130,61 @@ public class CustomerController {
 
     @GetMapping("/most-active")
     @Operation(summary = "Récupérer les clients les plus actifs")
-    public ResponseEntity<List<Customer>> getMostActiveCustomers() {
-        List<Customer> customers = customerService.getMostActiveCustomers();
+    public ResponseEntity<List<Customer>> getMostActiveCustomers(
+            @Parameter(description = "Nombre de clients") @RequestParam(defaultValue = "10") int limit) {
+        List<Customer> customers = customerService.getMostActiveCustomers(limit);
         return ResponseEntity.ok(customers);
     }
 
+    @GetMapping("/segments")
+    @Operation(summary = "Récupérer la répartition des clients par segment RFM")
+    public ResponseEntity<SegmentOverview> getSegmentOverview() {
+        return ResponseEntity.ok(customerValueEngine.getSegmentOverview());
+    }
+
+    @GetMapping("/segments/{segment}")
+    @Operation(summary = "Récupérer les clients d'un segment RFM")
+    public ResponseEntity<List<CustomerValue>> getSegment(
+            @Parameter(description = "Segment") @PathVariable Segment segment,
+            @Parameter(description = "Nombre de clients") @RequestParam(defaultValue = "50") int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("La limite doit être positive");
+        }
+        return ResponseEntity.ok(customerValueEngine.getSegment(segment, limit));
+    }
+
+    @GetMapping("/{id}/value")
+    @Operation(summary = "Récupérer les scores RFM d'un client")
+    public ResponseEntity<CustomerValue> getCustomerValue(
+            @Parameter(description = "ID du client") @PathVariable Long id) {
+        return customerValueEngine.getCustomerValue(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/duplicates/detect")
+    @Operation(summary = "Lancer la détection des clients en double")
+    public ResponseEntity<DeduplicationReport> detectDuplicates() {
+        return ResponseEntity.ok(customerDeduplicationService.detectDuplicates());
+    }
+
+    @GetMapping("/duplicates")
+    @Operation(summary = "Récupérer les propositions de fusion de la dernière détection")
+    public ResponseEntity<DeduplicationReport> getDuplicates() {
+        return customerDeduplicationService.getLastReport()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/merge")
+    @Operation(summary = "Fusionner des clients en double dans un client")
+    public ResponseEntity<MergeResult> mergeCustomers(
+            @Parameter(description = "ID du client conservé") @PathVariable Long id,
+            @RequestBody MergeRequest request) {
+        MergeResult result = customerDeduplicationService.mergeCustomers(id, request.getDuplicateIds());
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping("/exists/email/{email}")
     @Operation(summary = "Vérifier si un client existe par email")
     public ResponseEntity<Boolean> customerExistsByEmail(
@@ -173,6 +232,22 @@ public class CustomerController {
         return ResponseEntity.noContent().build();
     }
 
+    // Classe d'aide pour la fusion
+    public static class MergeRequest {
+        private List<Long> duplicateIds;
+
+        // Constructeurs
+        public MergeRequest() {}
+
+        public MergeRequest(List<Long> duplicateIds) {
+            this.duplicateIds = duplicateIds;
+        }
+
+        // Getters et setters
+        public List<Long> getDuplicateIds() { return duplicateIds; }
+        public void setDuplicateIds(List<Long> duplicateIds) { this.duplicateIds = duplicateIds; }
+    }
+
     // Gestion des erreurs
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
@@ -2,15 +2,19 @@ package com.example.book_store_backend.controller;
 
 import com.example.book_store_backend.entity.DailyOffer;
 import com.example.book_store_backend.service.DailyOfferService;
+import com.example.book_store_backend.service.DailyOfferService.SaleResult;
+import com.example.book_store_backend.service.OfferIntervalIndex.OfferPeriod;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 // ======== DAILY OFFER CONTROLLER ========
@@ -84,6 +88,39 @@ public class DailyOfferController {
         return ResponseEntity.ok(offers);
     }
 
+    @GetMapping("/on")
+    @Operation(summary = "Récupérer les offres valides à une date")
+    public ResponseEntity<List<OfferPeriod>> getOffersOn(
+            @Parameter(description = "Date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @Parameter(description = "ID du livre") @RequestParam(required = false) Long bookId,
+            @Parameter(description = "ID du pack") @RequestParam(required = false) Long packId) {
+        List<OfferPeriod> offers = dailyOfferService.getOffersOn(date, bookId, packId);
+        return ResponseEntity.ok(offers);
+    }
+
+    @GetMapping("/campaign")
+    @Operation(summary = "Récupérer les offres en ligne sur une période")
+    public ResponseEntity<List<OfferPeriod>> getOffersBetween(
+            @Parameter(description = "Date de début") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Date de fin") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "ID du livre") @RequestParam(required = false) Long bookId,
+            @Parameter(description = "ID du pack") @RequestParam(required = false) Long packId) {
+        List<OfferPeriod> offers = dailyOfferService.getOffersBetween(from, to, bookId, packId);
+        return ResponseEntity.ok(offers);
+    }
+
+    @GetMapping("/conflicts")
+    @Operation(summary = "Détecter les offres qui chevauchent une période sur le même livre ou pack")
+    public ResponseEntity<List<OfferPeriod>> getConflictingOffers(
+            @Parameter(description = "ID du livre") @RequestParam(required = false) Long bookId,
+            @Parameter(description = "ID du pack") @RequestParam(required = false) Long packId,
+            @Parameter(description = "Date de début") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "Date de fin") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(description = "Offre à ignorer (modification)") @RequestParam(required = false) Long excludeOfferId) {
+        List<OfferPeriod> conflicts = dailyOfferService.findConflictingOffers(bookId, packId, startDate, endDate, excludeOfferId);
+        return ResponseEntity.ok(conflicts);
+    }
+
     @GetMapping("/{id}/is-valid")
     @Operation(summary = "Vérifier si une offre est encore valide")
     public ResponseEntity<Boolean> isOfferValid(
@@ -94,11 +131,11 @@ public class DailyOfferController {
 
     @PutMapping("/{id}/record-sale")
     @Operation(summary = "Enregistrer une vente pour une offre")
-    public ResponseEntity<DailyOffer> recordSale(
+    public ResponseEntity<SaleResult> recordSale(
             @Parameter(description = "ID de l'offre") @PathVariable Long id,
             @Parameter(description = "Quantité vendue") @RequestParam Integer quantity) {
-        DailyOffer updatedOffer = dailyOfferService.recordSale(id, quantity);
-        return ResponseEntity.ok(updatedOffer);
+        SaleResult result = dailyOfferService.recordSale(id, quantity);
+        return ResponseEntity.ok(result);
     }
 
     @DeleteMapping("/{id}")
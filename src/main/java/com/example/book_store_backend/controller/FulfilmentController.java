@@ -0,0 +1,93 @@
+package com.example.book_store_backend.controller;
+
+import com.example.book_store_backend.entity.Order;
+import com.example.book_store_backend.entity.OrderStatus;
+import com.example.book_store_backend.service.FulfilmentQueueService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/fulfilment")
+@RequiredArgsConstructor
+@Tag(name = "Fulfilment", description = "API de la file de préparation des commandes")
+@CrossOrigin(origins = "*")
+public class FulfilmentController {
+
+    private final FulfilmentQueueService fulfilmentQueueService;
+
+    @PostMapping("/claim")
+    @Operation(summary = "Réserver un lot de commandes à préparer")
+    public ResponseEntity<List<Order>> claimOrders(
+            @Parameter(description = "Identifiant du préparateur") @RequestParam String workerId,
+            @Parameter(description = "Nombre de commandes à réserver") @RequestParam(defaultValue = "10") int limit,
+            @Parameter(description = "Durée du bail en secondes") @RequestParam(required = false) Integer leaseSeconds) {
+        List<Order> orders = fulfilmentQueueService.claimOrders(workerId, limit, leaseSeconds);
+        return ResponseEntity.ok(orders);
+    }
+
+    @PutMapping("/heartbeat")
+    @Operation(summary = "Prolonger le bail des commandes réservées")
+    public ResponseEntity<Integer> heartbeat(@RequestBody ClaimRequest request) {
+        int extended = fulfilmentQueueService.heartbeat(request.getWorkerId(), request.getOrderIds(), request.getLeaseSeconds());
+        return ResponseEntity.ok(extended);
+    }
+
+    @PutMapping("/orders/{id}/complete")
+    @Operation(summary = "Terminer la préparation d'une commande réservée")
+    public ResponseEntity<Order> completeOrder(
+            @Parameter(description = "ID de la commande") @PathVariable Long id,
+            @Parameter(description = "Identifiant du préparateur") @RequestParam String workerId,
+            @Parameter(description = "Nouveau statut") @RequestParam OrderStatus status) {
+        Order order = fulfilmentQueueService.completeOrder(workerId, id, status);
+        return ResponseEntity.ok(order);
+    }
+
+    @PutMapping("/release")
+    @Operation(summary = "Rendre des commandes réservées à la file")
+    public ResponseEntity<Integer> releaseOrders(@RequestBody ClaimRequest request) {
+        int released = fulfilmentQueueService.releaseOrders(request.getWorkerId(), request.getOrderIds());
+        return ResponseEntity.ok(released);
+    }
+
+    // DTO pour les requêtes
+    public static class ClaimRequest {
+        private String workerId;
+        private List<Long> orderIds;
+        private Integer leaseSeconds;
+
+        // Constructeurs
+        public ClaimRequest() {}
+
+        // Getters et setters
+        public String getWorkerId() { return workerId; }
+        public void setWorkerId(String workerId) { this.workerId = workerId; }
+
+        public List<Long> getOrderIds() { return orderIds; }
+        public void setOrderIds(List<Long> orderIds) { this.orderIds = orderIds; }
+
+        public Integer getLeaseSeconds() { return leaseSeconds; }
+        public void setLeaseSeconds(Integer leaseSeconds) { this.leaseSeconds = leaseSeconds; }
+    }
+
+    // Gestion des erreurs
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleIllegalState(IllegalStateException e) {
+        return ResponseEntity.status(409).body(e.getMessage());
+    }
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<String> handleRuntimeException(RuntimeException e) {
+        return ResponseEntity.notFound().build();
+    }
+}
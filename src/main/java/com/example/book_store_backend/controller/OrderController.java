@@ -1,9 +1,16 @@
 package com.example.book_store_backend.controller;
 
+import com.example.book_store_backend.dto.OrderSummaryDTO;
 import com.example.book_store_backend.entity.Order;
 import com.example.book_store_backend.entity.OrderStatus;
 import com.example.book_store_backend.entity.PaymentStatus;
+import com.example.book_store_backend.service.OrderArchiveService;
+import com.example.book_store_backend.service.OrderArchiveService.ArchiveResult;
+import com.example.book_store_backend.service.OrderArchiveService.ArchiveStatus;
+import com.example.book_store_backend.service.OrderMetricsService;
+import com.example.book_store_backend.service.OrderMetricsService.LatencyStatistics;
 import com.example.book_store_backend.service.OrderService;
+import com.example.book_store_backend.service.OrderService.BulkStatusResult;
 import com.example.book_store_backend.service.OrderService.OrderItemRequest;
 import com.example.book_store_backend.service.OrderService.OrderStatistics;
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,6 +25,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -29,6 +37,8 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderMetricsService orderMetricsService;
+    private final OrderArchiveService orderArchiveService;
 
     @PostMapping
     @Operation(summary = "Créer une nouvelle commande")
@@ -60,48 +70,49 @@ public class OrderController {
 
     @GetMapping
     @Operation(summary = "Récupérer toutes les commandes avec pagination")
-    public ResponseEntity<Page<Order>> getAllOrders(Pageable pageable) {
-        Page<Order> orders = orderService.getAllOrders(pageable);
+    public ResponseEntity<Page<OrderSummaryDTO>> getAllOrders(Pageable pageable) {
+        Page<OrderSummaryDTO> orders = orderService.getAllOrders(pageable);
         return ResponseEntity.ok(orders);
     }
 
     @GetMapping("/customer/{customerId}")
     @Operation(summary = "Récupérer les commandes d'un client")
-    public ResponseEntity<List<Order>> getCustomerOrders(
+    public ResponseEntity<List<OrderSummaryDTO>> getCustomerOrders(
             @Parameter(description = "ID du client") @PathVariable Long customerId) {
-        List<Order> orders = orderService.getCustomerOrders(customerId);
+        List<OrderSummaryDTO> orders = orderService.getCustomerOrders(customerId);
         return ResponseEntity.ok(orders);
     }
 
     @GetMapping("/customer/{customerId}/paginated")
     @Operation(summary = "Récupérer les commandes d'un client avec pagination")
-    public ResponseEntity<Page<Order>> getCustomerOrdersWithPagination(
+    public ResponseEntity<Page<OrderSummaryDTO>> getCustomerOrdersWithPagination(
             @Parameter(description = "ID du client") @PathVariable Long customerId,
             Pageable pageable) {
-        Page<Order> orders = orderService.getCustomerOrdersWithPagination(customerId, pageable);
+        Page<OrderSummaryDTO> orders = orderService.getCustomerOrdersWithPagination(customerId, pageable);
         return ResponseEntity.ok(orders);
     }
 
     @GetMapping("/search")
     @Operation(summary = "Rechercher des commandes")
-    public ResponseEntity<List<Order>> searchOrders(
-            @Parameter(description = "Mot-clé de recherche") @RequestParam String keyword) {
-        List<Order> orders = orderService.searchOrders(keyword);
+    public ResponseEntity<Page<OrderSummaryDTO>> searchOrders(
+            @Parameter(description = "Mot-clé de recherche") @RequestParam String keyword,
+            Pageable pageable) {
+        Page<OrderSummaryDTO> orders = orderService.searchOrders(keyword, pageable);
         return ResponseEntity.ok(orders);
     }
 
     @GetMapping("/status/{status}")
     @Operation(summary = "Récupérer les commandes par statut")
-    public ResponseEntity<List<Order>> getOrdersByStatus(
+    public ResponseEntity<List<OrderSummaryDTO>> getOrdersByStatus(
             @Parameter(description = "Statut de la commande") @PathVariable OrderStatus status) {
-        List<Order> orders = orderService.getOrdersByStatus(status);
+        List<OrderSummaryDTO> orders = orderService.getOrdersByStatus(status);
         return ResponseEntity.ok(orders);
     }
 
     @GetMapping("/pending")
     @Operation(summary = "Récupérer les commandes en attente de traitement")
-    public ResponseEntity<List<Order>> getPendingOrders() {
-        List<Order> orders = orderService.getPendingOrders();
+    public ResponseEntity<List<OrderSummaryDTO>> getPendingOrders() {
+        List<OrderSummaryDTO> orders = orderService.getPendingOrders();
         return ResponseEntity.ok(orders);
     }
 
@@ -114,6 +125,13 @@ public class OrderController {
         return ResponseEntity.ok(updatedOrder);
     }
 
+    @PutMapping("/bulk-status")
+    @Operation(summary = "Mettre à jour le statut d'un lot de commandes")
+    public ResponseEntity<BulkStatusResult> bulkUpdateOrderStatus(@RequestBody BulkStatusRequest request) {
+        BulkStatusResult result = orderService.bulkUpdateOrderStatus(request.getOrderIds(), request.getStatus());
+        return ResponseEntity.ok(result);
+    }
+
     @PutMapping("/{id}/payment-status")
     @Operation(summary = "Mettre à jour le statut de paiement")
     public ResponseEntity<Order> updatePaymentStatus(
@@ -143,6 +161,34 @@ public class OrderController {
         return ResponseEntity.ok(statistics);
     }
 
+    @GetMapping("/statistics/checkout-latency")
+    @Operation(summary = "Récupérer les percentiles de latence du checkout")
+    public ResponseEntity<LatencyStatistics> getCheckoutLatency(
+            @Parameter(description = "Date de début (par défaut aujourd'hui)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "Date de fin (par défaut aujourd'hui)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        LocalDate today = LocalDate.now();
+        LatencyStatistics statistics = orderMetricsService.getCheckoutLatency(
+                startDate != null ? startDate : today,
+                endDate != null ? endDate : today);
+        return ResponseEntity.ok(statistics);
+    }
+
+    @PostMapping("/archive")
+    @Operation(summary = "Archiver les commandes livrées ou annulées depuis plus de N jours")
+    public ResponseEntity<ArchiveResult> archiveOrders(
+            @Parameter(description = "Ancienneté minimale en jours") @RequestParam int olderThanDays) {
+        ArchiveResult result = orderArchiveService.archiveFinalizedOrders(olderThanDays);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/archive/status")
+    @Operation(summary = "Récupérer l'état de l'archivage des commandes")
+    public ResponseEntity<ArchiveStatus> getArchiveStatus() {
+        return ResponseEntity.ok(orderArchiveService.getStatus());
+    }
+
     // DTOs pour les requêtes
     public static class CreateOrderRequest {
         private Long customerId;
@@ -174,6 +220,26 @@ public class OrderController {
         public void setNotes(String notes) { this.notes = notes; }
     }
 
+    public static class BulkStatusRequest {
+        private List<Long> orderIds;
+        private OrderStatus status;
+
+        // Constructeurs
+        public BulkStatusRequest() {}
+
+        public BulkStatusRequest(List<Long> orderIds, OrderStatus status) {
+            this.orderIds = orderIds;
+            this.status = status;
+        }
+
+        // Getters et setters
+        public List<Long> getOrderIds() { return orderIds; }
+        public void setOrderIds(List<Long> orderIds) { this.orderIds = orderIds; }
+
+        public OrderStatus getStatus() { return status; }
+        public void setStatus(OrderStatus status) { this.status = status; }
+    }
+
     // Gestion des erreurs
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
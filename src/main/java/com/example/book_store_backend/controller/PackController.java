@@ -2,6 +2,7 @@ package com.example.book_store_backend.controller;
 
 import com.example.book_store_backend.entity.Pack;
 import com.example.book_store_backend.entity.DailyOffer;
+import com.example.book_store_backend.entity.PackItem;
 import com.example.book_store_backend.service.PackService;
 import com.example.book_store_backend.service.DailyOfferService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -109,7 +110,39 @@ public class PackController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/{id}/items")
+    @Operation(summary = "Récupérer la composition d'un pack")
+    public ResponseEntity<List<PackItem>> getPackItems(
+            @Parameter(description = "ID du pack") @PathVariable Long id) {
+        List<PackItem> items = packService.getPackItems(id);
+        return ResponseEntity.ok(items);
+    }
+
+    @PutMapping("/{id}/items/{bookId}")
+    @Operation(summary = "Ajouter un livre au pack ou modifier sa quantité")
+    public ResponseEntity<PackItem> setPackItem(
+            @Parameter(description = "ID du pack") @PathVariable Long id,
+            @Parameter(description = "ID du livre") @PathVariable Long bookId,
+            @Parameter(description = "Quantité par pack") @RequestParam Integer quantity) {
+        PackItem item = packService.setPackItem(id, bookId, quantity);
+        return ResponseEntity.ok(item);
+    }
+
+    @DeleteMapping("/{id}/items/{bookId}")
+    @Operation(summary = "Retirer un livre du pack")
+    public ResponseEntity<Void> removePackItem(
+            @Parameter(description = "ID du pack") @PathVariable Long id,
+            @Parameter(description = "ID du livre") @PathVariable Long bookId) {
+        packService.removePackItem(id, bookId);
+        return ResponseEntity.noContent().build();
+    }
+
     // Gestion des erreurs
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<String> handleRuntimeException(RuntimeException e) {
         return ResponseEntity.notFound().build();
@@ -0,0 +1,64 @@
+package com.example.book_store_backend.controller;
+
+import com.example.book_store_backend.service.PricingEngine;
+import com.example.book_store_backend.service.PricingEngine.EffectivePrice;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/pricing")
+@RequiredArgsConstructor
+@Tag(name = "Pricing", description = "API des prix effectifs (offres du jour appliquées)")
+@CrossOrigin(origins = "*")
+public class PricingController {
+
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private final PricingEngine pricingEngine;
+
+    @GetMapping("/books/{id}")
+    @Operation(summary = "Récupérer le prix effectif d'un livre")
+    public ResponseEntity<EffectivePrice> getBookPrice(
+            @Parameter(description = "ID du livre") @PathVariable Long id) {
+        return ResponseEntity.ok(pricingEngine.getBookPrice(id));
+    }
+
+    @GetMapping("/books")
+    @Operation(summary = "Récupérer les prix effectifs d'un lot de livres")
+    public ResponseEntity<List<EffectivePrice>> getBookPrices(
+            @Parameter(description = "IDs des livres") @RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Le lot ne peut pas dépasser " + MAX_BATCH_SIZE + " livres");
+        }
+        List<EffectivePrice> prices = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            prices.add(pricingEngine.getBookPrice(id));
+        }
+        return ResponseEntity.ok(prices);
+    }
+
+    @GetMapping("/packs/{id}")
+    @Operation(summary = "Récupérer le prix effectif d'un pack")
+    public ResponseEntity<EffectivePrice> getPackPrice(
+            @Parameter(description = "ID du pack") @PathVariable Long id) {
+        return ResponseEntity.ok(pricingEngine.getPackPrice(id));
+    }
+
+    // Gestion des erreurs
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<String> handleRuntimeException(RuntimeException e) {
+        return ResponseEntity.notFound().build();
+    }
+}
@@ -6,11 +6,17 @@ import java.math.BigDecimal;
 
 @Data
 public class OrderSummaryDTO {
+    private Long id;
     private String orderNumber;
+    private Long customerId;
     private String customerName;
     private String customerEmail;
+    private Integer itemCount;
     private BigDecimal totalAmount;
     private String status;
     private String paymentStatus;
     private String createdAt;
+    private String updatedAt;
+    private String shippedAt;
+    private String deliveredAt;
 }
@@ -0,0 +1,53 @@
+package com.example.book_store_backend.entity;
+
+import com.example.book_store_backend.util.Money;
+import com.example.book_store_backend.util.MoneyConverter;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Stockage froid : commande finalisée sortie des tables chaudes, conservée sous forme d'instantané JSON compressé (gzip)
+@Entity
+@Table(name = "archived_orders", indexes = {
+        @Index(name = "idx_archived_orders_customer_created", columnList = "customer_id, created_at"),
+        @Index(name = "idx_archived_orders_created", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedOrder {
+
+    // Même identifiant que la commande d'origine
+    @Id
+    private Long id;
+
+    @Column(unique = true, nullable = false)
+    private String orderNumber;
+
+    @Column(nullable = false)
+    private Long customerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money totalAmount;
+
+    @Column
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime finalizedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Lob
+    @Column(nullable = false, length = 16777215)
+    private byte[] snapshot;
+}
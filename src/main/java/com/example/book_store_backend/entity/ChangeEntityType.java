@@ -0,0 +1,19 @@
+package com.example.book_store_backend.entity;
+
+// Types d'entités dont les changements sont diffusés aux autres instances
+public enum ChangeEntityType {
+    BOOK(Book.class),
+    PACK(Pack.class),
+    DAILY_OFFER(DailyOffer.class),
+    CUSTOMER(Customer.class);
+
+    private final Class<?> entityClass;
+
+    ChangeEntityType(Class<?> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.book_store_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Journal des changements : une ligne par entité modifiée et par transaction, lue par les autres instances
+@Entity
+@Table(name = "change_outbox", indexes = {
+        @Index(name = "idx_change_outbox_created", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ChangeEntityType entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    // Instance à l'origine du changement (ses propres caches sont déjà à jour)
+    @Column(nullable = false, length = 64)
+    private String originNode;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,11 +1,15 @@
 package com.example.book_store_backend.entity;
 
+import com.example.book_store_backend.util.Money;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -13,7 +17,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "daily-offers")
 @Table(name = "daily_offers")
+@DynamicUpdate // soldQuantity et allocatedQuantity sont incrémentés en SQL : ne pas le réécrire lors des mises à jour
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -79,6 +86,9 @@ public class DailyOffer {
     @Min(value = 0, message = "La quantité vendue ne peut pas être négative")
     private Integer soldQuantity = 0; // Quantité déjà vendue
 
+    @Column
+    private Integer allocatedQuantity = 0; // Quantité répartie entre les instances (tranches de quota)
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
@@ -89,7 +99,11 @@ public class DailyOffer {
 
     // Méthode pour vérifier si l'offre est toujours valide
     public boolean isValidOffer() {
-        LocalDate now = LocalDate.now();
+        return isValidOffer(LocalDate.now());
+    }
+
+    // Validité à une date donnée (date du jour dans le fuseau des offres)
+    public boolean isValidOffer(LocalDate now) {
         return isActive &&
                 !now.isBefore(startDate) &&
                 !now.isAfter(endDate) &&
@@ -98,11 +112,9 @@ public class DailyOffer {
 
     // Méthode pour calculer le pourcentage de remise
     public void calculateDiscountPercentage() {
-        if (originalPrice != null && offerPrice != null && originalPrice.compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal discount = originalPrice.subtract(offerPrice);
-            BigDecimal percentage = discount.divide(originalPrice, 2, BigDecimal.ROUND_HALF_UP)
-                    .multiply(new BigDecimal("100"));
-            this.discountPercentage = percentage.intValue();
+        if (originalPrice != null && offerPrice != null && originalPrice.signum() > 0) {
+            Money original = Money.of(originalPrice);
+            this.discountPercentage = original.minus(Money.of(offerPrice)).percentageOf(original);
         }
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.book_store_backend.entity;
 
+import com.example.book_store_backend.util.Money;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
@@ -16,7 +17,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // File de préparation : parcours par statut dans l'ordre d'arrivée, bail filtré dans l'index
+        @Index(name = "idx_orders_status_created", columnList = "status, created_at, claim_expires_at"),
+        @Index(name = "idx_orders_claim_expires", columnList = "claim_expires_at"),
+        // Archivage : commandes finalisées par date de livraison, ou de dernière mise à jour à défaut
+        @Index(name = "idx_orders_status_delivered_updated", columnList = "status, delivered_at, updated_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -71,6 +78,16 @@ public class Order {
     @Column
     private LocalDateTime deliveredAt;
 
+    // Réservation par un préparateur (file de préparation)
+    @Column
+    private String claimedBy;
+
+    @Column
+    private LocalDateTime claimExpiresAt;
+
+    @Column
+    private LocalDateTime lastHeartbeatAt;
+
     // Méthode utilitaire pour ajouter un item à la commande
     public void addOrderItem(OrderItem item) {
         orderItems.add(item);
@@ -85,9 +102,11 @@ public class Order {
 
     // Méthode pour calculer le total
     public void calculateTotalAmount() {
-        this.totalAmount = orderItems.stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long totalCents = 0;
+        for (OrderItem item : orderItems) {
+            totalCents = Math.addExact(totalCents, item.subTotalCents());
+        }
+        this.totalAmount = Money.toBigDecimal(totalCents);
     }
 }
 
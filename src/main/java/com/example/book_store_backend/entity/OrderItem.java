@@ -1,5 +1,6 @@
 package com.example.book_store_backend.entity;
 
+import com.example.book_store_backend.util.Money;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
@@ -46,6 +47,9 @@ public class OrderItem {
     @Column
     private String bookAuthor; // Sauvegarde de l'auteur au moment de l'achat
 
+    @Column(name = "applied_offer_id")
+    private Long appliedOfferId; // Offre du jour appliquée au prix, le cas échéant
+
     // Constructeur utilitaire
     public OrderItem(Book book, Integer quantity) {
         this.book = book;
@@ -57,6 +61,11 @@ public class OrderItem {
 
     // Méthode pour calculer le sous-total
     public BigDecimal getSubTotal() {
-        return price.multiply(BigDecimal.valueOf(quantity));
+        return Money.toBigDecimal(subTotalCents());
+    }
+
+    // Sous-total en centimes (sans allocation)
+    public long subTotalCents() {
+        return Math.multiplyExact(Money.toMinorUnits(price), quantity.longValue());
     }
 }
\ No newline at end of file
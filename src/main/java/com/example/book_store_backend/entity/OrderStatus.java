@@ -6,5 +6,21 @@ public enum OrderStatus {
     PROCESSING,
     SHIPPED,
     DELIVERED,
-    CANCELLED
+    CANCELLED;
+
+    // Vérifier si la transition vers le statut cible est autorisée
+    public boolean canTransitionTo(OrderStatus target) {
+        switch (this) {
+            case PENDING:
+                return target == CONFIRMED || target == PROCESSING || target == SHIPPED || target == CANCELLED;
+            case CONFIRMED:
+                return target == PROCESSING || target == SHIPPED || target == CANCELLED;
+            case PROCESSING:
+                return target == SHIPPED || target == CANCELLED;
+            case SHIPPED:
+                return target == DELIVERED || target == CANCELLED;
+            default:
+                return false;
+        }
+    }
 }
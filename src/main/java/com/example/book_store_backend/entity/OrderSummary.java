@@ -0,0 +1,63 @@
+package com.example.book_store_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Modèle de lecture dénormalisé : une ligne par commande, maintenue dans la même transaction que la commande
+@Entity
+@Table(name = "order_summaries", indexes = {
+        @Index(name = "idx_order_summaries_customer_created", columnList = "customer_id, created_at"),
+        @Index(name = "idx_order_summaries_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_order_summaries_created", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummary {
+
+    @Id
+    private Long orderId;
+
+    @Column(unique = true, nullable = false)
+    private String orderNumber;
+
+    @Column(nullable = false)
+    private Long customerId;
+
+    @Column
+    private String customerName;
+
+    @Column
+    private String customerEmail;
+
+    @Column(nullable = false)
+    private Integer itemCount;
+
+    @Column(nullable = false)
+    private BigDecimal totalAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentStatus paymentStatus;
+
+    @Column
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @Column
+    private LocalDateTime shippedAt;
+
+    @Column
+    private LocalDateTime deliveredAt;
+}
@@ -5,6 +5,8 @@ import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -12,6 +14,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "packs")
 @Table(name = "packs")
 @Data
 @NoArgsConstructor
@@ -59,4 +63,8 @@ public class Pack {
     @UpdateTimestamp
     @Column
     private LocalDateTime updatedAt;
+
+    // Quantité disponible dérivée du stock des livres composant le pack (non persistée)
+    @Transient
+    private Integer availableQuantity;
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.example.book_store_backend.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Composition d'un pack : un livre et sa quantité par pack
+@Entity
+@Table(name = "pack_items",
+        uniqueConstraints = @UniqueConstraint(name = "uk_pack_items_pack_book", columnNames = {"pack_id", "book_id"}),
+        indexes = @Index(name = "idx_pack_items_book", columnList = "book_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PackItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "pack_id", nullable = false)
+    @JsonIgnore
+    private Pack pack;
+
+    @Column(name = "book_id", nullable = false)
+    @NotNull(message = "Le livre est obligatoire")
+    private Long bookId;
+
+    @Column(nullable = false)
+    @NotNull(message = "La quantité est obligatoire")
+    @Min(value = 1, message = "La quantité doit être supérieure à 0")
+    private Integer quantity;
+
+    @Column(name = "pack_id", insertable = false, updatable = false)
+    private Long packId;
+}
@@ -0,0 +1,37 @@
+package com.example.book_store_backend.repository;
+
+import com.example.book_store_backend.entity.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    // Trouver une commande archivée par numéro
+    Optional<ArchivedOrder> findByOrderNumber(String orderNumber);
+
+    // Plus grand ID archivé (borne pour les chargements par tranches)
+    @Query("SELECT MAX(a.id) FROM ArchivedOrder a")
+    Long findMaxId();
+
+    // Commandes archivées par tranche d'IDs
+    @Query("SELECT a FROM ArchivedOrder a WHERE a.id > :fromId AND a.id <= :toId ORDER BY a.id")
+    List<ArchivedOrder> findByIdRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // Rattacher les archives de clients fusionnés au client conservé
+    @Modifying
+    @Query("UPDATE ArchivedOrder a SET a.customerId = :customerId WHERE a.customerId IN :fromCustomerIds")
+    int reassignCustomer(@Param("fromCustomerIds") Collection<Long> fromCustomerIds, @Param("customerId") Long customerId);
+
+    // Supprimer les archives d'un client supprimé définitivement
+    @Modifying
+    @Query("DELETE FROM ArchivedOrder a WHERE a.customerId = :customerId")
+    int deleteByCustomerId(@Param("customerId") Long customerId);
+}
@@ -1,10 +1,13 @@
 package com.example.book_store_backend.repository;
 
 import com.example.book_store_backend.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -53,12 +56,20 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     // Trouver les livres en rupture de stock
     List<Book> findByStockQuantityAndIsActiveTrue(Integer stockQuantity);
 
-    // Trouver les catégories distinctes
+    // Trouver les catégories distinctes (cache de requêtes, invalidé à chaque écriture sur books)
     @Query("SELECT DISTINCT b.category FROM Book b WHERE b.category IS NOT NULL AND b.isActive = true")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "catalog-queries")
+    })
     List<String> findDistinctCategories();
 
-    // Trouver les auteurs distincts
+    // Trouver les auteurs distincts (cache de requêtes)
     @Query("SELECT DISTINCT b.author FROM Book b WHERE b.isActive = true")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "catalog-queries")
+    })
     List<String> findDistinctAuthors();
 
     // Compter les livres par catégorie
@@ -76,4 +87,4 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT b FROM Book b WHERE b.isActive = true AND b.price BETWEEN :minPrice AND :maxPrice")
     List<Book> findBooksByPriceRange(@Param("minPrice") java.math.BigDecimal minPrice,
                                      @Param("maxPrice") java.math.BigDecimal maxPrice);
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.example.book_store_backend.repository;
+
+import com.example.book_store_backend.entity.ChangeOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ChangeOutboxRepository extends JpaRepository<ChangeOutboxEntry, Long> {
+
+    // Plus grand ID du journal (point de départ d'une instance qui démarre)
+    @Query("SELECT MAX(c.id) FROM ChangeOutboxEntry c")
+    Long findMaxId();
+
+    // Changements après le dernier ID traité
+    @Query("SELECT c.id, c.entityType, c.entityId, c.originNode FROM ChangeOutboxEntry c WHERE c.id > :afterId ORDER BY c.id")
+    List<Object[]> findChangesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Changements d'IDs encore non visibles au passage précédent (transactions commitées dans le désordre)
+    @Query("SELECT c.id, c.entityType, c.entityId, c.originNode FROM ChangeOutboxEntry c WHERE c.id IN :ids")
+    List<Object[]> findChangesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Purger les changements lus par toutes les instances
+    @Modifying
+    @Query("DELETE FROM ChangeOutboxEntry c WHERE c.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -1,7 +1,9 @@
 package com.example.book_store_backend.repository;
 
 import com.example.book_store_backend.entity.Customer;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,25 +17,33 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     // Trouver un client par email
     Optional<Customer> findByEmail(String email);
 
+    // Lecture verrouillante : voit la dernière version validée, même créée après le début de la transaction
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT c FROM Customer c WHERE c.email = :email")
+    Optional<Customer> findByEmailForShare(@Param("email") String email);
+
     // Trouver un client par numéro de téléphone
     Optional<Customer> findByPhoneNumber(String phoneNumber);
 
-    // Trouver les clients actifs
-    List<Customer> findByIsActiveTrue();
+    // Identités (ID, email, téléphone) de tous les clients, pour le cache de résolution
+    @Query("SELECT c.id, c.email, c.phoneNumber FROM Customer c")
+    List<Object[]> findAllIdentities();
+
+    // Chargement de l'index de recherche, par tranches d'identifiants
+    @Query("SELECT MAX(c.id) FROM Customer c")
+    Long findMaxId();
 
-    // Recherche par nom et prénom
-    @Query("SELECT c FROM Customer c WHERE c.isActive = true AND " +
-            "(LOWER(c.firstName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(c.lastName) LIKE LOWER(CONCAT('%', :keyword, '%')))")
-    List<Customer> searchCustomersByName(@Param("keyword") String keyword);
+    @Query("SELECT c.id, c.firstName, c.lastName, c.email, c.phoneNumber, c.isActive FROM Customer c " +
+            "WHERE c.id > :fromId AND c.id <= :toId")
+    List<Object[]> findSearchRowsByIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
 
-    // Recherche globale (nom, prénom, email, téléphone)
-    @Query("SELECT c FROM Customer c WHERE c.isActive = true AND " +
-            "(LOWER(c.firstName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(c.lastName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(c.email) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "c.phoneNumber LIKE CONCAT('%', :keyword, '%'))")
-    List<Customer> searchCustomers(@Param("keyword") String keyword);
+    // Attributs comparés par la détection de doublons, par tranches d'identifiants
+    @Query("SELECT c.id, c.firstName, c.lastName, c.email, c.phoneNumber, c.address, c.postalCode FROM Customer c " +
+            "WHERE c.id > :fromId AND c.id <= :toId")
+    List<Object[]> findDeduplicationRowsByIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    // Trouver les clients actifs
+    List<Customer> findByIsActiveTrue();
 
     // Trouver les clients par ville
     List<Customer> findByCityAndIsActiveTrue(String city);
@@ -51,7 +61,10 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     @Query("SELECT c.city, COUNT(c) FROM Customer c WHERE c.isActive = true AND c.city IS NOT NULL GROUP BY c.city")
     List<Object[]> countCustomersByCity();
 
-    // Trouver les clients les plus actifs (avec le plus de commandes)
-    @Query("SELECT c FROM Customer c WHERE c.isActive = true ORDER BY SIZE(c.orders) DESC")
-    List<Customer> findMostActiveCustomers();
+    // Compter les clients actifs
+    long countByIsActiveTrue();
+
+    // Compter les clients par pays
+    @Query("SELECT c.country, COUNT(c) FROM Customer c WHERE c.isActive = true AND c.country IS NOT NULL GROUP BY c.country")
+    List<Object[]> countCustomersByCountry();
 }
\ No newline at end of file
@@ -2,10 +2,12 @@ package com.example.book_store_backend.repository;
 
 import com.example.book_store_backend.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -32,4 +34,23 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     // Calculer le total des ventes pour un livre
     @Query("SELECT SUM(oi.quantity * oi.price) FROM OrderItem oi WHERE oi.book.id = :bookId AND oi.order.status != 'CANCELLED'")
     java.math.BigDecimal getTotalSalesForBook(@Param("bookId") Long bookId);
-}
\ No newline at end of file
+
+    // Lignes de faits (commande x article) pour le moteur analytique, par tranche d'IDs de commande
+    @Query("SELECT o.id, o.createdAt, o.status, o.paymentStatus, c.city, c.country, b.id, b.category, oi.quantity, oi.price " +
+            "FROM OrderItem oi JOIN oi.order o JOIN o.customer c JOIN oi.book b " +
+            "WHERE o.id > :fromId AND o.id <= :toId ORDER BY o.id, oi.id")
+    List<Object[]> findFactRowsByOrderIdRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // Quantités par commande et par livre (avec l'offre appliquée) pour un lot de commandes
+    @Query("SELECT oi.order.id, oi.book.id, oi.quantity, oi.appliedOfferId FROM OrderItem oi WHERE oi.order.id IN :orderIds")
+    List<Object[]> findQuantitiesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    // Articles d'un lot de commandes, avec leur livre
+    @Query("SELECT oi FROM OrderItem oi JOIN FETCH oi.book WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItem> findWithBookByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    // Supprimer les articles d'un lot de commandes archivées
+    @Modifying
+    @Query("DELETE FROM OrderItem oi WHERE oi.order.id IN :orderIds")
+    int deleteByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+}
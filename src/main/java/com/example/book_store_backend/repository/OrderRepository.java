@@ -1,17 +1,24 @@
 package com.example.book_store_backend.repository;
 
+import com.example.book_store_backend.entity.Customer;
 import com.example.book_store_backend.entity.Order;
 import com.example.book_store_backend.entity.OrderStatus;
 import com.example.book_store_backend.entity.PaymentStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -72,4 +79,103 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // Trouver les commandes en attente de traitement
     @Query("SELECT o FROM Order o WHERE o.status IN ('PENDING', 'CONFIRMED') ORDER BY o.createdAt ASC")
     List<Order> findPendingOrders();
-}
\ No newline at end of file
+
+    // Plus grand ID de commande (borne pour les chargements par tranches)
+    @Query("SELECT MAX(o.id) FROM Order o")
+    Long findMaxId();
+
+    // IDs des commandes d'un ensemble de clients (fusion de doublons)
+    @Query("SELECT o.id FROM Order o WHERE o.customer.id IN :customerIds ORDER BY o.id")
+    List<Long> findIdsByCustomerIdIn(@Param("customerIds") Collection<Long> customerIds);
+
+    // Rattacher un lot de commandes à un autre client
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.customer = :customer WHERE o.id IN :ids")
+    int reassignCustomer(@Param("ids") Collection<Long> ids, @Param("customer") Customer customer);
+
+    // Statuts courants d'un lot de commandes
+    @Query("SELECT o.id, o.status, o.createdAt, o.totalAmount, o.customer.id FROM Order o WHERE o.id IN :ids")
+    List<Object[]> findStatusesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Transition de statut ensembliste (uniquement depuis le statut attendu)
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now WHERE o.id IN :ids AND o.status = :fromStatus")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("fromStatus") OrderStatus fromStatus,
+                     @Param("status") OrderStatus status, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now, o.shippedAt = COALESCE(o.shippedAt, :now) " +
+            "WHERE o.id IN :ids AND o.status = :fromStatus")
+    int updateStatusAndShippedAt(@Param("ids") Collection<Long> ids, @Param("fromStatus") OrderStatus fromStatus,
+                                 @Param("status") OrderStatus status, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now, o.deliveredAt = COALESCE(o.deliveredAt, :now) " +
+            "WHERE o.id IN :ids AND o.status = :fromStatus")
+    int updateStatusAndDeliveredAt(@Param("ids") Collection<Long> ids, @Param("fromStatus") OrderStatus fromStatus,
+                                   @Param("status") OrderStatus status, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.paymentStatus = :paymentStatus, o.updatedAt = :now " +
+            "WHERE o.id IN :ids AND o.status = :fromStatus")
+    int updateStatusAndPaymentStatus(@Param("ids") Collection<Long> ids, @Param("fromStatus") OrderStatus fromStatus,
+                                     @Param("status") OrderStatus status, @Param("paymentStatus") PaymentStatus paymentStatus,
+                                     @Param("now") LocalDateTime now);
+
+    // Réserver des commandes à préparer : les lignes déjà verrouillées par un autre préparateur sont ignorées
+    // (timeout -2 = SKIP LOCKED ; les dialectes sans support, comme H2, se rabattent sur FOR UPDATE)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM Order o WHERE o.status IN :statuses " +
+            "AND (o.claimExpiresAt IS NULL OR o.claimExpiresAt < :now) ORDER BY o.createdAt ASC")
+    List<Order> findClaimableOrders(@Param("statuses") Collection<OrderStatus> statuses,
+                                    @Param("now") LocalDateTime now, Pageable pageable);
+
+    // Prolonger le bail des commandes encore détenues par un préparateur
+    @Modifying
+    @Query("UPDATE Order o SET o.claimExpiresAt = :expiresAt, o.lastHeartbeatAt = :now " +
+            "WHERE o.id IN :ids AND o.claimedBy = :workerId AND o.claimExpiresAt >= :now")
+    int extendClaims(@Param("ids") Collection<Long> ids, @Param("workerId") String workerId,
+                     @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Terminer une réservation : uniquement si le préparateur détient encore un bail valide
+    // (la ligne reste verrouillée jusqu'au commit, elle ne peut donc plus être réservée par un autre)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.claimedBy = NULL, o.claimExpiresAt = NULL, o.lastHeartbeatAt = NULL " +
+            "WHERE o.id = :id AND o.claimedBy = :workerId AND o.claimExpiresAt > :now")
+    int completeClaim(@Param("id") Long id, @Param("workerId") String workerId, @Param("now") LocalDateTime now);
+
+    // Libérer les commandes d'un préparateur
+    @Modifying
+    @Query("UPDATE Order o SET o.claimedBy = NULL, o.claimExpiresAt = NULL, o.lastHeartbeatAt = NULL " +
+            "WHERE o.id IN :ids AND o.claimedBy = :workerId")
+    int releaseClaims(@Param("ids") Collection<Long> ids, @Param("workerId") String workerId);
+
+    // Libérer les réservations dont le bail a expiré
+    @Modifying
+    @Query("UPDATE Order o SET o.claimedBy = NULL, o.claimExpiresAt = NULL, o.lastHeartbeatAt = NULL " +
+            "WHERE o.claimExpiresAt < :now")
+    int releaseExpiredClaims(@Param("now") LocalDateTime now);
+
+    // Candidats à l'archivage, lus sans verrou : COALESCE(deliveredAt, updatedAt) < cutoff réécrit en deux
+    // plages de l'index (status, delivered_at, updated_at)
+    @Query("SELECT o.id FROM Order o WHERE o.status IN :statuses " +
+            "AND (o.deliveredAt < :cutoff OR (o.deliveredAt IS NULL AND o.updatedAt < :cutoff))")
+    List<Long> findArchivableOrderIds(@Param("statuses") Collection<OrderStatus> statuses,
+                                      @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Verrouiller les candidats par clé primaire, condition revérifiée (lignes verrouillées par une écriture
+    // concurrente ignorées) : aucun verrou d'intervalle, les insertions de commandes ne sont pas bloquées
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids AND o.status IN :statuses " +
+            "AND (o.deliveredAt < :cutoff OR (o.deliveredAt IS NULL AND o.updatedAt < :cutoff))")
+    List<Order> lockArchivableOrders(@Param("ids") Collection<Long> ids,
+                                     @Param("statuses") Collection<OrderStatus> statuses,
+                                     @Param("cutoff") LocalDateTime cutoff);
+
+    // Supprimer un lot de commandes archivées
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,118 @@
+package com.example.book_store_backend.repository;
+
+import com.example.book_store_backend.entity.OrderStatus;
+import com.example.book_store_backend.entity.OrderSummary;
+import com.example.book_store_backend.entity.PaymentStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long> {
+
+    // Toutes les commandes, les plus récentes d'abord
+    Page<OrderSummary> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    // Historique d'un client
+    List<OrderSummary> findByCustomerIdOrderByCreatedAtDesc(Long customerId);
+
+    Page<OrderSummary> findByCustomerIdOrderByCreatedAtDesc(Long customerId, Pageable pageable);
+
+    // Commandes par statut
+    List<OrderSummary> findByStatusOrderByCreatedAtDesc(OrderStatus status);
+
+    // Commandes en attente de traitement
+    @Query("SELECT s FROM OrderSummary s WHERE s.status IN ('PENDING', 'CONFIRMED') ORDER BY s.createdAt ASC")
+    List<OrderSummary> findPendingOrders();
+
+    // Chargement de l'index de recherche, par tranches d'identifiants
+    @Query("SELECT MAX(s.orderId) FROM OrderSummary s")
+    Long findMaxOrderId();
+
+    @Query("SELECT s.orderId, s.orderNumber, s.customerId, s.customerName FROM OrderSummary s " +
+            "WHERE s.orderId > :fromId AND s.orderId <= :toId")
+    List<Object[]> findSearchRowsByIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    // Totaux d'une période : nombre de commandes, commandes livrées, chiffre d'affaires hors annulations
+    @Query("SELECT COUNT(s), " +
+            "SUM(CASE WHEN s.status = 'DELIVERED' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN s.status <> 'CANCELLED' THEN s.totalAmount ELSE 0 END) " +
+            "FROM OrderSummary s WHERE s.createdAt BETWEEN :startDate AND :endDate")
+    List<Object[]> getTotalsByDateRange(@Param("startDate") LocalDateTime startDate,
+                                        @Param("endDate") LocalDateTime endDate);
+
+    // Valeurs des commandes non annulées (date, total, nombre d'articles) par tranche d'IDs
+    @Query("SELECT s.createdAt, s.totalAmount, s.itemCount FROM OrderSummary s " +
+            "WHERE s.orderId > :fromId AND s.orderId <= :toId AND s.status <> 'CANCELLED'")
+    List<Object[]> findOrderValuesByIdRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // Commandes des clients (client, date, total, statut) par tranche d'IDs, pour le calcul RFM
+    @Query("SELECT s.customerId, s.createdAt, s.totalAmount, s.status, s.orderId FROM OrderSummary s " +
+            "WHERE s.orderId > :fromId AND s.orderId <= :toId")
+    List<Object[]> findCustomerValueRowsByIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    // Répercuter une transition de statut ensembliste
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.status = :status, s.updatedAt = :now WHERE s.orderId IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status,
+                     @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.status = :status, s.updatedAt = :now, s.shippedAt = COALESCE(s.shippedAt, :now) " +
+            "WHERE s.orderId IN :ids")
+    int updateStatusAndShippedAt(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status,
+                                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.status = :status, s.updatedAt = :now, s.deliveredAt = COALESCE(s.deliveredAt, :now) " +
+            "WHERE s.orderId IN :ids")
+    int updateStatusAndDeliveredAt(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status,
+                                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.status = :status, s.paymentStatus = :paymentStatus, s.updatedAt = :now " +
+            "WHERE s.orderId IN :ids")
+    int updateStatusAndPaymentStatus(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status,
+                                     @Param("paymentStatus") PaymentStatus paymentStatus, @Param("now") LocalDateTime now);
+
+    // Répercuter un changement d'identité du client
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.customerName = :customerName, s.customerEmail = :customerEmail " +
+            "WHERE s.customerId = :customerId")
+    int updateCustomerIdentity(@Param("customerId") Long customerId,
+                               @Param("customerName") String customerName,
+                               @Param("customerEmail") String customerEmail);
+
+    // Rattacher les résumés de clients fusionnés au client conservé
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.customerId = :customerId, s.customerName = :customerName, " +
+            "s.customerEmail = :customerEmail WHERE s.customerId IN :fromCustomerIds")
+    int reassignCustomer(@Param("fromCustomerIds") Collection<Long> fromCustomerIds,
+                         @Param("customerId") Long customerId,
+                         @Param("customerName") String customerName,
+                         @Param("customerEmail") String customerEmail);
+
+    // Supprimer les résumés d'un client supprimé définitivement
+    @Modifying
+    @Query("DELETE FROM OrderSummary s WHERE s.customerId = :customerId")
+    int deleteByCustomerId(@Param("customerId") Long customerId);
+
+    // Construire les résumés manquants à partir des commandes existantes
+    @Modifying
+    @Query("INSERT INTO OrderSummary (orderId, orderNumber, customerId, customerName, customerEmail, itemCount, " +
+            "totalAmount, status, paymentStatus, createdAt, updatedAt, shippedAt, deliveredAt) " +
+            "SELECT o.id, o.orderNumber, c.id, CONCAT(c.firstName, ' ', c.lastName), c.email, " +
+            "CAST((SELECT COALESCE(SUM(oi.quantity), 0) FROM OrderItem oi WHERE oi.order = o) AS Integer), " +
+            "o.totalAmount, o.status, o.paymentStatus, o.createdAt, o.updatedAt, o.shippedAt, o.deliveredAt " +
+            "FROM Order o JOIN o.customer c " +
+            "WHERE NOT EXISTS (SELECT 1 FROM OrderSummary s WHERE s.orderId = o.id)")
+    int insertMissingSummaries();
+}
@@ -0,0 +1,21 @@
+package com.example.book_store_backend.repository;
+
+import com.example.book_store_backend.entity.PackItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PackItemRepository extends JpaRepository<PackItem, Long> {
+
+    // Composition d'un pack
+    List<PackItem> findByPackIdOrderById(Long packId);
+
+    // Ligne d'un livre dans un pack
+    Optional<PackItem> findByPackIdAndBookId(Long packId, Long bookId);
+
+    // Supprimer les lignes d'un livre supprimé définitivement
+    int deleteByBookId(Long bookId);
+}
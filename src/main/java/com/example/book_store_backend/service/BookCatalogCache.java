@@ -0,0 +1,159 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.Book;
+import com.example.book_store_backend.entity.ChangeEntityType;
+import com.example.book_store_backend.repository.BookRepository;
+import com.example.book_store_backend.util.Money;
+import com.example.book_store_backend.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Catalogue des livres en mémoire (prix, stock, statut) : chargé au démarrage et tenu à jour
+ * après commit par chaque écriture de BookService, et rechargé pour les livres modifiés par les
+ * autres instances. Sert les lectures fréquentes sans accès MySQL.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Order(1)
+public class BookCatalogCache implements ChangeSubscriber {
+
+    private final BookRepository bookRepository;
+
+    private final Map<Long, BookSnapshot> books = new ConcurrentHashMap<>();
+    private final List<BookChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Charger le catalogue au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        for (Book book : bookRepository.findAll()) {
+            books.putIfAbsent(book.getId(), BookSnapshot.of(book));
+        }
+        log.info("Catalogue des livres chargé: {} livres en {} ms", books.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Être notifié de chaque changement d'un livre du catalogue (null si le livre est retiré)
+     */
+    public void addListener(BookChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public Optional<BookSnapshot> get(Long bookId) {
+        return Optional.ofNullable(books.get(bookId));
+    }
+
+    public int size() {
+        return books.size();
+    }
+
+    /**
+     * Remplacer l'instantané d'un livre créé ou modifié (après commit)
+     */
+    public void refresh(Book book) {
+        BookSnapshot snapshot = BookSnapshot.of(book);
+        TransactionUtils.runAfterCommit(() -> {
+            books.put(snapshot.getId(), snapshot);
+            notifyListeners(snapshot.getId(), snapshot);
+        });
+    }
+
+    /**
+     * Appliquer une variation de stock faite par incrément SQL (après commit)
+     */
+    public void adjustStock(Long bookId, int delta) {
+        TransactionUtils.runAfterCommit(() -> {
+            BookSnapshot updated = books.computeIfPresent(bookId,
+                    (id, snapshot) -> snapshot.withStockQuantity(snapshot.getStockQuantity() + delta));
+            if (updated != null) {
+                notifyListeners(bookId, updated);
+            }
+        });
+    }
+
+    /**
+     * Retirer un livre supprimé définitivement (après commit)
+     */
+    public void evict(Long bookId) {
+        TransactionUtils.runAfterCommit(() -> {
+            books.remove(bookId);
+            notifyListeners(bookId, null);
+        });
+    }
+
+    @Override
+    public Set<ChangeEntityType> getSubscribedTypes() {
+        return Set.of(ChangeEntityType.BOOK);
+    }
+
+    /**
+     * Recharger les livres modifiés par une autre instance
+     */
+    @Override
+    public void onRemoteChanges(ChangeEntityType type, Set<Long> ids) {
+        Map<Long, Book> found = bookRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        for (Long bookId : ids) {
+            Book book = found.get(bookId);
+            if (book != null) {
+                BookSnapshot snapshot = BookSnapshot.of(book);
+                books.put(bookId, snapshot);
+                notifyListeners(bookId, snapshot);
+            } else if (books.remove(bookId) != null) {
+                notifyListeners(bookId, null);
+            }
+        }
+    }
+
+    private void notifyListeners(Long bookId, BookSnapshot snapshot) {
+        for (BookChangeListener listener : listeners) {
+            listener.onBookChanged(bookId, snapshot);
+        }
+    }
+
+    public interface BookChangeListener {
+        void onBookChanged(Long bookId, BookSnapshot snapshot);
+    }
+
+    // Instantané immuable d'un livre
+    @lombok.Value
+    @lombok.With
+    public static class BookSnapshot {
+        Long id;
+        String title;
+        String author;
+        String category;
+        long priceCents;
+        int stockQuantity;
+        boolean active;
+
+        static BookSnapshot of(Book book) {
+            return new BookSnapshot(
+                    book.getId(),
+                    book.getTitle(),
+                    book.getAuthor(),
+                    book.getCategory(),
+                    Money.toMinorUnits(book.getPrice()),
+                    book.getStockQuantity() != null ? book.getStockQuantity() : 0,
+                    Boolean.TRUE.equals(book.getIsActive()));
+        }
+    }
+}
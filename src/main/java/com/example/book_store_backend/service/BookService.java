@@ -1,16 +1,21 @@
 package com.example.book_store_backend.service;
 
 import com.example.book_store_backend.entity.Book;
+import com.example.book_store_backend.entity.ChangeEntityType;
 import com.example.book_store_backend.repository.BookRepository;
+import com.example.book_store_backend.repository.PackItemRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -20,6 +25,12 @@ import java.util.Optional;
 public class BookService {
 
     private final BookRepository bookRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final BookCatalogCache bookCatalogCache;
+    private final PackItemRepository packItemRepository;
+    private final SecondLevelCacheService secondLevelCacheService;
+    private final ChangeOutboxService changeOutboxService;
+    private final BusinessMetrics businessMetrics;
 
     /**
      * Créer un nouveau livre
@@ -41,6 +52,8 @@ public class BookService {
         }
 
         Book savedBook = bookRepository.save(book);
+        bookCatalogCache.refresh(savedBook);
+        changeOutboxService.publish(ChangeEntityType.BOOK, savedBook.getId());
         log.info("Livre créé avec succès. ID: {}", savedBook.getId());
         return savedBook;
     }
@@ -76,6 +89,8 @@ public class BookService {
         existingBook.setIsFeatured(bookDetails.getIsFeatured());
 
         Book updatedBook = bookRepository.save(existingBook);
+        bookCatalogCache.refresh(updatedBook);
+        changeOutboxService.publish(ChangeEntityType.BOOK, updatedBook.getId());
         log.info("Livre mis à jour avec succès. ID: {}", updatedBook.getId());
         return updatedBook;
     }
@@ -153,6 +168,8 @@ public class BookService {
         Book book = getBookById(id);
         book.setIsActive(false);
         bookRepository.save(book);
+        bookCatalogCache.refresh(book);
+        changeOutboxService.publish(ChangeEntityType.BOOK, book.getId());
         log.info("Livre supprimé (désactivé) avec succès. ID: {}", id);
     }
 
@@ -164,7 +181,10 @@ public class BookService {
         if (!bookRepository.existsById(id)) {
             throw new RuntimeException("Livre non trouvé avec l'ID: " + id);
         }
+        packItemRepository.deleteByBookId(id);
         bookRepository.deleteById(id);
+        bookCatalogCache.evict(id);
+        changeOutboxService.publish(ChangeEntityType.BOOK, id);
         log.info("Livre supprimé définitivement avec succès. ID: {}", id);
     }
 
@@ -175,22 +195,49 @@ public class BookService {
         log.info("Mise à jour du stock du livre ID: {} vers {}", id, newStock);
         Book book = getBookById(id);
         book.setStockQuantity(newStock);
-        return bookRepository.save(book);
+        Book updatedBook = bookRepository.save(book);
+        bookCatalogCache.refresh(updatedBook);
+        changeOutboxService.publish(ChangeEntityType.BOOK, updatedBook.getId());
+        return updatedBook;
     }
 
     /**
-     * Réduire le stock lors d'une vente
+     * Réduire le stock lors d'une vente par décrément conditionnel : la base refuse la vente si le
+     * stock ne suffit plus (l'entité en cache de second niveau peut être périmée)
      */
     public void reduceStock(Long bookId, Integer quantity) {
-        Book book = getBookById(bookId);
-        if (book.getStockQuantity() < quantity) {
+        // SQL direct plutôt qu'un UPDATE JPQL, qui viderait toute la région Book du cache de second niveau
+        int updated = jdbcTemplate.update(
+                "UPDATE books SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?",
+                quantity, bookId, quantity);
+        if (updated == 0) {
+            Book book = getBookById(bookId);
+            businessMetrics.recordOrderStockFailure();
             throw new IllegalArgumentException("Stock insuffisant pour le livre: " + book.getTitle());
         }
-        book.setStockQuantity(book.getStockQuantity() - quantity);
-        bookRepository.save(book);
+        bookCatalogCache.adjustStock(bookId, -quantity);
+        secondLevelCacheService.evictEntities(Book.class, List.of(bookId));
+        changeOutboxService.publish(ChangeEntityType.BOOK, bookId);
         log.info("Stock réduit de {} pour le livre ID: {}", quantity, bookId);
     }
 
+    /**
+     * Réintégrer du stock (ex. commande annulée) pour un ou plusieurs livres en un seul lot JDBC
+     * (une ligne par livre) ; seules les entrées de ces livres sont évincées du cache de second niveau
+     */
+    public void increaseStockBatch(Map<Long, Integer> quantitiesByBook) {
+        if (quantitiesByBook.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = new ArrayList<>(quantitiesByBook.size());
+        quantitiesByBook.forEach((bookId, quantity) -> batchArgs.add(new Object[]{quantity, bookId}));
+        jdbcTemplate.batchUpdate("UPDATE books SET stock_quantity = stock_quantity + ? WHERE id = ?", batchArgs);
+        quantitiesByBook.forEach(bookCatalogCache::adjustStock);
+        secondLevelCacheService.evictEntities(Book.class, quantitiesByBook.keySet());
+        changeOutboxService.publishAll(ChangeEntityType.BOOK, quantitiesByBook.keySet());
+        log.info("Stock réintégré pour {} livres", quantitiesByBook.size());
+    }
+
     /**
      * Récupérer les livres avec stock faible
      */
@@ -207,6 +254,14 @@ public class BookService {
         return bookRepository.findDistinctCategories();
     }
 
+    /**
+     * Récupérer tous les auteurs
+     */
+    @Transactional(readOnly = true)
+    public List<String> getAllAuthors() {
+        return bookRepository.findDistinctAuthors();
+    }
+
     /**
      * Récupérer les livres par plage de prix
      */
@@ -221,6 +276,9 @@ public class BookService {
     public Book toggleFeaturedStatus(Long id) {
         Book book = getBookById(id);
         book.setIsFeatured(!book.getIsFeatured());
-        return bookRepository.save(book);
+        Book updatedBook = bookRepository.save(book);
+        bookCatalogCache.refresh(updatedBook);
+        changeOutboxService.publish(ChangeEntityType.BOOK, updatedBook.getId());
+        return updatedBook;
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.OrderStatus;
+import com.example.book_store_backend.service.OfferSaleCounters.ClaimOutcome;
+import com.example.book_store_backend.util.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compteurs métier Micrometer : commandes créées et changements de statut, refus pour stock
+ * insuffisant, réservations d'offres du jour par résultat. Les compteurs sont créés au démarrage :
+ * un incrément ne passe pas par le registre.
+ */
+@Service
+public class BusinessMetrics {
+
+    private final Counter ordersCreated;
+    private final Map<OrderStatus, Counter> orderStatusChanges = new EnumMap<>(OrderStatus.class);
+    private final Counter orderStockFailures;
+    private final Counter cartStockFailures;
+    private final Map<ClaimOutcome, Counter> offerClaims = new EnumMap<>(ClaimOutcome.class);
+
+    public BusinessMetrics(MeterRegistry meterRegistry) {
+        this.ordersCreated = Counter.builder("bookstore.orders.placed")
+                .description("Commandes créées")
+                .register(meterRegistry);
+        for (OrderStatus status : OrderStatus.values()) {
+            orderStatusChanges.put(status, Counter.builder("bookstore.orders.status.changes")
+                    .description("Commandes passées à un statut")
+                    .tag("status", status.name())
+                    .register(meterRegistry));
+        }
+        this.orderStockFailures = stockFailureCounter(meterRegistry, "order");
+        this.cartStockFailures = stockFailureCounter(meterRegistry, "cart");
+        for (ClaimOutcome outcome : ClaimOutcome.values()) {
+            offerClaims.put(outcome, Counter.builder("bookstore.offers.claims")
+                    .description("Réservations d'unités d'offres du jour")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Compter une commande créée (après commit)
+     */
+    public void recordOrderCreated() {
+        TransactionUtils.runAfterCommit(ordersCreated::increment);
+    }
+
+    /**
+     * Compter des commandes passées à un statut (après commit)
+     */
+    public void recordStatusChanges(OrderStatus status, int count) {
+        if (count <= 0) {
+            return;
+        }
+        Counter counter = orderStatusChanges.get(status);
+        TransactionUtils.runAfterCommit(() -> counter.increment(count));
+    }
+
+    /**
+     * Compter une commande refusée pour stock insuffisant
+     */
+    public void recordOrderStockFailure() {
+        orderStockFailures.increment();
+    }
+
+    /**
+     * Compter un ajout ou une validation de panier refusé pour stock insuffisant
+     */
+    public void recordCartStockFailure() {
+        cartStockFailures.increment();
+    }
+
+    public void recordOfferClaim(ClaimOutcome outcome) {
+        offerClaims.get(outcome).increment();
+    }
+
+    private static Counter stockFailureCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("bookstore.stock.failures")
+                .description("Refus pour stock insuffisant")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,388 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.Order;
+import com.example.book_store_backend.service.BookCatalogCache.BookSnapshot;
+import com.example.book_store_backend.util.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Paniers côté serveur, en mémoire uniquement : nombre de paniers borné (le moins récemment utilisé
+ * est évincé), expiration après inactivité, nombre de lignes et quantités limités. Chaque ligne garde
+ * le prix effectif (offre du jour comprise) au moment de l'ajout ; seule la validation du panier accède à la base.
+ */
+@Service
+@Slf4j
+public class CartService {
+
+    private final BookCatalogCache bookCatalogCache;
+    private final PricingEngine pricingEngine;
+    private final OrderService orderService;
+    private final BusinessMetrics businessMetrics;
+    private final int maxCarts;
+    private final Duration idleTimeout;
+    private final int maxLines;
+    private final int maxQuantityPerLine;
+
+    // Ordre d'accès : le premier panier est le moins récemment utilisé
+    private final LinkedHashMap<String, Cart> carts = new LinkedHashMap<>(256, 0.75f, true);
+    private final ReentrantLock storeLock = new ReentrantLock();
+
+    public CartService(BookCatalogCache bookCatalogCache,
+                       PricingEngine pricingEngine,
+                       OrderService orderService,
+                       BusinessMetrics businessMetrics,
+                       @Value("${bookstore.cart.max-carts:10000}") int maxCarts,
+                       @Value("${bookstore.cart.idle-timeout-minutes:120}") int idleTimeoutMinutes,
+                       @Value("${bookstore.cart.max-lines:50}") int maxLines,
+                       @Value("${bookstore.cart.max-quantity-per-line:99}") int maxQuantityPerLine) {
+        this.bookCatalogCache = bookCatalogCache;
+        this.pricingEngine = pricingEngine;
+        this.orderService = orderService;
+        this.businessMetrics = businessMetrics;
+        this.maxCarts = maxCarts;
+        this.idleTimeout = Duration.ofMinutes(idleTimeoutMinutes);
+        this.maxLines = maxLines;
+        this.maxQuantityPerLine = maxQuantityPerLine;
+    }
+
+    /**
+     * Créer un panier (éventuellement rattaché à un client)
+     */
+    public CartView createCart(Long customerId) {
+        Cart cart = new Cart(UUID.randomUUID().toString(), customerId);
+        storeLock.lock();
+        try {
+            carts.put(cart.id, cart);
+            // Borne mémoire : évincer les paniers les moins récemment utilisés
+            Iterator<Cart> eldest = carts.values().iterator();
+            while (carts.size() > maxCarts && eldest.hasNext()) {
+                Cart evicted = eldest.next();
+                eldest.remove();
+                log.debug("Panier {} évincé (capacité atteinte)", evicted.id);
+            }
+        } finally {
+            storeLock.unlock();
+        }
+        return toView(cart);
+    }
+
+    public CartView getCart(String cartId) {
+        Cart cart = findCart(cartId);
+        cart.lock.lock();
+        try {
+            return toView(cart);
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Ajouter un livre au panier (la quantité s'ajoute à celle de la ligne existante)
+     */
+    public CartView addItem(String cartId, Long bookId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("La quantité doit être supérieure à 0");
+        }
+        Cart cart = findCart(cartId);
+        cart.lock.lock();
+        try {
+            CartLine line = cart.lines.get(bookId);
+            int newQuantity = line != null ? line.quantity + quantity : quantity;
+            setLine(cart, bookId, newQuantity);
+            return toView(cart);
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Fixer la quantité d'une ligne (0 retire la ligne)
+     */
+    public CartView updateItem(String cartId, Long bookId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("La quantité ne peut pas être négative");
+        }
+        Cart cart = findCart(cartId);
+        cart.lock.lock();
+        try {
+            if (quantity == 0) {
+                cart.lines.remove(bookId);
+            } else {
+                setLine(cart, bookId, quantity);
+            }
+            cart.touch();
+            return toView(cart);
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    public CartView removeItem(String cartId, Long bookId) {
+        return updateItem(cartId, bookId, 0);
+    }
+
+    public void deleteCart(String cartId) {
+        storeLock.lock();
+        try {
+            if (carts.remove(cartId) == null) {
+                throw new RuntimeException("Panier non trouvé: " + cartId);
+            }
+        } finally {
+            storeLock.unlock();
+        }
+    }
+
+    /**
+     * Transformer le panier en commande. Les prix et le stock sont d'abord vérifiés sur le catalogue
+     * en mémoire : un prix modifié depuis l'ajout met à jour le panier et demande une nouvelle validation.
+     */
+    public Order checkout(String cartId, Long customerId, String shippingAddress, String notes) {
+        Cart cart = findCart(cartId);
+        List<OrderService.OrderItemRequest> items = new ArrayList<>();
+        Map<Long, Long> confirmedPrices = new HashMap<>();
+        Long orderCustomerId;
+        cart.lock.lock();
+        try {
+            // Empêcher une double validation concurrente du même panier
+            if (cart.checkingOut) {
+                throw new IllegalStateException("Le panier est déjà en cours de validation");
+            }
+            if (cart.lines.isEmpty()) {
+                throw new IllegalStateException("Le panier est vide");
+            }
+            orderCustomerId = customerId != null ? customerId : cart.customerId;
+            if (orderCustomerId == null) {
+                throw new IllegalArgumentException("Le client est obligatoire pour valider le panier");
+            }
+
+            boolean priceChanged = false;
+            for (CartLine line : cart.lines.values()) {
+                BookSnapshot book = availableBook(line.bookId);
+                if (book.getStockQuantity() < line.quantity) {
+                    businessMetrics.recordCartStockFailure();
+                    throw new IllegalStateException("Stock insuffisant pour le livre: " + book.getTitle());
+                }
+                long priceCents = pricingEngine.bookPriceCents(book, line.quantity);
+                if (priceCents != line.unitPriceCents) {
+                    line.unitPriceCents = priceCents;
+                    priceChanged = true;
+                }
+                items.add(new OrderService.OrderItemRequest(line.bookId, line.quantity));
+                confirmedPrices.put(line.bookId, line.unitPriceCents);
+            }
+            if (priceChanged) {
+                cart.touch();
+                throw new IllegalStateException("Le prix de certains articles a changé, veuillez vérifier le panier");
+            }
+            cart.checkingOut = true;
+        } finally {
+            cart.lock.unlock();
+        }
+
+        try {
+            // Prix revérifiés dans la transaction de commande : une offre peut s'épuiser entre-temps
+            Order order = orderService.createOrder(orderCustomerId, items, shippingAddress, notes, confirmedPrices);
+            storeLock.lock();
+            try {
+                carts.remove(cartId);
+            } finally {
+                storeLock.unlock();
+            }
+            log.info("Panier {} validé: commande {}", cartId, order.getOrderNumber());
+            return order;
+        } catch (RuntimeException e) {
+            cart.lock.lock();
+            try {
+                cart.checkingOut = false;
+            } finally {
+                cart.lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Purger les paniers inactifs
+     */
+    @Scheduled(fixedDelayString = "${bookstore.cart.sweep-interval-ms:60000}")
+    public void evictIdleCarts() {
+        LocalDateTime limit = LocalDateTime.now().minus(idleTimeout);
+        int evicted = 0;
+        storeLock.lock();
+        try {
+            Iterator<Cart> iterator = carts.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().lastAccessAt.isBefore(limit)) {
+                    iterator.remove();
+                    evicted++;
+                }
+            }
+        } finally {
+            storeLock.unlock();
+        }
+        if (evicted > 0) {
+            log.info("{} paniers inactifs expirés", evicted);
+        }
+    }
+
+    public int getCartCount() {
+        storeLock.lock();
+        try {
+            return carts.size();
+        } finally {
+            storeLock.unlock();
+        }
+    }
+
+    private Cart findCart(String cartId) {
+        storeLock.lock();
+        try {
+            Cart cart = carts.get(cartId);
+            if (cart == null || cart.lastAccessAt.isBefore(LocalDateTime.now().minus(idleTimeout))) {
+                if (cart != null) {
+                    carts.remove(cartId);
+                }
+                throw new RuntimeException("Panier non trouvé ou expiré: " + cartId);
+            }
+            cart.touch();
+            return cart;
+        } finally {
+            storeLock.unlock();
+        }
+    }
+
+    private void setLine(Cart cart, Long bookId, int quantity) {
+        if (quantity > maxQuantityPerLine) {
+            throw new IllegalArgumentException("La quantité par article ne peut pas dépasser " + maxQuantityPerLine);
+        }
+        if (!cart.lines.containsKey(bookId) && cart.lines.size() >= maxLines) {
+            throw new IllegalArgumentException("Le panier ne peut pas contenir plus de " + maxLines + " articles différents");
+        }
+        BookSnapshot book = availableBook(bookId);
+        if (book.getStockQuantity() < quantity) {
+            businessMetrics.recordCartStockFailure();
+            throw new IllegalArgumentException("Stock insuffisant pour le livre: " + book.getTitle());
+        }
+        CartLine line = cart.lines.get(bookId);
+        if (line == null) {
+            cart.lines.put(bookId, new CartLine(bookId, book.getTitle(), pricingEngine.bookPriceCents(book, quantity), quantity));
+        } else {
+            line.quantity = quantity;
+        }
+        cart.touch();
+    }
+
+    private BookSnapshot availableBook(Long bookId) {
+        BookSnapshot book = bookCatalogCache.get(bookId)
+                .orElseThrow(() -> new RuntimeException("Livre non trouvé avec l'ID: " + bookId));
+        if (!book.isActive()) {
+            throw new IllegalArgumentException("Le livre n'est plus disponible: " + book.getTitle());
+        }
+        return book;
+    }
+
+    private CartView toView(Cart cart) {
+        List<CartLineView> lines = new ArrayList<>(cart.lines.size());
+        long totalCents = 0;
+        int itemCount = 0;
+        for (CartLine line : cart.lines.values()) {
+            BookSnapshot book = bookCatalogCache.get(line.bookId).orElse(null);
+            long subTotalCents = Math.multiplyExact(line.unitPriceCents, (long) line.quantity);
+            totalCents = Math.addExact(totalCents, subTotalCents);
+            itemCount += line.quantity;
+            lines.add(CartLineView.builder()
+                    .bookId(line.bookId)
+                    .title(line.title)
+                    .unitPrice(Money.toBigDecimal(line.unitPriceCents))
+                    .quantity(line.quantity)
+                    .subTotal(Money.toBigDecimal(subTotalCents))
+                    .priceChanged(book != null && pricingEngine.bookPriceCents(book, line.quantity) != line.unitPriceCents)
+                    .available(book != null && book.isActive() && book.getStockQuantity() >= line.quantity)
+                    .build());
+        }
+        return CartView.builder()
+                .id(cart.id)
+                .customerId(cart.customerId)
+                .lines(lines)
+                .itemCount(itemCount)
+                .totalAmount(Money.toBigDecimal(totalCents))
+                .createdAt(cart.createdAt)
+                .lastAccessAt(cart.lastAccessAt)
+                .build();
+    }
+
+    // Panier en mémoire : les lignes sont protégées par le verrou du panier (pas un moniteur : le calcul
+    // du prix peut reconstruire la grille tarifaire en base)
+    private static final class Cart {
+        final ReentrantLock lock = new ReentrantLock();
+        final String id;
+        final Long customerId;
+        final Map<Long, CartLine> lines = new LinkedHashMap<>();
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile LocalDateTime lastAccessAt = createdAt;
+        boolean checkingOut;
+
+        Cart(String id, Long customerId) {
+            this.id = id;
+            this.customerId = customerId;
+        }
+
+        void touch() {
+            lastAccessAt = LocalDateTime.now();
+        }
+    }
+
+    private static final class CartLine {
+        final Long bookId;
+        final String title;
+        long unitPriceCents;
+        int quantity;
+
+        CartLine(Long bookId, String title, long unitPriceCents, int quantity) {
+            this.bookId = bookId;
+            this.title = title;
+            this.unitPriceCents = unitPriceCents;
+            this.quantity = quantity;
+        }
+    }
+
+    // Classes d'aide
+    @lombok.Builder
+    @lombok.Data
+    public static class CartView {
+        private String id;
+        private Long customerId;
+        private List<CartLineView> lines;
+        private int itemCount;
+        private BigDecimal totalAmount;
+        private LocalDateTime createdAt;
+        private LocalDateTime lastAccessAt;
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class CartLineView {
+        private Long bookId;
+        private String title;
+        private BigDecimal unitPrice;
+        private int quantity;
+        private BigDecimal subTotal;
+        private boolean priceChanged;
+        private boolean available;
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.ChangeEntityType;
+import com.example.book_store_backend.repository.ChangeOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bus d'invalidation entre instances sans infrastructure supplémentaire : les écritures ajoutent
+ * une ligne compacte par entité modifiée au journal change_outbox, dans la transaction de l'écriture.
+ * Chaque instance lit le journal au-delà de son dernier ID traité, regroupe les changements par
+ * entité et notifie ses caches locaux. La fraîcheur est bornée par l'intervalle de lecture.
+ */
+@Service
+@Slf4j
+public class ChangeOutboxService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO change_outbox (entity_type, entity_id, origin_node, created_at) VALUES (?, ?, ?, ?)";
+
+    private final ChangeOutboxRepository changeOutboxRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SecondLevelCacheService secondLevelCacheService;
+    // Résolus à la demande : certains abonnés publient eux-mêmes des changements
+    private final ObjectProvider<ChangeSubscriber> subscribers;
+    private final String nodeId;
+    private final int batchSize;
+    private final long gapTimeoutMillis;
+    private final int maxGaps;
+    private final long retentionMinutes;
+
+    // Protège la lecture du journal (requêtes comprises) sans épingler de thread virtuel
+    private final ReentrantLock pollLock = new ReentrantLock();
+    // Dernier ID lu ; null tant que l'instance n'a pas démarré
+    private Long watermark;
+    // IDs sautés (transaction pas encore commitée ou annulée) -> date de détection
+    private final LinkedHashMap<Long, Long> gaps = new LinkedHashMap<>();
+
+    public ChangeOutboxService(ChangeOutboxRepository changeOutboxRepository,
+                               JdbcTemplate jdbcTemplate,
+                               SecondLevelCacheService secondLevelCacheService,
+                               ObjectProvider<ChangeSubscriber> subscribers,
+                               @Value("${bookstore.node-id:}") String nodeId,
+                               @Value("${bookstore.outbox.batch-size:500}") int batchSize,
+                               @Value("${bookstore.outbox.gap-timeout-ms:30000}") long gapTimeoutMillis,
+                               @Value("${bookstore.outbox.max-gaps:1000}") int maxGaps,
+                               @Value("${bookstore.outbox.retention-minutes:60}") long retentionMinutes) {
+        this.changeOutboxRepository = changeOutboxRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.secondLevelCacheService = secondLevelCacheService;
+        this.subscribers = subscribers;
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : UUID.randomUUID().toString().substring(0, 8);
+        this.batchSize = batchSize;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.maxGaps = maxGaps;
+        this.retentionMinutes = retentionMinutes;
+    }
+
+    /**
+     * Partir de la fin du journal, avant le chargement des caches : un changement fait pendant
+     * le chargement sera relu, ce qui est sans effet sur un cache déjà à jour
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void start() {
+        pollLock.lock();
+        try {
+            Long maxId = changeOutboxRepository.findMaxId();
+            watermark = maxId != null ? maxId : 0L;
+            log.info("Journal des changements suivi à partir de l'ID {} (instance {}, {} abonnés)",
+                    watermark, nodeId, subscribers.stream().count());
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Signaler le changement d'une entité (écrit au commit de la transaction courante)
+     */
+    public void publish(ChangeEntityType type, Long id) {
+        publishAll(type, List.of(id));
+    }
+
+    /**
+     * Signaler le changement de plusieurs entités : une seule ligne par entité et par transaction
+     */
+    public void publishAll(ChangeEntityType type, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(new LinkedHashSet<>(toKeys(type, ids)));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<ChangeKey> pending = (Set<ChangeKey>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<ChangeKey> changes = new LinkedHashSet<>();
+            pending = changes;
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    insert(changes);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeOutboxService.this);
+                }
+            });
+        }
+        pending.addAll(toKeys(type, ids));
+    }
+
+    /**
+     * Lire les changements des autres instances et notifier les abonnés
+     */
+    @Scheduled(fixedDelayString = "${bookstore.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        pollLock.lock();
+        try {
+            if (watermark == null) {
+                return;
+            }
+            Map<ChangeEntityType, Set<Long>> changes = new EnumMap<>(ChangeEntityType.class);
+            long now = System.currentTimeMillis();
+
+            if (!gaps.isEmpty()) {
+                gaps.values().removeIf(detectedAt -> now - detectedAt > gapTimeoutMillis);
+                if (!gaps.isEmpty()) {
+                    for (Object[] row : changeOutboxRepository.findChangesByIdIn(new ArrayList<>(gaps.keySet()))) {
+                        gaps.remove((Long) row[0]);
+                        collect(changes, row);
+                    }
+                }
+            }
+
+            List<Object[]> rows;
+            do {
+                rows = changeOutboxRepository.findChangesAfter(watermark, PageRequest.of(0, batchSize));
+                for (Object[] row : rows) {
+                    long id = (Long) row[0];
+                    for (long missing = Math.max(watermark + 1, id - maxGaps); missing < id; missing++) {
+                        rememberGap(missing, now);
+                    }
+                    watermark = id;
+                    collect(changes, row);
+                }
+            } while (rows.size() == batchSize);
+
+            if (!changes.isEmpty()) {
+                dispatch(changes);
+            }
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    /**
+     * Purger les changements plus anciens que la rétention
+     */
+    @Scheduled(fixedDelayString = "${bookstore.outbox.purge-interval-ms:600000}")
+    @Transactional
+    public void purge() {
+        int deleted = changeOutboxRepository.deleteCreatedBefore(LocalDateTime.now().minusMinutes(retentionMinutes));
+        if (deleted > 0) {
+            log.info("Journal des changements purgé: {} lignes", deleted);
+        }
+    }
+
+    private void dispatch(Map<ChangeEntityType, Set<Long>> changes) {
+        // Évincer le cache de second niveau d'abord : les abonnés rechargent depuis la base
+        changes.forEach((type, ids) -> secondLevelCacheService.evictEntities(type.getEntityClass(), ids));
+        if (changes.containsKey(ChangeEntityType.BOOK) || changes.containsKey(ChangeEntityType.PACK)) {
+            secondLevelCacheService.evictQueryRegions();
+        }
+
+        subscribers.orderedStream().forEach(subscriber -> {
+            for (ChangeEntityType type : subscriber.getSubscribedTypes()) {
+                Set<Long> ids = changes.get(type);
+                if (ids == null) {
+                    continue;
+                }
+                try {
+                    subscriber.onRemoteChanges(type, ids);
+                } catch (RuntimeException e) {
+                    log.error("Échec de l'application de {} changements {} par {}: {}",
+                            ids.size(), type, ClassUtils.getUserClass(subscriber).getSimpleName(), e.getMessage());
+                }
+            }
+        });
+        log.debug("Changements des autres instances appliqués: {}", changes);
+    }
+
+    private void collect(Map<ChangeEntityType, Set<Long>> changes, Object[] row) {
+        if (nodeId.equals(row[3])) {
+            return;
+        }
+        changes.computeIfAbsent((ChangeEntityType) row[1], type -> new HashSet<>()).add((Long) row[2]);
+    }
+
+    private void rememberGap(long id, long now) {
+        if (gaps.size() >= maxGaps) {
+            Iterator<Long> oldest = gaps.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        gaps.put(id, now);
+    }
+
+    private void insert(Set<ChangeKey> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batchArgs = new ArrayList<>(changes.size());
+        for (ChangeKey change : changes) {
+            batchArgs.add(new Object[]{change.type.name(), change.id, nodeId, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+    }
+
+    private static List<ChangeKey> toKeys(ChangeEntityType type, Collection<Long> ids) {
+        List<ChangeKey> keys = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            keys.add(new ChangeKey(type, id));
+        }
+        return keys;
+    }
+
+    @lombok.Value
+    private static class ChangeKey {
+        ChangeEntityType type;
+        Long id;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.ChangeEntityType;
+
+import java.util.Set;
+
+/**
+ * Cache ou index local tenu à jour des changements faits par les autres instances. Les abonnés
+ * sont notifiés dans l'ordre de @Order : les caches sources avant les index qui en dérivent.
+ */
+public interface ChangeSubscriber {
+
+    /**
+     * Types d'entités suivis
+     */
+    Set<ChangeEntityType> getSubscribedTypes();
+
+    /**
+     * Entités modifiées ou supprimées ailleurs (chaque ID une seule fois par passage, cache de second niveau déjà évincé)
+     */
+    void onRemoteChanges(ChangeEntityType type, Set<Long> ids);
+}
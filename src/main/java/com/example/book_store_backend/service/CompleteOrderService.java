@@ -22,12 +22,22 @@ public class CompleteOrderService {
 
     private final OrderService orderService;
     private final CustomerService customerService;
+    private final OrderMetricsService orderMetricsService;
     private final ModelMapper modelMapper;
 
     /**
      * Créer une commande complète avec création automatique du client si nécessaire
      */
     public Order createCompleteOrder(CreateOrderDTO orderDTO) {
+        long start = System.nanoTime();
+        try {
+            return doCreateCompleteOrder(orderDTO);
+        } finally {
+            orderMetricsService.recordCheckoutLatency(System.nanoTime() - start);
+        }
+    }
+
+    private Order doCreateCompleteOrder(CreateOrderDTO orderDTO) {
         log.info("Création d'une commande complète pour le client: {} {}",
                 orderDTO.getCustomer().getFirstName(), orderDTO.getCustomer().getLastName());
 
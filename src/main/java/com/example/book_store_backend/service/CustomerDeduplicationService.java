@@ -0,0 +1,477 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.Customer;
+import com.example.book_store_backend.repository.CustomerRepository;
+import com.example.book_store_backend.repository.OrderRepository;
+import com.example.book_store_backend.util.IntPostingList;
+import com.example.book_store_backend.util.LongLongHashMap;
+import com.example.book_store_backend.util.StringSimilarity;
+import com.example.book_store_backend.util.TextNormalizer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Détection des clients en double : les clients sont regroupés par clés de blocage (téléphone
+ * normalisé, forme canonique de l'email, clé phonétique du nom) pour ne comparer que les paires
+ * d'un même bloc, les paires sont notées en parallèle (fork-join) et regroupées en propositions
+ * de fusion. La fusion rattache commandes, résumés et archives au client conservé.
+ */
+@Service
+@Slf4j
+@Transactional
+public class CustomerDeduplicationService {
+
+    private static final int SCORE_TASK_THRESHOLD = 4_096;
+    private static final int MERGE_CHUNK_SIZE = 1_000;
+    private static final int MAX_MERGE_SIZE = 100;
+    private static final int PHONE_KEY_DIGITS = 9;
+
+    private static final double PHONE_WEIGHT = 0.35;
+    private static final double EMAIL_WEIGHT = 0.35;
+    private static final double NAME_WEIGHT = 0.25;
+    private static final double ADDRESS_WEIGHT = 0.05;
+    private static final double SIMILAR = 0.9;
+
+    private final CustomerRepository customerRepository;
+    private final CustomerService customerService;
+    private final OrderRepository orderRepository;
+    private final OrderSummaryService orderSummaryService;
+    private final OrderArchiveService orderArchiveService;
+    private final CustomerValueEngine customerValueEngine;
+    private final ForkJoinPool scorePool;
+    private final int loadChunkSize;
+    private final int maxBlockSize;
+    private final double threshold;
+
+    private volatile DeduplicationReport lastReport;
+
+    public CustomerDeduplicationService(CustomerRepository customerRepository,
+                                        CustomerService customerService,
+                                        OrderRepository orderRepository,
+                                        OrderSummaryService orderSummaryService,
+                                        OrderArchiveService orderArchiveService,
+                                        CustomerValueEngine customerValueEngine,
+                                        @Value("${bookstore.customers.dedupe-parallelism:0}") int parallelism,
+                                        @Value("${bookstore.search.load-chunk-size:10000}") int loadChunkSize,
+                                        @Value("${bookstore.customers.dedupe-max-block-size:200}") int maxBlockSize,
+                                        @Value("${bookstore.customers.dedupe-threshold:0.55}") double threshold) {
+        this.customerRepository = customerRepository;
+        this.customerService = customerService;
+        this.orderRepository = orderRepository;
+        this.orderSummaryService = orderSummaryService;
+        this.orderArchiveService = orderArchiveService;
+        this.customerValueEngine = customerValueEngine;
+        this.scorePool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.loadChunkSize = loadChunkSize;
+        this.maxBlockSize = maxBlockSize;
+        this.threshold = threshold;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scorePool.shutdown();
+    }
+
+    /**
+     * Détection planifiée (par défaut chaque dimanche)
+     */
+    @Scheduled(cron = "${bookstore.customers.dedupe-cron:0 0 5 * * SUN}")
+    @Transactional(readOnly = true)
+    public void scheduledDetection() {
+        detectDuplicates();
+    }
+
+    /**
+     * Détecter les doublons et produire les propositions de fusion
+     */
+    @Transactional(readOnly = true)
+    public DeduplicationReport detectDuplicates() {
+        long start = System.currentTimeMillis();
+        Candidate[] candidates = loadCandidates();
+
+        // Blocage : seuls les clients partageant une clé sont comparés
+        Map<String, IntPostingList> blocks = new HashMap<>();
+        for (int i = 0; i < candidates.length; i++) {
+            for (String key : candidates[i].blockingKeys()) {
+                blocks.computeIfAbsent(key, k -> new IntPostingList()).add(i);
+            }
+        }
+
+        LongLongHashMap seenPairs = new LongLongHashMap();
+        long[] pairs = new long[64];
+        int pairCount = 0;
+        int oversizedBlocks = 0;
+        for (IntPostingList block : blocks.values()) {
+            if (block.size() < 2) {
+                continue;
+            }
+            if (block.size() > maxBlockSize) {
+                oversizedBlocks++;
+                continue;
+            }
+            int[] members = block.toArray();
+            for (int i = 0; i < members.length; i++) {
+                for (int j = i + 1; j < members.length; j++) {
+                    long pair = ((long) members[i] << 32) | members[j];
+                    if (seenPairs.containsKey(pair)) {
+                        continue;
+                    }
+                    seenPairs.put(pair, 1);
+                    if (pairCount == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                    }
+                    pairs[pairCount++] = pair;
+                }
+            }
+        }
+
+        List<ScoredPair> matches = pairCount > 0
+                ? scorePool.invoke(new ScoreTask(candidates, pairs, 0, pairCount))
+                : new ArrayList<>();
+        List<MergeProposal> proposals = buildProposals(candidates, matches);
+
+        DeduplicationReport report = DeduplicationReport.builder()
+                .generatedAt(LocalDateTime.now())
+                .customersScanned(candidates.length)
+                .blocks(blocks.size())
+                .oversizedBlocks(oversizedBlocks)
+                .comparisons(pairCount)
+                .threshold(threshold)
+                .proposals(proposals)
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .build();
+        lastReport = report;
+        log.info("Détection des doublons: {} clients, {} comparaisons, {} propositions en {} ms",
+                candidates.length, pairCount, proposals.size(), report.getElapsedMillis());
+        return report;
+    }
+
+    /**
+     * Rapport de la dernière détection (vide si aucune détection n'a encore eu lieu)
+     */
+    @Transactional(readOnly = true)
+    public Optional<DeduplicationReport> getLastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+
+    /**
+     * Fusionner des clients en double dans le client conservé : les commandes sont rattachées par
+     * UPDATE groupés, puis les résumés, les archives et la valeur client, et les doublons sont supprimés
+     */
+    public MergeResult mergeCustomers(Long targetCustomerId, List<Long> duplicateCustomerIds) {
+        if (duplicateCustomerIds == null || duplicateCustomerIds.isEmpty()) {
+            throw new IllegalArgumentException("La liste des clients à fusionner ne peut pas être vide");
+        }
+        Set<Long> duplicateIds = new LinkedHashSet<>(duplicateCustomerIds);
+        if (duplicateIds.size() > MAX_MERGE_SIZE) {
+            throw new IllegalArgumentException("Au plus " + MAX_MERGE_SIZE + " clients par fusion");
+        }
+        if (duplicateIds.contains(targetCustomerId)) {
+            throw new IllegalArgumentException("Le client conservé ne peut pas être fusionné avec lui-même");
+        }
+        log.info("Fusion des clients {} dans le client ID: {}", duplicateIds, targetCustomerId);
+
+        Customer target = customerService.getCustomerById(targetCustomerId);
+        for (Long id : duplicateIds) {
+            customerService.getCustomerById(id);
+        }
+
+        List<Long> orderIds = orderRepository.findIdsByCustomerIdIn(duplicateIds);
+        int ordersMoved = 0;
+        for (int from = 0; from < orderIds.size(); from += MERGE_CHUNK_SIZE) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + MERGE_CHUNK_SIZE, orderIds.size()));
+            ordersMoved += orderRepository.reassignCustomer(chunk, target);
+        }
+        int summariesMoved = orderSummaryService.reassignCustomer(duplicateIds, target);
+        int archivesMoved = orderArchiveService.reassignCustomerArchives(duplicateIds, targetCustomerId);
+        customerValueEngine.mergeCustomers(targetCustomerId, duplicateIds);
+        for (Long id : duplicateIds) {
+            customerService.deleteMergedCustomer(id);
+        }
+
+        log.info("Fusion terminée: {} commandes, {} résumés et {} archives rattachés au client ID: {}",
+                ordersMoved, summariesMoved, archivesMoved, targetCustomerId);
+        return MergeResult.builder()
+                .targetCustomerId(targetCustomerId)
+                .mergedCustomerIds(new ArrayList<>(duplicateIds))
+                .ordersMoved(ordersMoved)
+                .summariesMoved(summariesMoved)
+                .archivesMoved(archivesMoved)
+                .build();
+    }
+
+    private Candidate[] loadCandidates() {
+        Long maxId = customerRepository.findMaxId();
+        if (maxId == null) {
+            return new Candidate[0];
+        }
+        List<Candidate> candidates = new ArrayList<>();
+        for (long fromId = 0; fromId < maxId; fromId += loadChunkSize) {
+            for (Object[] row : customerRepository.findDeduplicationRowsByIdRange(fromId, fromId + loadChunkSize)) {
+                candidates.add(new Candidate((Long) row[0], (String) row[1], (String) row[2], (String) row[3],
+                        (String) row[4], (String) row[5], (String) row[6]));
+            }
+        }
+        return candidates.toArray(new Candidate[0]);
+    }
+
+    // Regrouper les paires retenues en ensembles (union-find), le client le plus ancien est conservé
+    private static List<MergeProposal> buildProposals(Candidate[] candidates, List<ScoredPair> matches) {
+        int[] parent = new int[candidates.length];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (ScoredPair match : matches) {
+            int left = find(parent, match.left);
+            int right = find(parent, match.right);
+            if (left != right) {
+                parent[Math.max(left, right)] = Math.min(left, right);
+            }
+        }
+
+        Map<Integer, List<ScoredPair>> pairsByRoot = new TreeMap<>();
+        for (ScoredPair match : matches) {
+            pairsByRoot.computeIfAbsent(find(parent, match.left), root -> new ArrayList<>()).add(match);
+        }
+
+        List<MergeProposal> proposals = new ArrayList<>(pairsByRoot.size());
+        for (Map.Entry<Integer, List<ScoredPair>> entry : pairsByRoot.entrySet()) {
+            SortedSet<Integer> members = new TreeSet<>();
+            Set<MatchReason> reasons = EnumSet.noneOf(MatchReason.class);
+            double score = 0;
+            for (ScoredPair pair : entry.getValue()) {
+                members.add(pair.left);
+                members.add(pair.right);
+                reasons.addAll(pair.reasons);
+                score = Math.max(score, pair.score);
+            }
+            List<CandidateView> customers = new ArrayList<>(members.size());
+            List<Long> duplicateIds = new ArrayList<>(members.size() - 1);
+            for (int member : members) {
+                customers.add(candidates[member].toView());
+                if (member != members.first()) {
+                    duplicateIds.add(candidates[member].id);
+                }
+            }
+            proposals.add(MergeProposal.builder()
+                    .targetCustomerId(candidates[members.first()].id)
+                    .duplicateCustomerIds(duplicateIds)
+                    .score(Math.round(score * 1000) / 1000.0)
+                    .reasons(reasons)
+                    .customers(customers)
+                    .build());
+        }
+        proposals.sort(Comparator.comparingDouble(MergeProposal::getScore).reversed()
+                .thenComparing(MergeProposal::getTargetCustomerId));
+        return proposals;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    // Notation parallèle des paires candidates
+    private final class ScoreTask extends RecursiveTask<List<ScoredPair>> {
+        private final Candidate[] candidates;
+        private final long[] pairs;
+        private final int from;
+        private final int to;
+
+        ScoreTask(Candidate[] candidates, long[] pairs, int from, int to) {
+            this.candidates = candidates;
+            this.pairs = pairs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ScoredPair> compute() {
+            if (to - from <= SCORE_TASK_THRESHOLD) {
+                List<ScoredPair> matches = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    ScoredPair scored = score((int) (pairs[i] >>> 32), (int) pairs[i]);
+                    if (scored.score >= threshold) {
+                        matches.add(scored);
+                    }
+                }
+                return matches;
+            }
+            int middle = (from + to) >>> 1;
+            ScoreTask left = new ScoreTask(candidates, pairs, from, middle);
+            left.fork();
+            List<ScoredPair> right = new ScoreTask(candidates, pairs, middle, to).compute();
+            List<ScoredPair> merged = left.join();
+            merged.addAll(right);
+            return merged;
+        }
+
+        private ScoredPair score(int leftIndex, int rightIndex) {
+            Candidate left = candidates[leftIndex];
+            Candidate right = candidates[rightIndex];
+            Set<MatchReason> reasons = EnumSet.noneOf(MatchReason.class);
+            double score = 0;
+            if (!left.phoneKey.isEmpty() && left.phoneKey.equals(right.phoneKey)) {
+                score += PHONE_WEIGHT;
+                reasons.add(MatchReason.PHONE);
+            }
+            if (!left.canonicalEmail.isEmpty() && left.canonicalEmail.equals(right.canonicalEmail)) {
+                score += EMAIL_WEIGHT;
+                reasons.add(MatchReason.EMAIL);
+            }
+            double nameSimilarity = StringSimilarity.jaroWinkler(left.name, right.name);
+            score += NAME_WEIGHT * nameSimilarity;
+            if (nameSimilarity >= SIMILAR) {
+                reasons.add(MatchReason.NAME);
+            }
+            double addressSimilarity = StringSimilarity.jaroWinkler(left.address, right.address);
+            score += ADDRESS_WEIGHT * addressSimilarity;
+            if (addressSimilarity >= SIMILAR) {
+                reasons.add(MatchReason.ADDRESS);
+            }
+            return new ScoredPair(leftIndex, rightIndex, score, reasons);
+        }
+    }
+
+    private static final class Candidate {
+        final long id;
+        final String name;
+        final String email;
+        final String phoneNumber;
+        final String canonicalEmail;
+        final String phoneKey;
+        final String nameKey;
+        final String address;
+
+        Candidate(long id, String firstName, String lastName, String email, String phoneNumber,
+                  String address, String postalCode) {
+            this.id = id;
+            this.name = TextNormalizer.normalize(firstName + " " + lastName);
+            this.email = email;
+            this.phoneNumber = phoneNumber;
+            this.canonicalEmail = canonicalEmail(email);
+            String digits = TextNormalizer.digits(phoneNumber);
+            // Les 9 derniers chiffres rapprochent +33 6... et 06...
+            this.phoneKey = digits.length() > PHONE_KEY_DIGITS ? digits.substring(digits.length() - PHONE_KEY_DIGITS) : digits;
+            this.nameKey = StringSimilarity.phoneticKey(TextNormalizer.normalize(lastName))
+                    + StringSimilarity.phoneticKey(TextNormalizer.normalize(firstName));
+            this.address = TextNormalizer.normalize((postalCode != null ? postalCode : "") + " " + (address != null ? address : ""));
+        }
+
+        List<String> blockingKeys() {
+            List<String> keys = new ArrayList<>(3);
+            if (phoneKey.length() >= 6) {
+                keys.add("p:" + phoneKey);
+            }
+            if (!canonicalEmail.isEmpty()) {
+                keys.add("e:" + canonicalEmail);
+            }
+            if (!nameKey.isEmpty()) {
+                keys.add("n:" + nameKey);
+            }
+            return keys;
+        }
+
+        CandidateView toView() {
+            return CandidateView.builder()
+                    .customerId(id)
+                    .name(name)
+                    .email(email)
+                    .phoneNumber(phoneNumber)
+                    .build();
+        }
+
+        // Minuscules, sans étiquette « +tag », sans points pour les adresses Gmail
+        private static String canonicalEmail(String email) {
+            String normalized = email != null ? email.trim().toLowerCase(Locale.ROOT) : "";
+            int at = normalized.lastIndexOf('@');
+            if (at <= 0) {
+                return normalized;
+            }
+            String local = normalized.substring(0, at);
+            String domain = normalized.substring(at + 1);
+            int tag = local.indexOf('+');
+            if (tag > 0) {
+                local = local.substring(0, tag);
+            }
+            if (domain.equals("gmail.com") || domain.equals("googlemail.com")) {
+                local = local.replace(".", "");
+                domain = "gmail.com";
+            }
+            return local + "@" + domain;
+        }
+    }
+
+    private static final class ScoredPair {
+        final int left;
+        final int right;
+        final double score;
+        final Set<MatchReason> reasons;
+
+        ScoredPair(int left, int right, double score, Set<MatchReason> reasons) {
+            this.left = left;
+            this.right = right;
+            this.score = score;
+            this.reasons = reasons;
+        }
+    }
+
+    public enum MatchReason {
+        PHONE, EMAIL, NAME, ADDRESS
+    }
+
+    // Classes d'aide
+    @lombok.Builder
+    @lombok.Data
+    public static class DeduplicationReport {
+        private LocalDateTime generatedAt;
+        private int customersScanned;
+        private int blocks;
+        private int oversizedBlocks;
+        private long comparisons;
+        private double threshold;
+        private List<MergeProposal> proposals;
+        private long elapsedMillis;
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class MergeProposal {
+        private Long targetCustomerId;
+        private List<Long> duplicateCustomerIds;
+        private double score;
+        private Set<MatchReason> reasons;
+        private List<CandidateView> customers;
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class CandidateView {
+        private Long customerId;
+        private String name;
+        private String email;
+        private String phoneNumber;
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class MergeResult {
+        private Long targetCustomerId;
+        private List<Long> mergedCustomerIds;
+        private int ordersMoved;
+        private int summariesMoved;
+        private int archivesMoved;
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.ChangeEntityType;
+import com.example.book_store_backend.entity.Customer;
+import com.example.book_store_backend.repository.CustomerRepository;
+import com.example.book_store_backend.util.BloomFilter;
+import com.example.book_store_backend.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Résolution d'identité des clients (email normalisé et téléphone → ID) pour le checkout :
+ * index chargé au démarrage et tenu à jour après commit par CustomerService (et par le journal des
+ * changements pour les autres instances), filtre de Bloom et cache négatif pour répondre « inconnu »
+ * sans accès MySQL. Ces réponses ne sont qu'un raccourci de lecture : un client créé par une autre
+ * instance peut ne pas encore y figurer, l'unicité des créations reste garantie par la base.
+ */
+@Service
+@Slf4j
+public class CustomerIdentityCache implements ChangeSubscriber {
+
+    private static final String EMAIL_PREFIX = "e:";
+    private static final String PHONE_PREFIX = "p:";
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final CustomerRepository customerRepository;
+    private final int expectedCustomers;
+    private final long negativeTtlMillis;
+    private final int maxNegativeEntries;
+
+    private final Map<String, Long> idsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsByPhone = new ConcurrentHashMap<>();
+    // Clé préfixée → instant d'expiration de la réponse « inconnu »
+    private final Map<String, Long> unknownIdentities = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+    private volatile boolean loaded;
+
+    public CustomerIdentityCache(CustomerRepository customerRepository,
+                                 @Value("${bookstore.customers.expected-customers:100000}") int expectedCustomers,
+                                 @Value("${bookstore.customers.negative-ttl-ms:60000}") long negativeTtlMillis,
+                                 @Value("${bookstore.customers.max-negative-entries:10000}") int maxNegativeEntries) {
+        this.customerRepository = customerRepository;
+        this.expectedCustomers = expectedCustomers;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.maxNegativeEntries = maxNegativeEntries;
+        this.filter = new BloomFilter(expectedCustomers, FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Charger les identités de tous les clients au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        for (Object[] row : customerRepository.findAllIdentities()) {
+            Long id = (Long) row[0];
+            idsByEmail.putIfAbsent(normalizeEmail((String) row[1]), id);
+            idsByPhone.putIfAbsent(normalizePhone((String) row[2]), id);
+        }
+        rebuildFilter();
+        loaded = true;
+        log.info("Identités clients chargées: {} emails, {} téléphones en {} ms",
+                idsByEmail.size(), idsByPhone.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * ID du client portant cet email (comparaison insensible à la casse)
+     */
+    public Optional<Long> findIdByEmail(String email) {
+        return resolve(EMAIL_PREFIX, normalizeEmail(email), idsByEmail,
+                key -> customerRepository.findByEmail(email.trim()).map(Customer::getId));
+    }
+
+    /**
+     * ID du client portant ce numéro de téléphone
+     */
+    public Optional<Long> findIdByPhone(String phoneNumber) {
+        return resolve(PHONE_PREFIX, normalizePhone(phoneNumber), idsByPhone,
+                key -> customerRepository.findByPhoneNumber(key).map(Customer::getId));
+    }
+
+    /**
+     * Indexer un client créé (après commit)
+     */
+    public void register(Customer customer) {
+        Long id = customer.getId();
+        String email = normalizeEmail(customer.getEmail());
+        String phone = normalizePhone(customer.getPhoneNumber());
+        TransactionUtils.runAfterCommit(() -> index(id, email, phone));
+    }
+
+    /**
+     * Réindexer un client dont l'email ou le téléphone a changé (après commit)
+     */
+    public void update(Customer customer, String previousEmail, String previousPhone) {
+        Long id = customer.getId();
+        String oldEmail = normalizeEmail(previousEmail);
+        String oldPhone = normalizePhone(previousPhone);
+        String email = normalizeEmail(customer.getEmail());
+        String phone = normalizePhone(customer.getPhoneNumber());
+        if (oldEmail.equals(email) && oldPhone.equals(phone)) {
+            return;
+        }
+        TransactionUtils.runAfterCommit(() -> {
+            idsByEmail.remove(oldEmail, id);
+            idsByPhone.remove(oldPhone, id);
+            index(id, email, phone);
+        });
+    }
+
+    /**
+     * Retirer un client supprimé définitivement (après commit)
+     */
+    public void evict(Customer customer) {
+        Long id = customer.getId();
+        String email = normalizeEmail(customer.getEmail());
+        String phone = normalizePhone(customer.getPhoneNumber());
+        TransactionUtils.runAfterCommit(() -> {
+            idsByEmail.remove(email, id);
+            idsByPhone.remove(phone, id);
+        });
+    }
+
+    @Override
+    public Set<ChangeEntityType> getSubscribedTypes() {
+        return Set.of(ChangeEntityType.CUSTOMER);
+    }
+
+    /**
+     * Réindexer les clients créés, modifiés ou supprimés par une autre instance
+     */
+    @Override
+    public void onRemoteChanges(ChangeEntityType type, Set<Long> ids) {
+        List<Customer> customers = customerRepository.findAllById(ids);
+        idsByEmail.values().removeIf(ids::contains);
+        idsByPhone.values().removeIf(ids::contains);
+        for (Customer customer : customers) {
+            index(customer.getId(), normalizeEmail(customer.getEmail()), normalizePhone(customer.getPhoneNumber()));
+        }
+    }
+
+    private Optional<Long> resolve(String prefix, String key, Map<String, Long> index,
+                                   Function<String, Optional<Long>> loader) {
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!loaded) {
+            return loader.apply(key);
+        }
+
+        Long id = index.get(key);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        String filterKey = prefix + key;
+        // Inconnu de cette instance : réponse rapide, pas une garantie d'unicité (voir createOrGetCustomer)
+        if (!filter.mightContain(filterKey)) {
+            return Optional.empty();
+        }
+        Long expiresAt = unknownIdentities.get(filterKey);
+        if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+
+        // Faux positif du filtre ou client créé hors de cette instance : vérifier en base
+        Optional<Long> found = loader.apply(key);
+        if (found.isPresent()) {
+            index.putIfAbsent(key, found.get());
+            unknownIdentities.remove(filterKey);
+        } else {
+            rememberUnknown(filterKey);
+        }
+        return found;
+    }
+
+    private void rememberUnknown(String filterKey) {
+        long now = System.currentTimeMillis();
+        if (unknownIdentities.size() >= maxNegativeEntries) {
+            unknownIdentities.values().removeIf(expiresAt -> expiresAt <= now);
+            if (unknownIdentities.size() >= maxNegativeEntries) {
+                unknownIdentities.clear();
+            }
+        }
+        unknownIdentities.put(filterKey, now + negativeTtlMillis);
+    }
+
+    private void index(Long id, String email, String phone) {
+        idsByEmail.put(email, id);
+        idsByPhone.put(phone, id);
+        unknownIdentities.remove(EMAIL_PREFIX + email);
+        unknownIdentities.remove(PHONE_PREFIX + phone);
+        addToFilter(email, phone);
+    }
+
+    private synchronized void addToFilter(String email, String phone) {
+        if (idsByEmail.size() + idsByPhone.size() > filter.getExpectedInsertions()) {
+            // Capacité dépassée : redimensionner depuis les index (qui contiennent déjà ces clés)
+            rebuildFilter();
+            return;
+        }
+        filter.put(EMAIL_PREFIX + email);
+        filter.put(PHONE_PREFIX + phone);
+    }
+
+    private synchronized void rebuildFilter() {
+        List<String> emails = List.copyOf(idsByEmail.keySet());
+        List<String> phones = List.copyOf(idsByPhone.keySet());
+        int capacity = Math.max(expectedCustomers, 2 * (emails.size() + phones.size()));
+        BloomFilter rebuilt = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+        emails.forEach(email -> rebuilt.put(EMAIL_PREFIX + email));
+        phones.forEach(phone -> rebuilt.put(PHONE_PREFIX + phone));
+        filter = rebuilt;
+    }
+
+    static String normalizeEmail(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    static String normalizePhone(String phoneNumber) {
+        return phoneNumber != null ? phoneNumber.trim() : "";
+    }
+}
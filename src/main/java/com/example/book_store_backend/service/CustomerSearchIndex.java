@@ -0,0 +1,326 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.ChangeEntityType;
+import com.example.book_store_backend.entity.Customer;
+import com.example.book_store_backend.repository.CustomerRepository;
+import com.example.book_store_backend.util.IntPostingList;
+import com.example.book_store_backend.util.TextNormalizer;
+import com.example.book_store_backend.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Index de recherche des clients en mémoire : trigrammes du nom, de l'email et des chiffres du
+ * téléphone vers des listes de postings triées. Un fragment de téléphone (ex. les 4 derniers
+ * chiffres) ou d'email est résolu par intersection des postings puis vérification des candidats.
+ */
+@Service
+@Slf4j
+public class CustomerSearchIndex implements ChangeSubscriber {
+
+    private static final int GRAM = 3;
+    private static final Pattern PHONE_FRAGMENT = Pattern.compile("^[+0-9 .\\-]+$");
+
+    private final CustomerRepository customerRepository;
+    private final int loadChunkSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Emplacements denses : slot -> client
+    private long[] customerIds = new long[1024];
+    private String[] names = new String[1024];
+    private String[] emails = new String[1024];
+    private String[] phones = new String[1024];
+    private boolean[] active = new boolean[1024];
+    private int slotCount = 0;
+
+    private final Map<Long, Integer> slotsByCustomerId = new HashMap<>();
+    private final Map<String, IntPostingList> nameGrams = new HashMap<>();
+    private final Map<String, IntPostingList> emailGrams = new HashMap<>();
+    private final Map<String, IntPostingList> phoneGrams = new HashMap<>();
+
+    public CustomerSearchIndex(CustomerRepository customerRepository,
+                               @Value("${bookstore.search.load-chunk-size:10000}") int loadChunkSize) {
+        this.customerRepository = customerRepository;
+        this.loadChunkSize = loadChunkSize;
+    }
+
+    /**
+     * Construire l'index au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public void loadIndex() {
+        Long maxId = customerRepository.findMaxId();
+        if (maxId == null) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = LongStream.iterate(0, fromId -> fromId < maxId, fromId -> fromId + loadChunkSize)
+                .boxed()
+                .parallel()
+                .flatMap(fromId -> customerRepository.findSearchRowsByIdRange(fromId, fromId + loadChunkSize).stream())
+                .sorted(Comparator.comparingLong(row -> (Long) row[0]))
+                .collect(Collectors.toList());
+
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : rows) {
+                putUnderLock(new Entry((Long) row[0], (String) row[1], (String) row[2], (String) row[3],
+                        (String) row[4], Boolean.TRUE.equals(row[5])));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Index de recherche des clients construit: {} clients, {} trigrammes en {} ms",
+                rows.size(), nameGrams.size() + emailGrams.size() + phoneGrams.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Indexer un client créé ou modifié (après commit)
+     */
+    public void put(Customer customer) {
+        Entry entry = new Entry(customer.getId(), customer.getFirstName(), customer.getLastName(),
+                customer.getEmail(), customer.getPhoneNumber(), Boolean.TRUE.equals(customer.getIsActive()));
+        TransactionUtils.runAfterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                putUnderLock(entry);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Retirer un client supprimé définitivement (après commit)
+     */
+    public void remove(Long customerId) {
+        TransactionUtils.runAfterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeUnderLock(customerId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public Set<ChangeEntityType> getSubscribedTypes() {
+        return Set.of(ChangeEntityType.CUSTOMER);
+    }
+
+    /**
+     * Réindexer les clients modifiés ou supprimés par une autre instance
+     */
+    @Override
+    public void onRemoteChanges(ChangeEntityType type, Set<Long> ids) {
+        List<Customer> customers = customerRepository.findAllById(ids);
+        lock.writeLock().lock();
+        try {
+            Set<Long> deleted = new HashSet<>(ids);
+            for (Customer customer : customers) {
+                deleted.remove(customer.getId());
+                putUnderLock(new Entry(customer.getId(), customer.getFirstName(), customer.getLastName(),
+                        customer.getEmail(), customer.getPhoneNumber(), Boolean.TRUE.equals(customer.getIsActive())));
+            }
+            deleted.forEach(this::removeUnderLock);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * IDs des clients actifs dont le nom, l'email ou le téléphone contient le mot-clé
+     */
+    public long[] search(String keyword) {
+        String normalized = TextNormalizer.normalize(keyword);
+        if (normalized.isEmpty()) {
+            return new long[0];
+        }
+        String digits = PHONE_FRAGMENT.matcher(normalized).matches() ? TextNormalizer.digits(normalized) : "";
+
+        lock.readLock().lock();
+        try {
+            int[] candidates = IntPostingList.union(
+                    candidates(nameGrams, names, normalized),
+                    candidates(emailGrams, emails, normalized));
+            if (!digits.isEmpty()) {
+                candidates = IntPostingList.union(candidates, candidates(phoneGrams, phones, digits));
+            }
+            return Arrays.stream(candidates)
+                    .filter(slot -> active[slot] && (names[slot].contains(normalized)
+                            || emails[slot].contains(normalized)
+                            || (!digits.isEmpty() && phones[slot].contains(digits))))
+                    .mapToLong(slot -> customerIds[slot])
+                    .toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs des clients actifs dont le prénom ou le nom contient le mot-clé
+     */
+    public long[] searchByName(String keyword) {
+        String normalized = TextNormalizer.normalize(keyword);
+        if (normalized.isEmpty()) {
+            return new long[0];
+        }
+
+        lock.readLock().lock();
+        try {
+            return Arrays.stream(candidates(nameGrams, names, normalized))
+                    .filter(slot -> active[slot] && names[slot].contains(normalized))
+                    .mapToLong(slot -> customerIds[slot])
+                    .toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsByCustomerId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void putUnderLock(Entry entry) {
+        Integer existing = slotsByCustomerId.get(entry.customerId);
+        int slot;
+        if (existing != null) {
+            slot = existing;
+            unindexSlot(slot);
+        } else {
+            ensureCapacity(slotCount + 1);
+            slot = slotCount++;
+            slotsByCustomerId.put(entry.customerId, slot);
+        }
+        customerIds[slot] = entry.customerId;
+        names[slot] = TextNormalizer.normalize(entry.firstName + " " + entry.lastName);
+        emails[slot] = TextNormalizer.normalize(entry.email);
+        phones[slot] = TextNormalizer.digits(entry.phoneNumber);
+        active[slot] = entry.active;
+        index(nameGrams, names[slot], slot);
+        index(emailGrams, emails[slot], slot);
+        index(phoneGrams, phones[slot], slot);
+    }
+
+    private void removeUnderLock(Long customerId) {
+        Integer slot = slotsByCustomerId.remove(customerId);
+        if (slot == null) {
+            return;
+        }
+        unindexSlot(slot);
+        customerIds[slot] = 0;
+        names[slot] = null;
+        emails[slot] = null;
+        phones[slot] = null;
+        active[slot] = false;
+    }
+
+    private void unindexSlot(int slot) {
+        unindex(nameGrams, names[slot], slot);
+        unindex(emailGrams, emails[slot], slot);
+        unindex(phoneGrams, phones[slot], slot);
+    }
+
+    // Emplacements candidats : intersection des trigrammes, ou parcours séquentiel si le mot-clé est trop court
+    private int[] candidates(Map<String, IntPostingList> grams, String[] texts, String keyword) {
+        if (keyword.length() < GRAM) {
+            return IntStream.range(0, slotCount)
+                    .filter(slot -> customerIds[slot] != 0 && texts[slot].contains(keyword))
+                    .toArray();
+        }
+        int[] result = null;
+        for (String gram : grams(keyword)) {
+            IntPostingList postings = grams.get(gram);
+            if (postings == null) {
+                return new int[0];
+            }
+            result = result == null ? postings.toArray() : IntPostingList.intersect(result, postings.toArray());
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result != null ? result : new int[0];
+    }
+
+    private static void index(Map<String, IntPostingList> grams, String text, int slot) {
+        for (String gram : grams(text)) {
+            grams.computeIfAbsent(gram, g -> new IntPostingList()).add(slot);
+        }
+    }
+
+    private static void unindex(Map<String, IntPostingList> grams, String text, int slot) {
+        if (text == null) {
+            return;
+        }
+        for (String gram : grams(text)) {
+            IntPostingList postings = grams.get(gram);
+            if (postings != null && postings.remove(slot) && postings.isEmpty()) {
+                grams.remove(gram);
+            }
+        }
+    }
+
+    private static List<String> grams(String text) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > customerIds.length) {
+            int capacity = Math.max(required, customerIds.length * 2);
+            customerIds = Arrays.copyOf(customerIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            emails = Arrays.copyOf(emails, capacity);
+            phones = Arrays.copyOf(phones, capacity);
+            active = Arrays.copyOf(active, capacity);
+        }
+    }
+
+    private static final class Entry {
+        final long customerId;
+        final String firstName;
+        final String lastName;
+        final String email;
+        final String phoneNumber;
+        final boolean active;
+
+        Entry(long customerId, String firstName, String lastName, String email, String phoneNumber, boolean active) {
+            this.customerId = customerId;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+            this.phoneNumber = phoneNumber;
+            this.active = active;
+        }
+    }
+}
@@ -1,13 +1,24 @@
 package com.example.book_store_backend.service;
 
+import com.example.book_store_backend.entity.ChangeEntityType;
 import com.example.book_store_backend.entity.Customer;
 import com.example.book_store_backend.repository.CustomerRepository;
+import com.example.book_store_backend.service.CustomerStatisticsCounters.Profile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -16,7 +27,21 @@ import java.util.Optional;
 @Transactional
 public class CustomerService {
 
+    // Colonnes de l'INSERT direct de createOrGetCustomer : toute colonne NOT NULL sans valeur par défaut doit y figurer
+    static final List<String> INSERT_COLUMNS = List.of("first_name", "last_name", "email", "phone_number", "address",
+            "city", "postal_code", "country", "is_active", "created_at", "updated_at");
+    private static final String INSERT_SQL = "INSERT INTO customers (" + String.join(", ", INSERT_COLUMNS) + ") VALUES ("
+            + String.join(", ", Collections.nCopies(INSERT_COLUMNS.size(), "?")) + ")";
+
     private final CustomerRepository customerRepository;
+    private final OrderSummaryService orderSummaryService;
+    private final OrderArchiveService orderArchiveService;
+    private final CustomerIdentityCache customerIdentityCache;
+    private final CustomerStatisticsCounters customerStatisticsCounters;
+    private final CustomerValueEngine customerValueEngine;
+    private final CustomerSearchIndex customerSearchIndex;
+    private final ChangeOutboxService changeOutboxService;
+    private final JdbcTemplate jdbcTemplate;
 
     /**
      * Créer un nouveau client
@@ -25,12 +50,12 @@ public class CustomerService {
         log.info("Création d'un nouveau client: {} {}", customer.getFirstName(), customer.getLastName());
 
         // Vérifier si l'email existe déjà
-        if (customerRepository.findByEmail(customer.getEmail()).isPresent()) {
+        if (customerIdentityCache.findIdByEmail(customer.getEmail()).isPresent()) {
             throw new IllegalArgumentException("Un client avec cet email existe déjà");
         }
 
         // Vérifier si le numéro de téléphone existe déjà
-        if (customerRepository.findByPhoneNumber(customer.getPhoneNumber()).isPresent()) {
+        if (customerIdentityCache.findIdByPhone(customer.getPhoneNumber()).isPresent()) {
             throw new IllegalArgumentException("Un client avec ce numéro de téléphone existe déjà");
         }
 
@@ -39,8 +64,14 @@ public class CustomerService {
             customer.setIsActive(true);
         }
 
-        Customer savedCustomer = customerRepository.save(customer);
-        log.info("Client créé avec succès. ID: {}", savedCustomer.getId());
+        Customer savedCustomer;
+        try {
+            savedCustomer = customerRepository.save(customer);
+        } catch (DataIntegrityViolationException e) {
+            // Email créé entre-temps par une autre instance (l'index local ne le connaît pas encore)
+            throw new IllegalArgumentException("Un client avec cet email existe déjà");
+        }
+        registerCreated(savedCustomer);
         return savedCustomer;
     }
 
@@ -54,16 +85,23 @@ public class CustomerService {
 
         // Vérifier l'unicité de l'email lors de la mise à jour
         if (!existingCustomer.getEmail().equals(customerDetails.getEmail()) &&
-                customerRepository.existsByEmailAndIdNot(customerDetails.getEmail(), id)) {
+                isTakenByAnother(customerIdentityCache.findIdByEmail(customerDetails.getEmail()), id)) {
             throw new IllegalArgumentException("Un autre client avec cet email existe déjà");
         }
 
         // Vérifier l'unicité du numéro de téléphone lors de la mise à jour
         if (!existingCustomer.getPhoneNumber().equals(customerDetails.getPhoneNumber()) &&
-                customerRepository.existsByPhoneNumberAndIdNot(customerDetails.getPhoneNumber(), id)) {
+                isTakenByAnother(customerIdentityCache.findIdByPhone(customerDetails.getPhoneNumber()), id)) {
             throw new IllegalArgumentException("Un autre client avec ce numéro de téléphone existe déjà");
         }
 
+        boolean identityChanged = !existingCustomer.getFirstName().equals(customerDetails.getFirstName())
+                || !existingCustomer.getLastName().equals(customerDetails.getLastName())
+                || !existingCustomer.getEmail().equals(customerDetails.getEmail());
+        String previousEmail = existingCustomer.getEmail();
+        String previousPhone = existingCustomer.getPhoneNumber();
+        Profile previousProfile = Profile.of(existingCustomer);
+
         // Mettre à jour les champs
         existingCustomer.setFirstName(customerDetails.getFirstName());
         existingCustomer.setLastName(customerDetails.getLastName());
@@ -76,6 +114,13 @@ public class CustomerService {
         existingCustomer.setIsActive(customerDetails.getIsActive());
 
         Customer updatedCustomer = customerRepository.save(existingCustomer);
+        customerIdentityCache.update(updatedCustomer, previousEmail, previousPhone);
+        customerStatisticsCounters.recordChange(previousProfile, Profile.of(updatedCustomer));
+        customerSearchIndex.put(updatedCustomer);
+        changeOutboxService.publish(ChangeEntityType.CUSTOMER, updatedCustomer.getId());
+        if (identityChanged) {
+            orderSummaryService.updateCustomerIdentity(updatedCustomer);
+        }
         log.info("Client mis à jour avec succès. ID: {}", updatedCustomer.getId());
         return updatedCustomer;
     }
@@ -94,7 +139,7 @@ public class CustomerService {
      */
     @Transactional(readOnly = true)
     public Optional<Customer> getCustomerByEmail(String email) {
-        return customerRepository.findByEmail(email);
+        return customerIdentityCache.findIdByEmail(email).flatMap(customerRepository::findById);
     }
 
     /**
@@ -102,7 +147,7 @@ public class CustomerService {
      */
     @Transactional(readOnly = true)
     public Optional<Customer> getCustomerByPhoneNumber(String phoneNumber) {
-        return customerRepository.findByPhoneNumber(phoneNumber);
+        return customerIdentityCache.findIdByPhone(phoneNumber).flatMap(customerRepository::findById);
     }
 
     /**
@@ -122,19 +167,19 @@ public class CustomerService {
     }
 
     /**
-     * Rechercher des clients
+     * Rechercher des clients (nom, prénom, email ou fragment de téléphone) via l'index en mémoire
      */
     @Transactional(readOnly = true)
     public List<Customer> searchCustomers(String keyword) {
-        return customerRepository.searchCustomers(keyword);
+        return findAllByIdInOrder(customerSearchIndex.search(keyword));
     }
 
     /**
-     * Rechercher des clients par nom
+     * Rechercher des clients par nom via l'index en mémoire
      */
     @Transactional(readOnly = true)
     public List<Customer> searchCustomersByName(String keyword) {
-        return customerRepository.searchCustomersByName(keyword);
+        return findAllByIdInOrder(customerSearchIndex.searchByName(keyword));
     }
 
     /**
@@ -159,8 +204,12 @@ public class CustomerService {
     public void deleteCustomer(Long id) {
         log.info("Suppression du client avec ID: {}", id);
         Customer customer = getCustomerById(id);
+        Profile previousProfile = Profile.of(customer);
         customer.setIsActive(false);
         customerRepository.save(customer);
+        customerStatisticsCounters.recordChange(previousProfile, Profile.of(customer));
+        customerSearchIndex.put(customer);
+        changeOutboxService.publish(ChangeEntityType.CUSTOMER, customer.getId());
         log.info("Client supprimé (désactivé) avec succès. ID: {}", id);
     }
 
@@ -169,43 +218,104 @@ public class CustomerService {
      */
     public void permanentlyDeleteCustomer(Long id) {
         log.info("Suppression définitive du client avec ID: {}", id);
-        if (!customerRepository.existsById(id)) {
-            throw new RuntimeException("Client non trouvé avec l'ID: " + id);
-        }
-        customerRepository.deleteById(id);
+        Customer customer = getCustomerById(id);
+        orderSummaryService.deleteCustomerSummaries(id);
+        orderArchiveService.deleteCustomerArchives(id);
+        customerRepository.delete(customer);
+        customerIdentityCache.evict(customer);
+        customerStatisticsCounters.recordChange(Profile.of(customer), null);
+        customerValueEngine.removeCustomer(id);
+        customerSearchIndex.remove(id);
+        changeOutboxService.publish(ChangeEntityType.CUSTOMER, id);
         log.info("Client supprimé définitivement avec succès. ID: {}", id);
     }
 
+    /**
+     * Supprimer un client fusionné dans un autre (ses commandes, résumés et archives
+     * ont déjà été rattachés au client conservé)
+     */
+    public void deleteMergedCustomer(Long id) {
+        Customer customer = getCustomerById(id);
+        customerRepository.delete(customer);
+        customerIdentityCache.evict(customer);
+        customerStatisticsCounters.recordChange(Profile.of(customer), null);
+        customerSearchIndex.remove(id);
+        changeOutboxService.publish(ChangeEntityType.CUSTOMER, id);
+        log.info("Client fusionné supprimé. ID: {}", id);
+    }
+
     /**
      * Activer/Désactiver un client
      */
     public Customer toggleCustomerStatus(Long id) {
         Customer customer = getCustomerById(id);
+        Profile previousProfile = Profile.of(customer);
         customer.setIsActive(!customer.getIsActive());
-        return customerRepository.save(customer);
+        Customer updatedCustomer = customerRepository.save(customer);
+        customerStatisticsCounters.recordChange(previousProfile, Profile.of(updatedCustomer));
+        customerSearchIndex.put(updatedCustomer);
+        changeOutboxService.publish(ChangeEntityType.CUSTOMER, updatedCustomer.getId());
+        return updatedCustomer;
     }
 
     /**
-     * Récupérer les clients les plus actifs
+     * Récupérer les clients actifs ayant passé le plus de commandes (classement précalculé)
      */
     @Transactional(readOnly = true)
-    public List<Customer> getMostActiveCustomers() {
-        return customerRepository.findMostActiveCustomers();
+    public List<Customer> getMostActiveCustomers(int limit) {
+        if (limit <= 0 || limit > customerValueEngine.getLeaderboardSize()) {
+            throw new IllegalArgumentException("La limite doit être comprise entre 1 et " + customerValueEngine.getLeaderboardSize());
+        }
+        List<Long> rankedIds = customerValueEngine.getTopCustomerIds();
+        Map<Long, Customer> customersById = new HashMap<>();
+        for (Customer customer : customerRepository.findAllById(rankedIds)) {
+            customersById.put(customer.getId(), customer);
+        }
+
+        List<Customer> customers = new ArrayList<>(limit);
+        for (Long id : rankedIds) {
+            Customer customer = customersById.get(id);
+            if (customer != null && Boolean.TRUE.equals(customer.getIsActive())) {
+                customers.add(customer);
+                if (customers.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return customers;
     }
 
     /**
      * Créer ou récupérer un client (utile pour les commandes)
-     * Si un client avec l'email existe, le retourner, sinon créer un nouveau
+     * Si un client avec l'email existe, le retourner, sinon créer un nouveau.
+     * L'index local n'est qu'un raccourci : la création s'appuie sur la contrainte d'unicité de
+     * l'email, et un checkout concurrent (sur cette instance ou une autre) qui a créé le client le
+     * premier fait relire ce client au lieu d'en créer un second.
      */
     public Customer createOrGetCustomer(Customer customerData) {
         Optional<Customer> existingCustomer = getCustomerByEmail(customerData.getEmail());
-
         if (existingCustomer.isPresent()) {
             log.info("Client existant trouvé avec l'email: {}", customerData.getEmail());
             return existingCustomer.get();
+        }
+
+        if (customerIdentityCache.findIdByPhone(customerData.getPhoneNumber()).isPresent()) {
+            throw new IllegalArgumentException("Un client avec ce numéro de téléphone existe déjà");
+        }
+        if (customerData.getIsActive() == null) {
+            customerData.setIsActive(true);
+        }
+
+        boolean created = insertIfAbsent(customerData);
+        // Lecture verrouillante : le client créé par une transaction concurrente est visible une fois validé
+        Customer customer = customerRepository.findByEmailForShare(customerData.getEmail())
+                .orElseThrow(() -> new IllegalStateException("Client introuvable après création: " + customerData.getEmail()));
+        if (created) {
+            registerCreated(customer);
         } else {
-            return createCustomer(customerData);
+            log.info("Client créé simultanément par un autre checkout, réutilisé: {}", customerData.getEmail());
         }
+        return customer;
     }
 
     /**
@@ -213,7 +323,7 @@ public class CustomerService {
      */
     @Transactional(readOnly = true)
     public boolean customerExistsByEmail(String email) {
-        return customerRepository.findByEmail(email).isPresent();
+        return customerIdentityCache.findIdByEmail(email).isPresent();
     }
 
     /**
@@ -221,26 +331,74 @@ public class CustomerService {
      */
     @Transactional(readOnly = true)
     public boolean customerExistsByPhoneNumber(String phoneNumber) {
-        return customerRepository.findByPhoneNumber(phoneNumber).isPresent();
+        return customerIdentityCache.findIdByPhone(phoneNumber).isPresent();
     }
 
     /**
-     * Obtenir des statistiques sur les clients
+     * Obtenir des statistiques sur les clients (compteurs en mémoire, sans requête)
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CustomerStatistics getCustomerStatistics() {
-        long totalCustomers = customerRepository.count();
-        long activeCustomers = customerRepository.findByIsActiveTrue().size();
-        List<Object[]> customersByCity = customerRepository.countCustomersByCity();
+        long totalCustomers = customerStatisticsCounters.getTotalCustomers();
+        long activeCustomers = customerStatisticsCounters.getActiveCustomers();
 
         return CustomerStatistics.builder()
                 .totalCustomers(totalCustomers)
                 .activeCustomers(activeCustomers)
                 .inactiveCustomers(totalCustomers - activeCustomers)
-                .customersByCity(customersByCity)
+                .customersByCity(customerStatisticsCounters.getActiveCustomersByCity())
+                .customersByCountry(customerStatisticsCounters.getActiveCustomersByCountry())
                 .build();
     }
 
+    private List<Customer> findAllByIdInOrder(long[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Long> idList = Arrays.stream(ids).boxed().toList();
+        Map<Long, Customer> customersById = new HashMap<>();
+        for (Customer customer : customerRepository.findAllById(idList)) {
+            customersById.put(customer.getId(), customer);
+        }
+        List<Customer> customers = new ArrayList<>(ids.length);
+        for (Long id : idList) {
+            Customer customer = customersById.get(id);
+            if (customer != null) {
+                customers.add(customer);
+            }
+        }
+        return customers;
+    }
+
+    // INSERT direct plutôt que save() : un doublon n'invalide ni la session ni la transaction appelante
+    private boolean insertIfAbsent(Customer customer) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            jdbcTemplate.update(INSERT_SQL,
+                    customer.getFirstName(), customer.getLastName(), customer.getEmail(), customer.getPhoneNumber(),
+                    customer.getAddress(), customer.getCity(), customer.getPostalCode(), customer.getCountry(),
+                    customer.getIsActive(), now, now);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            if (customerRepository.findByEmailForShare(customer.getEmail()).isEmpty()) {
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    private void registerCreated(Customer customer) {
+        customerIdentityCache.register(customer);
+        customerStatisticsCounters.recordChange(null, Profile.of(customer));
+        customerSearchIndex.put(customer);
+        changeOutboxService.publish(ChangeEntityType.CUSTOMER, customer.getId());
+        log.info("Client créé avec succès. ID: {}", customer.getId());
+    }
+
+    private static boolean isTakenByAnother(Optional<Long> ownerId, Long id) {
+        return ownerId.isPresent() && !ownerId.get().equals(id);
+    }
+
     // Classe d'aide pour les statistiques
     @lombok.Builder
     @lombok.Data
@@ -249,5 +407,6 @@ public class CustomerService {
         private long activeCustomers;
         private long inactiveCustomers;
         private List<Object[]> customersByCity;
+        private List<Object[]> customersByCountry;
     }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.Customer;
+import com.example.book_store_backend.repository.CustomerRepository;
+import com.example.book_store_backend.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compteurs des clients (total, actifs, actifs par ville et par pays) tenus à jour après commit
+ * par chaque écriture de CustomerService, et réconciliés périodiquement avec la base : un écart
+ * dû à une écriture concurrente d'une réconciliation est corrigé à la suivante.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerStatisticsCounters {
+
+    private final CustomerRepository customerRepository;
+
+    private volatile Counters counters = new Counters();
+
+    /**
+     * Recompter depuis la base au démarrage puis à intervalle régulier
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${bookstore.customers.statistics-reconcile-interval-ms:600000}",
+            initialDelayString = "${bookstore.customers.statistics-reconcile-interval-ms:600000}")
+    public void reconcile() {
+        Counters reloaded = new Counters();
+        reloaded.total.set(customerRepository.count());
+        reloaded.active.set(customerRepository.countByIsActiveTrue());
+        for (Object[] row : customerRepository.countCustomersByCity()) {
+            reloaded.activeByCity.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        for (Object[] row : customerRepository.countCustomersByCountry()) {
+            reloaded.activeByCountry.put((String) row[0], ((Number) row[1]).longValue());
+        }
+
+        Counters previous = counters;
+        counters = reloaded;
+        if (previous.total.get() != reloaded.total.get() || previous.active.get() != reloaded.active.get()) {
+            log.debug("Statistiques clients réconciliées: total {} -> {}, actifs {} -> {}",
+                    previous.total.get(), reloaded.total.get(), previous.active.get(), reloaded.active.get());
+        }
+    }
+
+    /**
+     * Prendre en compte la création, la modification ou la suppression d'un client (après commit).
+     * {@code before} est null pour une création, {@code after} est null pour une suppression.
+     */
+    public void recordChange(Profile before, Profile after) {
+        if (before != null && before.equals(after)) {
+            return;
+        }
+        TransactionUtils.runAfterCommit(() -> {
+            Counters current = counters;
+            if (before != null) {
+                current.apply(before, -1);
+            }
+            if (after != null) {
+                current.apply(after, 1);
+            }
+        });
+    }
+
+    public long getTotalCustomers() {
+        return counters.total.get();
+    }
+
+    public long getActiveCustomers() {
+        return counters.active.get();
+    }
+
+    /**
+     * Clients actifs par ville ([ville, nombre]), du plus grand nombre au plus petit
+     */
+    public List<Object[]> getActiveCustomersByCity() {
+        return sortedCounts(counters.activeByCity);
+    }
+
+    /**
+     * Clients actifs par pays ([pays, nombre]), du plus grand nombre au plus petit
+     */
+    public List<Object[]> getActiveCustomersByCountry() {
+        return sortedCounts(counters.activeByCountry);
+    }
+
+    private static List<Object[]> sortedCounts(Map<String, Long> counts) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Long> entry : entries) {
+            rows.add(new Object[]{entry.getKey(), entry.getValue()});
+        }
+        return rows;
+    }
+
+    private static final class Counters {
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong active = new AtomicLong();
+        final Map<String, Long> activeByCity = new ConcurrentHashMap<>();
+        final Map<String, Long> activeByCountry = new ConcurrentHashMap<>();
+
+        void apply(Profile profile, long delta) {
+            total.addAndGet(delta);
+            if (!profile.isActive()) {
+                return;
+            }
+            active.addAndGet(delta);
+            adjust(activeByCity, profile.getCity(), delta);
+            adjust(activeByCountry, profile.getCountry(), delta);
+        }
+
+        private static void adjust(Map<String, Long> counts, String key, long delta) {
+            if (key != null) {
+                counts.compute(key, (k, count) -> {
+                    long updated = (count != null ? count : 0) + delta;
+                    return updated > 0 ? updated : null;
+                });
+            }
+        }
+    }
+
+    // Attributs d'un client pris en compte par les statistiques
+    @lombok.Value
+    public static class Profile {
+        boolean active;
+        String city;
+        String country;
+
+        public static Profile of(Customer customer) {
+            return new Profile(Boolean.TRUE.equals(customer.getIsActive()), customer.getCity(), customer.getCountry());
+        }
+    }
+}
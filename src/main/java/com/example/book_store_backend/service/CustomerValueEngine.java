@@ -0,0 +1,571 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.Order;
+import com.example.book_store_backend.entity.OrderStatus;
+import com.example.book_store_backend.repository.OrderSummaryRepository;
+import com.example.book_store_backend.util.Money;
+import com.example.book_store_backend.util.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Valeur des clients : scores RFM (récence, fréquence, montant) calculés par un lot parallèle
+ * sur le modèle de lecture des commandes (commandes archivées comprises), puis tenus à jour
+ * après commit à chaque commande. Maintient aussi le classement borné des clients les plus actifs.
+ */
+@Service
+@Slf4j
+public class CustomerValueEngine {
+
+    private static final int SCORE_LEVELS = 5;
+
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final ForkJoinPool computePool;
+    private final int loadChunkSize;
+    private final int leaderboardSize;
+
+    // État courant, protégé par le moniteur de l'instance
+    private State state = new State(Thresholds.NONE, 0);
+    private boolean recomputing;
+    private final List<Delta> deltasDuringRecompute = new ArrayList<>();
+
+    public CustomerValueEngine(OrderSummaryRepository orderSummaryRepository,
+                               @Value("${bookstore.customers.value-parallelism:0}") int parallelism,
+                               @Value("${bookstore.analytics.load-chunk-size:5000}") int loadChunkSize,
+                               @Value("${bookstore.customers.leaderboard-size:100}") int leaderboardSize) {
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.computePool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.loadChunkSize = loadChunkSize;
+        this.leaderboardSize = leaderboardSize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        computePool.shutdown();
+    }
+
+    /**
+     * Recalculer les agrégats et les scores de tous les clients (au démarrage, après le
+     * remplissage du modèle de lecture, puis chaque nuit pour faire vieillir la récence)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(2)
+    @Scheduled(cron = "${bookstore.customers.value-cron:0 0 4 * * *}")
+    public void recompute() {
+        synchronized (this) {
+            recomputing = true;
+            deltasDuringRecompute.clear();
+        }
+
+        long start = System.currentTimeMillis();
+        Long maxId = orderSummaryRepository.findMaxOrderId();
+        long coveredMaxId = maxId != null ? maxId : 0;
+        SeenOrders seen = new SeenOrders(coveredMaxId);
+        Map<Long, Aggregate> aggregates;
+        try {
+            aggregates = coveredMaxId > 0
+                    ? computePool.invoke(new AggregateTask(0, coveredMaxId, seen))
+                    : new HashMap<>();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                recomputing = false;
+                deltasDuringRecompute.clear();
+            }
+            throw e;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        State computed = new State(Thresholds.of(aggregates.values(), now), coveredMaxId);
+        aggregates.forEach(computed::put);
+
+        synchronized (this) {
+            // Rejouer les changements validés pendant le calcul que la lecture n'a pas vus : commandes
+            // absentes (ID au-delà de la plage ou validées après la lecture de leur tranche) et
+            // annulations de commandes lues encore valides, quel que soit leur ID
+            for (Delta delta : deltasDuringRecompute) {
+                if (!seen.covers(delta)) {
+                    computed.apply(delta, now);
+                }
+            }
+            computed.rebuildLeaderboard(leaderboardSize);
+            state = computed;
+            recomputing = false;
+            deltasDuringRecompute.clear();
+        }
+        log.info("Valeur client calculée: {} clients en {} ms", aggregates.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Prendre en compte une nouvelle commande (après commit)
+     */
+    public void recordOrder(Order order) {
+        Delta delta = new Delta(order.getId(), order.getCustomer().getId(), order.getCreatedAt(), 1,
+                order.getStatus() != OrderStatus.CANCELLED ? 1 : 0,
+                order.getStatus() != OrderStatus.CANCELLED ? Money.toMinorUnits(order.getTotalAmount()) : 0);
+        TransactionUtils.runAfterCommit(() -> apply(delta));
+    }
+
+    /**
+     * Retirer du montant et de la fréquence une commande annulée (après commit)
+     */
+    public void removeOrder(Long orderId, Long customerId, BigDecimal totalAmount) {
+        Delta delta = new Delta(orderId, customerId, null, 0, -1, -Money.toMinorUnits(totalAmount));
+        TransactionUtils.runAfterCommit(() -> apply(delta));
+    }
+
+    /**
+     * Oublier un client supprimé définitivement (après commit)
+     */
+    public void removeCustomer(Long customerId) {
+        TransactionUtils.runAfterCommit(() -> {
+            synchronized (this) {
+                if (state.remove(customerId)) {
+                    state.rebuildLeaderboard(leaderboardSize);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reporter les agrégats de clients fusionnés sur le client conservé (après commit)
+     */
+    public void mergeCustomers(Long targetCustomerId, Collection<Long> mergedCustomerIds) {
+        List<Long> mergedIds = List.copyOf(mergedCustomerIds);
+        TransactionUtils.runAfterCommit(() -> {
+            synchronized (this) {
+                state.merge(targetCustomerId, mergedIds, LocalDateTime.now());
+                state.rebuildLeaderboard(leaderboardSize);
+            }
+        });
+    }
+
+    /**
+     * IDs des clients ayant passé le plus de commandes, dans l'ordre du classement
+     */
+    public synchronized List<Long> getTopCustomerIds() {
+        List<Long> ids = new ArrayList<>(state.leaderboard.size());
+        for (Aggregate aggregate : state.leaderboard) {
+            ids.add(aggregate.customerId);
+        }
+        return ids;
+    }
+
+    public int getLeaderboardSize() {
+        return leaderboardSize;
+    }
+
+    /**
+     * Scores RFM d'un client (vide s'il n'a jamais commandé)
+     */
+    public synchronized Optional<CustomerValue> getCustomerValue(Long customerId) {
+        Aggregate aggregate = state.customers.get(customerId);
+        return aggregate != null ? Optional.of(aggregate.toValue()) : Optional.empty();
+    }
+
+    /**
+     * Clients d'un segment, par montant décroissant
+     */
+    public List<CustomerValue> getSegment(Segment segment, int limit) {
+        List<CustomerValue> values = new ArrayList<>();
+        synchronized (this) {
+            for (Aggregate aggregate : state.customers.values()) {
+                if (aggregate.segment == segment) {
+                    values.add(aggregate.toValue());
+                }
+            }
+        }
+        values.sort(Comparator.comparing(CustomerValue::getMonetary).reversed()
+                .thenComparing(CustomerValue::getCustomerId));
+        return values.size() > limit ? new ArrayList<>(values.subList(0, limit)) : values;
+    }
+
+    /**
+     * Nombre de clients par segment et seuils de score du dernier calcul
+     */
+    public synchronized SegmentOverview getSegmentOverview() {
+        Map<Segment, Long> counts = new EnumMap<>(Segment.class);
+        for (Segment segment : Segment.values()) {
+            counts.put(segment, 0L);
+        }
+        for (Aggregate aggregate : state.customers.values()) {
+            counts.merge(aggregate.segment, 1L, Long::sum);
+        }
+        Thresholds thresholds = state.thresholds;
+        List<BigDecimal> monetaryThresholds = new ArrayList<>(thresholds.monetaryCents.length);
+        for (long cents : thresholds.monetaryCents) {
+            monetaryThresholds.add(Money.toBigDecimal(cents));
+        }
+        return SegmentOverview.builder()
+                .customers(state.customers.size())
+                .computedAt(thresholds.computedAt)
+                .customersBySegment(counts)
+                .recencyDaysThresholds(Arrays.stream(thresholds.recencyDays).boxed().toList())
+                .frequencyThresholds(Arrays.stream(thresholds.frequency).boxed().toList())
+                .monetaryThresholds(monetaryThresholds)
+                .build();
+    }
+
+    private void apply(Delta delta) {
+        synchronized (this) {
+            state.apply(delta, LocalDateTime.now());
+            state.offerToLeaderboard(delta.customerId, leaderboardSize);
+            if (recomputing) {
+                deltasDuringRecompute.add(delta);
+            }
+        }
+    }
+
+    private Map<Long, Aggregate> loadRange(long fromId, long toId, SeenOrders seen) {
+        Map<Long, Aggregate> aggregates = new HashMap<>();
+        List<Object[]> rows = orderSummaryRepository.findCustomerValueRowsByIdRange(fromId, toId);
+        for (Object[] row : rows) {
+            Long customerId = (Long) row[0];
+            Aggregate aggregate = aggregates.computeIfAbsent(customerId, Aggregate::new);
+            aggregate.orderCount++;
+            aggregate.touch((LocalDateTime) row[1]);
+            if (row[3] != OrderStatus.CANCELLED) {
+                aggregate.validOrderCount++;
+                aggregate.monetaryCents += Money.toMinorUnits((BigDecimal) row[2]);
+            }
+        }
+        seen.record(rows);
+        return aggregates;
+    }
+
+    // Lecture parallèle du modèle de lecture par tranches d'IDs de commande
+    private final class AggregateTask extends RecursiveTask<Map<Long, Aggregate>> {
+        private final long fromId;
+        private final long toId;
+        private final SeenOrders seen;
+
+        AggregateTask(long fromId, long toId, SeenOrders seen) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.seen = seen;
+        }
+
+        @Override
+        protected Map<Long, Aggregate> compute() {
+            if (toId - fromId <= loadChunkSize) {
+                return loadRange(fromId, toId, seen);
+            }
+            long middle = fromId + (toId - fromId) / 2;
+            AggregateTask left = new AggregateTask(fromId, middle, seen);
+            left.fork();
+            Map<Long, Aggregate> right = new AggregateTask(middle, toId, seen).compute();
+            Map<Long, Aggregate> merged = left.join();
+            right.forEach((customerId, aggregate) -> merged.merge(customerId, aggregate, Aggregate::merge));
+            return merged;
+        }
+    }
+
+    // Commandes lues par le calcul et leur statut à la lecture (1 bit par ID de commande)
+    private static final class SeenOrders {
+        private final BitSet orders;
+        private final BitSet cancelled;
+
+        SeenOrders(long maxOrderId) {
+            int bits = (int) Math.min(maxOrderId + 1, Integer.MAX_VALUE);
+            this.orders = new BitSet(bits);
+            this.cancelled = new BitSet(bits);
+        }
+
+        synchronized void record(List<Object[]> rows) {
+            for (Object[] row : rows) {
+                long orderId = (Long) row[4];
+                if (orderId < Integer.MAX_VALUE) {
+                    orders.set((int) orderId);
+                    if (row[3] == OrderStatus.CANCELLED) {
+                        cancelled.set((int) orderId);
+                    }
+                }
+            }
+        }
+
+        // Le changement est-il déjà compté par la lecture ?
+        synchronized boolean covers(Delta delta) {
+            if (delta.orderId >= Integer.MAX_VALUE) {
+                return false;
+            }
+            int orderId = (int) delta.orderId;
+            // Création : comptée si la commande a été lue. Annulation : comptée si la commande a été lue
+            // déjà annulée (une commande non lue est rejouée avec sa création, puis son annulation)
+            return delta.orders > 0 ? orders.get(orderId) : cancelled.get(orderId);
+        }
+    }
+
+    private static final class State {
+        final Map<Long, Aggregate> customers = new HashMap<>();
+        final TreeSet<Aggregate> leaderboard = new TreeSet<>(LEADERBOARD_ORDER);
+        final Thresholds thresholds;
+        final long coveredMaxOrderId;
+
+        State(Thresholds thresholds, long coveredMaxOrderId) {
+            this.thresholds = thresholds;
+            this.coveredMaxOrderId = coveredMaxOrderId;
+        }
+
+        void put(Long customerId, Aggregate aggregate) {
+            aggregate.score(thresholds, thresholds.computedAt);
+            customers.put(customerId, aggregate);
+        }
+
+        void apply(Delta delta, LocalDateTime now) {
+            Aggregate aggregate = customers.get(delta.customerId);
+            if (aggregate == null) {
+                aggregate = new Aggregate(delta.customerId);
+                customers.put(delta.customerId, aggregate);
+            }
+            // Retirer avant modification : la position dans le classement dépend des compteurs
+            boolean ranked = leaderboard.remove(aggregate);
+            aggregate.orderCount += delta.orders;
+            aggregate.validOrderCount = Math.max(0, aggregate.validOrderCount + delta.validOrders);
+            aggregate.monetaryCents = Math.max(0, aggregate.monetaryCents + delta.monetaryCents);
+            aggregate.touch(delta.createdAt);
+            aggregate.score(thresholds, now);
+            if (ranked) {
+                leaderboard.add(aggregate);
+            }
+        }
+
+        void merge(Long targetCustomerId, List<Long> mergedCustomerIds, LocalDateTime now) {
+            Aggregate target = customers.computeIfAbsent(targetCustomerId, Aggregate::new);
+            for (Long customerId : mergedCustomerIds) {
+                Aggregate merged = customers.remove(customerId);
+                if (merged != null) {
+                    target.merge(merged);
+                }
+            }
+            target.score(thresholds, now);
+        }
+
+        boolean remove(Long customerId) {
+            Aggregate aggregate = customers.remove(customerId);
+            return aggregate != null && leaderboard.remove(aggregate);
+        }
+
+        void offerToLeaderboard(Long customerId, int size) {
+            Aggregate aggregate = customers.get(customerId);
+            if (aggregate == null || aggregate.orderCount == 0 || leaderboard.contains(aggregate)) {
+                return;
+            }
+            if (leaderboard.size() < size) {
+                leaderboard.add(aggregate);
+            } else if (LEADERBOARD_ORDER.compare(aggregate, leaderboard.last()) < 0) {
+                leaderboard.pollLast();
+                leaderboard.add(aggregate);
+            }
+        }
+
+        void rebuildLeaderboard(int size) {
+            leaderboard.clear();
+            for (Aggregate aggregate : customers.values()) {
+                if (aggregate.orderCount == 0) {
+                    continue;
+                }
+                if (leaderboard.size() < size) {
+                    leaderboard.add(aggregate);
+                } else if (LEADERBOARD_ORDER.compare(aggregate, leaderboard.last()) < 0) {
+                    leaderboard.pollLast();
+                    leaderboard.add(aggregate);
+                }
+            }
+        }
+    }
+
+    // Plus de commandes d'abord, puis plus gros montant, puis plus petit ID
+    private static final Comparator<Aggregate> LEADERBOARD_ORDER = Comparator
+            .comparingLong((Aggregate aggregate) -> aggregate.orderCount).reversed()
+            .thenComparing(Comparator.comparingLong((Aggregate aggregate) -> aggregate.monetaryCents).reversed())
+            .thenComparingLong(aggregate -> aggregate.customerId);
+
+    private static final class Aggregate {
+        final long customerId;
+        long orderCount;
+        long validOrderCount;
+        long monetaryCents;
+        LocalDateTime lastOrderAt;
+        int recencyScore;
+        int frequencyScore;
+        int monetaryScore;
+        Segment segment = Segment.LOST;
+
+        Aggregate(long customerId) {
+            this.customerId = customerId;
+        }
+
+        void touch(LocalDateTime orderedAt) {
+            if (orderedAt != null && (lastOrderAt == null || orderedAt.isAfter(lastOrderAt))) {
+                lastOrderAt = orderedAt;
+            }
+        }
+
+        Aggregate merge(Aggregate other) {
+            orderCount += other.orderCount;
+            validOrderCount += other.validOrderCount;
+            monetaryCents += other.monetaryCents;
+            touch(other.lastOrderAt);
+            return this;
+        }
+
+        void score(Thresholds thresholds, LocalDateTime now) {
+            recencyScore = SCORE_LEVELS - Thresholds.rank(recencyDays(now), thresholds.recencyDays);
+            frequencyScore = 1 + Thresholds.rank(validOrderCount, thresholds.frequency);
+            monetaryScore = 1 + Thresholds.rank(monetaryCents, thresholds.monetaryCents);
+            segment = Segment.of(recencyScore, frequencyScore, monetaryScore);
+        }
+
+        long recencyDays(LocalDateTime now) {
+            return lastOrderAt != null ? Math.max(0, ChronoUnit.DAYS.between(lastOrderAt, now)) : Long.MAX_VALUE;
+        }
+
+        CustomerValue toValue() {
+            return CustomerValue.builder()
+                    .customerId(customerId)
+                    .orderCount(orderCount)
+                    .validOrderCount(validOrderCount)
+                    .monetary(Money.toBigDecimal(monetaryCents))
+                    .lastOrderAt(lastOrderAt)
+                    .recencyScore(recencyScore)
+                    .frequencyScore(frequencyScore)
+                    .monetaryScore(monetaryScore)
+                    .segment(segment)
+                    .build();
+        }
+    }
+
+    // Quintiles (20, 40, 60 et 80 %) de la population au moment du calcul
+    private static final class Thresholds {
+        static final Thresholds NONE = new Thresholds(new long[0], new long[0], new long[0], null);
+
+        final long[] recencyDays;
+        final long[] frequency;
+        final long[] monetaryCents;
+        final LocalDateTime computedAt;
+
+        Thresholds(long[] recencyDays, long[] frequency, long[] monetaryCents, LocalDateTime computedAt) {
+            this.recencyDays = recencyDays;
+            this.frequency = frequency;
+            this.monetaryCents = monetaryCents;
+            this.computedAt = computedAt;
+        }
+
+        static Thresholds of(Collection<Aggregate> aggregates, LocalDateTime now) {
+            int n = aggregates.size();
+            long[] recency = new long[n];
+            long[] frequency = new long[n];
+            long[] monetary = new long[n];
+            int i = 0;
+            for (Aggregate aggregate : aggregates) {
+                recency[i] = aggregate.recencyDays(now);
+                frequency[i] = aggregate.validOrderCount;
+                monetary[i] = aggregate.monetaryCents;
+                i++;
+            }
+            return new Thresholds(quintiles(recency), quintiles(frequency), quintiles(monetary), now);
+        }
+
+        private static long[] quintiles(long[] values) {
+            if (values.length == 0) {
+                return new long[0];
+            }
+            Arrays.sort(values);
+            long[] cuts = new long[SCORE_LEVELS - 1];
+            for (int q = 1; q < SCORE_LEVELS; q++) {
+                int index = (int) Math.ceil((double) values.length * q / SCORE_LEVELS) - 1;
+                cuts[q - 1] = values[Math.max(0, index)];
+            }
+            return cuts;
+        }
+
+        // Nombre de seuils strictement inférieurs à la valeur (0 à 4)
+        static int rank(long value, long[] cuts) {
+            int rank = 0;
+            for (long cut : cuts) {
+                if (value > cut) {
+                    rank++;
+                }
+            }
+            return rank;
+        }
+    }
+
+    private static final class Delta {
+        final long orderId;
+        final Long customerId;
+        final LocalDateTime createdAt;
+        final int orders;
+        final int validOrders;
+        final long monetaryCents;
+
+        Delta(long orderId, Long customerId, LocalDateTime createdAt, int orders, int validOrders, long monetaryCents) {
+            this.orderId = orderId;
+            this.customerId = customerId;
+            this.createdAt = createdAt;
+            this.orders = orders;
+            this.validOrders = validOrders;
+            this.monetaryCents = monetaryCents;
+        }
+    }
+
+    public enum Segment {
+        CHAMPIONS, LOYAL, NEW, PROMISING, AT_RISK, HIBERNATING, LOST;
+
+        static Segment of(int recency, int frequency, int monetary) {
+            if (recency >= 4 && frequency >= 4 && monetary >= 4) {
+                return CHAMPIONS;
+            }
+            if (frequency >= 4 && recency >= 3) {
+                return LOYAL;
+            }
+            if (recency >= 4 && frequency <= 1) {
+                return NEW;
+            }
+            if (recency >= 3) {
+                return PROMISING;
+            }
+            if (frequency >= 3) {
+                return AT_RISK;
+            }
+            return recency == 2 ? HIBERNATING : LOST;
+        }
+    }
+
+    // Classes d'aide
+    @lombok.Builder
+    @lombok.Data
+    public static class CustomerValue {
+        private Long customerId;
+        private long orderCount;
+        private long validOrderCount;
+        private BigDecimal monetary;
+        private LocalDateTime lastOrderAt;
+        private int recencyScore;
+        private int frequencyScore;
+        private int monetaryScore;
+        private Segment segment;
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class SegmentOverview {
+        private int customers;
+        private LocalDateTime computedAt;
+        private Map<Segment, Long> customersBySegment;
+        private List<Long> recencyDaysThresholds;
+        private List<Long> frequencyThresholds;
+        private List<BigDecimal> monetaryThresholds;
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.ChangeEntityType;
+import com.example.book_store_backend.entity.DailyOffer;
+import com.example.book_store_backend.service.OfferLifecycleScheduler.OfferLifecycleEvent;
+import com.example.book_store_backend.util.TransactionUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Offres du jour actives en mémoire (toutes, valides aujourd'hui, par livre, par pack).
+ * L'instantané est invalidé après commit par toute écriture sur les offres ou par une autre instance,
+ * et rechargé sur le fil du planificateur à chaque début ou fin d'offre signalé par
+ * {@link OfferLifecycleScheduler} ; il expire aussi de lui-même à minuit.
+ */
+@Service
+@Slf4j
+@org.springframework.core.annotation.Order(1)
+public class DailyOfferCache implements ChangeSubscriber {
+
+    // Chargement avec le livre et le pack : les offres restent sérialisables hors session
+    private static final String ACTIVE_OFFERS_QUERY =
+            "SELECT d FROM DailyOffer d LEFT JOIN FETCH d.book LEFT JOIN FETCH d.pack " +
+            "WHERE d.isActive = true ORDER BY d.createdAt DESC";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ZoneId zone;
+    // Verrou explicite plutôt que synchronized : un thread virtuel qui attend la base dans un moniteur
+    // bloque son thread porteur, et toutes les requêtes tombent ici quand l'instantané est périmé
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile OfferSnapshot snapshot;
+    private volatile boolean stale = true;
+
+    public DailyOfferCache(EntityManagerFactory entityManagerFactory,
+                           @Value("${bookstore.offers.zone:}") String zone) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.zone = StringUtils.hasText(zone) ? ZoneId.of(zone) : ZoneId.systemDefault();
+    }
+
+    /**
+     * Charger les offres au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        reloadLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            // Une invalidation pendant le chargement forcera un nouveau rechargement
+            stale = false;
+            List<DailyOffer> offers;
+            // Session dédiée : les offres mises en cache sont détachées de toute transaction appelante
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            try {
+                offers = entityManager.createQuery(ACTIVE_OFFERS_QUERY, DailyOffer.class).getResultList();
+            } finally {
+                entityManager.close();
+            }
+
+            snapshot = new OfferSnapshot(LocalDate.now(zone), offers);
+            log.debug("Offres du jour rechargées: {} actives, {} valides en {} ms",
+                    offers.size(), snapshot.current.size(), System.currentTimeMillis() - start);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Invalider les offres après le commit de la transaction courante
+     */
+    public void invalidate() {
+        TransactionUtils.runAfterCommit(() -> stale = true);
+    }
+
+    /**
+     * Recharger les offres quand des offres commencent ou se terminent (un événement par tour de la roue) :
+     * le chargement se fait sur le fil du planificateur, pas sur la première requête qui suit, et la table
+     * des prix reconstruite ensuite lit l'instantané à jour
+     */
+    @EventListener
+    @org.springframework.core.annotation.Order(1)
+    public void onLifecycleEvent(OfferLifecycleEvent event) {
+        reload();
+    }
+
+    @Override
+    public Set<ChangeEntityType> getSubscribedTypes() {
+        return Set.of(ChangeEntityType.DAILY_OFFER);
+    }
+
+    /**
+     * Invalider les offres modifiées par une autre instance
+     */
+    @Override
+    public void onRemoteChanges(ChangeEntityType type, Set<Long> ids) {
+        stale = true;
+    }
+
+    /**
+     * Date du jour dans le fuseau des offres
+     */
+    public LocalDate today() {
+        return LocalDate.now(zone);
+    }
+
+    public List<DailyOffer> getActiveOffers() {
+        return currentSnapshot().active;
+    }
+
+    public List<DailyOffer> getCurrentOffers() {
+        return currentSnapshot().current;
+    }
+
+    public List<DailyOffer> getOffersByBook(Long bookId) {
+        return currentSnapshot().byBook.getOrDefault(bookId, List.of());
+    }
+
+    public List<DailyOffer> getOffersByPack(Long packId) {
+        return currentSnapshot().byPack.getOrDefault(packId, List.of());
+    }
+
+    private OfferSnapshot currentSnapshot() {
+        OfferSnapshot current = snapshot;
+        if (stale || current == null || !Instant.now().isBefore(current.validUntil)) {
+            reloadLock.lock();
+            try {
+                current = snapshot;
+                if (stale || current == null || !Instant.now().isBefore(current.validUntil)) {
+                    reload();
+                    current = snapshot;
+                }
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    // Instantané immuable une fois publié
+    private final class OfferSnapshot {
+        final Instant validUntil;
+        final List<DailyOffer> active;
+        final List<DailyOffer> current;
+        final Map<Long, List<DailyOffer>> byBook = new HashMap<>();
+        final Map<Long, List<DailyOffer>> byPack = new HashMap<>();
+
+        OfferSnapshot(LocalDate day, List<DailyOffer> offers) {
+            this.validUntil = day.plusDays(1).atStartOfDay(zone).toInstant();
+            this.active = List.copyOf(offers);
+            List<DailyOffer> valid = new ArrayList<>();
+            for (DailyOffer offer : offers) {
+                if (!day.isBefore(offer.getStartDate()) && !day.isAfter(offer.getEndDate())) {
+                    valid.add(offer);
+                }
+                if (offer.getBook() != null) {
+                    byBook.computeIfAbsent(offer.getBook().getId(), id -> new ArrayList<>()).add(offer);
+                }
+                if (offer.getPack() != null) {
+                    byPack.computeIfAbsent(offer.getPack().getId(), id -> new ArrayList<>()).add(offer);
+                }
+            }
+            this.current = List.copyOf(valid);
+            byBook.replaceAll((id, list) -> List.copyOf(list));
+            byPack.replaceAll((id, list) -> List.copyOf(list));
+        }
+    }
+}
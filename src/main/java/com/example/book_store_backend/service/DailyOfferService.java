@@ -1,13 +1,18 @@
 package com.example.book_store_backend.service;
 
+import com.example.book_store_backend.entity.ChangeEntityType;
 import com.example.book_store_backend.entity.DailyOffer;
+import com.example.book_store_backend.service.OfferIntervalIndex.OfferPeriod;
+import com.example.book_store_backend.service.OfferSaleCounters.ClaimOutcome;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 // ======== DAILY OFFER SERVICE ========
 @Service
@@ -17,6 +22,12 @@ import java.util.List;
 public class DailyOfferService {
 
     private final DailyOfferRepository dailyOfferRepository;
+    private final DailyOfferCache dailyOfferCache;
+    private final PricingEngine pricingEngine;
+    private final OfferSaleCounters offerSaleCounters;
+    private final OfferLifecycleScheduler offerLifecycleScheduler;
+    private final OfferIntervalIndex offerIntervalIndex;
+    private final ChangeOutboxService changeOutboxService;
 
     /**
      * Créer une nouvelle offre du jour
@@ -33,8 +44,16 @@ public class DailyOfferService {
         if (dailyOffer.getSoldQuantity() == null) {
             dailyOffer.setSoldQuantity(0);
         }
+        // Les tranches de quota sont réparties par les instances, jamais fournies par le client
+        dailyOffer.setAllocatedQuantity(0);
 
         DailyOffer savedOffer = dailyOfferRepository.save(dailyOffer);
+        offerSaleCounters.refresh(savedOffer);
+        offerLifecycleScheduler.reschedule(savedOffer);
+        offerIntervalIndex.update(savedOffer);
+        dailyOfferCache.invalidate();
+        pricingEngine.rebuildAfterCommit();
+        changeOutboxService.publish(ChangeEntityType.DAILY_OFFER, savedOffer.getId());
         log.info("Offre du jour créée avec succès. ID: {}", savedOffer.getId());
         return savedOffer;
     }
@@ -63,6 +82,12 @@ public class DailyOfferService {
         existingOffer.calculateDiscountPercentage();
 
         DailyOffer updatedOffer = dailyOfferRepository.save(existingOffer);
+        offerSaleCounters.refresh(updatedOffer);
+        offerLifecycleScheduler.reschedule(updatedOffer);
+        offerIntervalIndex.update(updatedOffer);
+        dailyOfferCache.invalidate();
+        pricingEngine.rebuildAfterCommit();
+        changeOutboxService.publish(ChangeEntityType.DAILY_OFFER, updatedOffer.getId());
         log.info("Offre du jour mise à jour avec succès. ID: {}", updatedOffer.getId());
         return updatedOffer;
     }
@@ -79,18 +104,17 @@ public class DailyOfferService {
     /**
      * Récupérer toutes les offres actives
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<DailyOffer> getAllActiveOffers() {
-        return dailyOfferRepository.findByIsActiveTrueOrderByCreatedAtDesc();
+        return dailyOfferCache.getActiveOffers();
     }
 
     /**
      * Récupérer les offres actuellement valides
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<DailyOffer> getCurrentValidOffers() {
-        LocalDate today = LocalDate.now();
-        return dailyOfferRepository.findCurrentActiveOffers(today);
+        return dailyOfferCache.getCurrentOffers();
     }
 
     /**
@@ -104,17 +128,41 @@ public class DailyOfferService {
     /**
      * Récupérer les offres pour un livre spécifique
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<DailyOffer> getOffersByBook(Long bookId) {
-        return dailyOfferRepository.findByBookIdAndIsActiveTrue(bookId);
+        return dailyOfferCache.getOffersByBook(bookId);
     }
 
     /**
      * Récupérer les offres pour un pack spécifique
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<DailyOffer> getOffersByPack(Long packId) {
-        return dailyOfferRepository.findByPackIdAndIsActiveTrue(packId);
+        return dailyOfferCache.getOffersByPack(packId);
+    }
+
+    /**
+     * Récupérer les offres valides à une date (index des périodes)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<OfferPeriod> getOffersOn(LocalDate date, Long bookId, Long packId) {
+        return offerIntervalIndex.findOffersOn(date, bookId, packId);
+    }
+
+    /**
+     * Récupérer les offres en ligne sur une période (planification de campagne)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<OfferPeriod> getOffersBetween(LocalDate from, LocalDate to, Long bookId, Long packId) {
+        return offerIntervalIndex.findOffersBetween(from, to, bookId, packId);
+    }
+
+    /**
+     * Détecter les offres qui chevaucheraient une offre proposée sur le même livre ou pack
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<OfferPeriod> findConflictingOffers(Long bookId, Long packId, LocalDate startDate, LocalDate endDate, Long excludeOfferId) {
+        return offerIntervalIndex.findConflicts(bookId, packId, startDate, endDate, excludeOfferId);
     }
 
     /**
@@ -125,26 +173,75 @@ public class DailyOfferService {
         DailyOffer offer = getDailyOfferById(id);
         offer.setIsActive(false);
         dailyOfferRepository.save(offer);
+        offerSaleCounters.refresh(offer);
+        offerLifecycleScheduler.reschedule(offer);
+        offerIntervalIndex.update(offer);
+        dailyOfferCache.invalidate();
+        pricingEngine.rebuildAfterCommit();
+        changeOutboxService.publish(ChangeEntityType.DAILY_OFFER, id);
         log.info("Offre du jour supprimée (désactivée) avec succès. ID: {}", id);
     }
 
     /**
-     * Enregistrer une vente pour une offre (incrémenter la quantité vendue)
+     * Enregistrer une vente pour une offre (réservation sur le compteur en mémoire, écrite en base par lot)
      */
-    public DailyOffer recordSale(Long offerId, Integer quantity) {
-        DailyOffer offer = getDailyOfferById(offerId);
+    public SaleResult recordSale(Long offerId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("La quantité doit être supérieure à 0");
+        }
 
-        if (!offer.isValidOffer()) {
-            throw new IllegalStateException("Cette offre n'est plus valide");
+        switch (claim(offerId, quantity)) {
+            case NOT_FOUND:
+                throw new RuntimeException("Offre du jour non trouvée avec l'ID: " + offerId);
+            case INVALID_OFFER:
+                throw new IllegalStateException("Cette offre n'est plus valide");
+            case LIMIT_REACHED:
+                throw new IllegalArgumentException("Quantité demandée dépasse la limite disponible");
+            default:
+                break;
         }
 
-        if (offer.getLimitQuantity() != null &&
-                offer.getSoldQuantity() + quantity > offer.getLimitQuantity()) {
-            throw new IllegalArgumentException("Quantité demandée dépasse la limite disponible");
+        int remaining = offerSaleCounters.getRemaining(offerId);
+        return SaleResult.builder()
+                .offerId(offerId)
+                .quantity(quantity)
+                .remainingQuantity(remaining == Integer.MAX_VALUE ? null : remaining)
+                .build();
+    }
+
+    /**
+     * Réserver des unités d'une offre sans lever d'exception (false si l'offre n'est plus valide
+     * ou si la limite serait dépassée)
+     */
+    public boolean tryRecordSale(Long offerId, int quantity) {
+        return claim(offerId, quantity) == ClaimOutcome.CLAIMED;
+    }
+
+    private ClaimOutcome claim(Long offerId, int quantity) {
+        ClaimOutcome outcome = offerSaleCounters.tryClaim(offerId, quantity);
+        if (outcome == ClaimOutcome.CLAIMED) {
+            // Offre épuisée : la retirer de la table des prix
+            if (offerSaleCounters.getRemaining(offerId) == 0) {
+                pricingEngine.rebuildAfterCommit();
+            }
+        } else if (outcome != ClaimOutcome.NOT_FOUND) {
+            // La table des prix présentait une offre épuisée ou expirée : la rafraîchir, même si la
+            // transaction est annulée (sinon le panier revaliderait indéfiniment l'ancien prix)
+            pricingEngine.rebuildAfterCompletion();
         }
+        return outcome;
+    }
 
-        offer.setSoldQuantity(offer.getSoldQuantity() + quantity);
-        return dailyOfferRepository.save(offer);
+    /**
+     * Rendre les unités d'offres des articles d'une commande annulée (prises en compte après commit)
+     */
+    public void releaseSales(Map<Long, Integer> quantitiesByOffer) {
+        if (quantitiesByOffer.isEmpty()) {
+            return;
+        }
+        quantitiesByOffer.forEach(offerSaleCounters::release);
+        // Une offre épuisée peut redevenir disponible
+        pricingEngine.rebuildAfterCommit();
     }
 
     /**
@@ -153,6 +250,16 @@ public class DailyOfferService {
     @Transactional(readOnly = true)
     public boolean isOfferValid(Long offerId) {
         DailyOffer offer = getDailyOfferById(offerId);
-        return offer.isValidOffer();
+        // Disponibilité prise sur les tranches réparties entre instances (écriture des ventes différée)
+        return offer.isValidOffer(dailyOfferCache.today()) && !offerSaleCounters.isExhausted(offer);
+    }
+
+    // Classes d'aide
+    @lombok.Builder
+    @lombok.Data
+    public static class SaleResult {
+        private Long offerId;
+        private int quantity;
+        private Integer remainingQuantity;
     }
 }
@@ -0,0 +1,143 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.Order;
+import com.example.book_store_backend.entity.OrderStatus;
+import com.example.book_store_backend.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * File de préparation : chaque préparateur réserve atomiquement un lot de commandes
+ * (SELECT ... FOR UPDATE SKIP LOCKED), le conserve par des battements de cœur et le libère
+ * en fin de traitement. Les baux expirés sont récupérés automatiquement.
+ */
+@Service
+@Slf4j
+@Transactional
+public class FulfilmentQueueService {
+
+    private static final Set<OrderStatus> CLAIMABLE_STATUSES = EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED);
+
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final int defaultLeaseSeconds;
+    private final int maxClaimSize;
+    private final int maxLeaseSeconds;
+
+    public FulfilmentQueueService(OrderRepository orderRepository,
+                                  OrderService orderService,
+                                  @Value("${bookstore.fulfilment.default-lease-seconds:300}") int defaultLeaseSeconds,
+                                  @Value("${bookstore.fulfilment.max-claim-size:100}") int maxClaimSize,
+                                  @Value("${bookstore.fulfilment.max-lease-seconds:3600}") int maxLeaseSeconds) {
+        this.orderRepository = orderRepository;
+        this.orderService = orderService;
+        this.defaultLeaseSeconds = defaultLeaseSeconds;
+        this.maxClaimSize = maxClaimSize;
+        this.maxLeaseSeconds = maxLeaseSeconds;
+    }
+
+    /**
+     * Réserver jusqu'à {@code limit} commandes en attente pour un préparateur
+     */
+    public List<Order> claimOrders(String workerId, int limit, Integer leaseSeconds) {
+        validateWorker(workerId);
+        if (limit <= 0 || limit > maxClaimSize) {
+            throw new IllegalArgumentException("Le nombre de commandes à réserver doit être compris entre 1 et " + maxClaimSize);
+        }
+        int lease = resolveLeaseSeconds(leaseSeconds);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusSeconds(lease);
+
+        List<Order> orders = orderRepository.findClaimableOrders(CLAIMABLE_STATUSES, now, PageRequest.of(0, limit));
+        for (Order order : orders) {
+            order.setClaimedBy(workerId);
+            order.setClaimExpiresAt(expiresAt);
+            order.setLastHeartbeatAt(now);
+        }
+
+        log.info("Préparateur {}: {} commandes réservées jusqu'à {}", workerId, orders.size(), expiresAt);
+        return orders;
+    }
+
+    /**
+     * Prolonger le bail des commandes encore détenues par le préparateur
+     */
+    public int heartbeat(String workerId, List<Long> orderIds, Integer leaseSeconds) {
+        validateWorker(workerId);
+        int lease = resolveLeaseSeconds(leaseSeconds);
+        if (orderIds == null || orderIds.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusSeconds(lease);
+        int extended = orderRepository.extendClaims(orderIds, workerId, now, expiresAt);
+        log.debug("Préparateur {}: {} baux prolongés sur {}", workerId, extended, orderIds.size());
+        return extended;
+    }
+
+    /**
+     * Terminer la préparation d'une commande réservée : libérer la réservation si le bail est toujours
+     * valide (UPDATE conditionnel), puis appliquer le nouveau statut selon la machine à états
+     */
+    public Order completeOrder(String workerId, Long orderId, OrderStatus newStatus) {
+        validateWorker(workerId);
+        if (newStatus == null) {
+            throw new IllegalArgumentException("Le statut cible est obligatoire");
+        }
+
+        if (orderRepository.completeClaim(orderId, workerId, LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("La commande n'est pas réservée par ce préparateur ou le bail a expiré");
+        }
+        return orderService.updateOrderStatus(orderId, newStatus);
+    }
+
+    /**
+     * Rendre des commandes à la file sans les traiter
+     */
+    public int releaseOrders(String workerId, List<Long> orderIds) {
+        validateWorker(workerId);
+        if (orderIds == null || orderIds.isEmpty()) {
+            return 0;
+        }
+        int released = orderRepository.releaseClaims(orderIds, workerId);
+        log.info("Préparateur {}: {} commandes rendues à la file", workerId, released);
+        return released;
+    }
+
+    /**
+     * Récupérer les réservations expirées (préparateur arrêté ou bloqué)
+     */
+    @Scheduled(fixedDelayString = "${bookstore.fulfilment.reaper-interval-ms:30000}")
+    public void releaseExpiredClaims() {
+        int released = orderRepository.releaseExpiredClaims(LocalDateTime.now());
+        if (released > 0) {
+            log.info("{} réservations expirées rendues à la file de préparation", released);
+        }
+    }
+
+    private void validateWorker(String workerId) {
+        if (workerId == null || workerId.isBlank()) {
+            throw new IllegalArgumentException("L'identifiant du préparateur est obligatoire");
+        }
+    }
+
+    private int resolveLeaseSeconds(Integer leaseSeconds) {
+        if (leaseSeconds == null) {
+            return defaultLeaseSeconds;
+        }
+        if (leaseSeconds <= 0 || leaseSeconds > maxLeaseSeconds) {
+            throw new IllegalArgumentException("La durée du bail doit être comprise entre 1 et " + maxLeaseSeconds + " secondes");
+        }
+        return leaseSeconds;
+    }
+}
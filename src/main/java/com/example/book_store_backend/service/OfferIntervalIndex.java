@@ -0,0 +1,262 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.ChangeEntityType;
+import com.example.book_store_backend.entity.DailyOffer;
+import com.example.book_store_backend.service.OfferLifecycleScheduler.OfferLifecycleEvent;
+import com.example.book_store_backend.util.IntervalTree;
+import com.example.book_store_backend.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index des périodes de validité des offres actives : un arbre d'intervalles [début, fin] global,
+ * un par livre et un par pack. Répond aux questions « quelles offres s'appliquent tel jour » et
+ * « qu'est-ce qui est en ligne sur cette période » sans parcourir daily_offers.
+ */
+@Service
+@Slf4j
+public class OfferIntervalIndex implements ChangeSubscriber {
+
+    private final DailyOfferCache dailyOfferCache;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IntervalTree<OfferPeriod> allOffers = new IntervalTree<>();
+    private final Map<Long, IntervalTree<OfferPeriod>> offersByBook = new HashMap<>();
+    private final Map<Long, IntervalTree<OfferPeriod>> offersByPack = new HashMap<>();
+    private final Map<Long, OfferPeriod> offersById = new HashMap<>();
+
+    public OfferIntervalIndex(DailyOfferCache dailyOfferCache) {
+        this.dailyOfferCache = dailyOfferCache;
+    }
+
+    /**
+     * Construire l'index au démarrage à partir des offres actives
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        List<DailyOffer> offers = dailyOfferCache.getActiveOffers();
+        lock.writeLock().lock();
+        try {
+            for (DailyOffer offer : offers) {
+                // Une mise à jour a pu indexer l'offre avant le chargement : remplacer, jamais dupliquer
+                removeUnderLock(offer.getId());
+                putUnderLock(OfferPeriod.of(offer));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Index des périodes d'offres construit: {} offres", offers.size());
+    }
+
+    /**
+     * Répercuter la création, la modification ou la désactivation d'une offre (après commit)
+     */
+    public void update(DailyOffer offer) {
+        OfferPeriod period = Boolean.TRUE.equals(offer.getIsActive()) ? OfferPeriod.of(offer) : null;
+        Long offerId = offer.getId();
+        TransactionUtils.runAfterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeUnderLock(offerId);
+                if (period != null) {
+                    putUnderLock(period);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Retirer les offres terminées (désactivées par le cycle de vie)
+     */
+    @EventListener
+    public void onLifecycleEvent(OfferLifecycleEvent event) {
+        if (event.getEndedOfferIds().isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            event.getEndedOfferIds().forEach(this::removeUnderLock);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<ChangeEntityType> getSubscribedTypes() {
+        return Set.of(ChangeEntityType.DAILY_OFFER);
+    }
+
+    /**
+     * Réindexer les offres modifiées par une autre instance (depuis le cache des offres, déjà invalidé)
+     */
+    @Override
+    public void onRemoteChanges(ChangeEntityType type, Set<Long> ids) {
+        List<OfferPeriod> periods = new ArrayList<>();
+        for (DailyOffer offer : dailyOfferCache.getActiveOffers()) {
+            if (ids.contains(offer.getId())) {
+                periods.add(OfferPeriod.of(offer));
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            ids.forEach(this::removeUnderLock);
+            periods.forEach(this::putUnderLock);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Offres valides à une date, éventuellement restreintes à un livre ou un pack
+     */
+    public List<OfferPeriod> findOffersOn(LocalDate date, Long bookId, Long packId) {
+        return findOffersBetween(date, date, bookId, packId);
+    }
+
+    /**
+     * Offres dont la période recouvre [from, to], éventuellement restreintes à un livre ou un pack
+     */
+    public List<OfferPeriod> findOffersBetween(LocalDate from, LocalDate to, Long bookId, Long packId) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("La date de fin doit être postérieure à la date de début");
+        }
+        lock.readLock().lock();
+        try {
+            IntervalTree<OfferPeriod> tree = treeFor(bookId, packId);
+            if (tree == null) {
+                return new ArrayList<>();
+            }
+            List<OfferPeriod> result = tree.overlapping(from.toEpochDay(), to.toEpochDay());
+            result.sort(Comparator.comparing(OfferPeriod::getStartDate).thenComparing(OfferPeriod::getOfferId));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Offres actives sur le même livre ou le même pack dont la période chevauche celle proposée
+     */
+    public List<OfferPeriod> findConflicts(Long bookId, Long packId, LocalDate startDate, LocalDate endDate, Long excludeOfferId) {
+        if (bookId == null && packId == null) {
+            throw new IllegalArgumentException("Un livre ou un pack est obligatoire");
+        }
+        List<OfferPeriod> conflicts = new ArrayList<>();
+        if (bookId != null) {
+            conflicts.addAll(findOffersBetween(startDate, endDate, bookId, null));
+        }
+        if (packId != null) {
+            for (OfferPeriod period : findOffersBetween(startDate, endDate, null, packId)) {
+                if (!conflicts.contains(period)) {
+                    conflicts.add(period);
+                }
+            }
+        }
+        conflicts.removeIf(period -> period.getOfferId().equals(excludeOfferId));
+        return conflicts;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return offersById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private IntervalTree<OfferPeriod> treeFor(Long bookId, Long packId) {
+        if (bookId != null && packId != null) {
+            throw new IllegalArgumentException("Indiquer un livre ou un pack, pas les deux");
+        }
+        if (bookId != null) {
+            return offersByBook.get(bookId);
+        }
+        if (packId != null) {
+            return offersByPack.get(packId);
+        }
+        return allOffers;
+    }
+
+    private void putUnderLock(OfferPeriod period) {
+        if (period.getStartDate() == null || period.getEndDate() == null || period.getEndDate().isBefore(period.getStartDate())) {
+            return;
+        }
+        long start = period.getStartDate().toEpochDay();
+        long end = period.getEndDate().toEpochDay();
+        offersById.put(period.getOfferId(), period);
+        allOffers.insert(start, end, period.getOfferId(), period);
+        if (period.getBookId() != null) {
+            offersByBook.computeIfAbsent(period.getBookId(), id -> new IntervalTree<>()).insert(start, end, period.getOfferId(), period);
+        }
+        if (period.getPackId() != null) {
+            offersByPack.computeIfAbsent(period.getPackId(), id -> new IntervalTree<>()).insert(start, end, period.getOfferId(), period);
+        }
+    }
+
+    private void removeUnderLock(Long offerId) {
+        OfferPeriod period = offersById.remove(offerId);
+        if (period == null) {
+            return;
+        }
+        long start = period.getStartDate().toEpochDay();
+        allOffers.remove(start, offerId);
+        if (period.getBookId() != null) {
+            removeFrom(offersByBook, period.getBookId(), start, offerId);
+        }
+        if (period.getPackId() != null) {
+            removeFrom(offersByPack, period.getPackId(), start, offerId);
+        }
+    }
+
+    private static void removeFrom(Map<Long, IntervalTree<OfferPeriod>> trees, Long itemId, long start, Long offerId) {
+        IntervalTree<OfferPeriod> tree = trees.get(itemId);
+        if (tree != null) {
+            tree.remove(start, offerId);
+            if (tree.isEmpty()) {
+                trees.remove(itemId);
+            }
+        }
+    }
+
+    // Classes d'aide
+    @lombok.Builder
+    @lombok.Data
+    public static class OfferPeriod {
+        private Long offerId;
+        private String title;
+        private Long bookId;
+        private Long packId;
+        private BigDecimal offerPrice;
+        private LocalDate startDate;
+        private LocalDate endDate;
+        private Integer limitQuantity;
+
+        static OfferPeriod of(DailyOffer offer) {
+            return OfferPeriod.builder()
+                    .offerId(offer.getId())
+                    .title(offer.getTitle())
+                    .bookId(offer.getBook() != null ? offer.getBook().getId() : null)
+                    .packId(offer.getPack() != null ? offer.getPack().getId() : null)
+                    .offerPrice(offer.getOfferPrice())
+                    .startDate(offer.getStartDate())
+                    .endDate(offer.getEndDate())
+                    .limitQuantity(offer.getLimitQuantity())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.ChangeEntityType;
+import com.example.book_store_backend.entity.DailyOffer;
+import com.example.book_store_backend.util.TimingWheel;
+import com.example.book_store_backend.util.TimingWheel.Timeout;
+import com.example.book_store_backend.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cycle de vie des offres du jour : le début et la fin de chaque offre active sont programmés dans
+ * une roue temporelle hiérarchique. À chaque tour, les offres terminées sont désactivées en base par lot
+ * et un seul événement {@link OfferLifecycleEvent} regroupe toutes les échéances atteintes.
+ */
+@Service
+@Slf4j
+public class OfferLifecycleScheduler implements ChangeSubscriber {
+
+    private final DailyOfferRepository dailyOfferRepository;
+    private final DailyOfferCache dailyOfferCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ZoneId zone;
+    private final int batchSize;
+    private final TimingWheel<Transition> wheel;
+
+    private final Map<Long, OfferTimers> timersByOffer = new ConcurrentHashMap<>();
+
+    public OfferLifecycleScheduler(DailyOfferRepository dailyOfferRepository,
+                                   DailyOfferCache dailyOfferCache,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${bookstore.offers.zone:}") String zone,
+                                   @Value("${bookstore.offers.lifecycle-tick-ms:1000}") long tickMillis,
+                                   @Value("${bookstore.offers.deactivation-batch-size:500}") int batchSize) {
+        this.dailyOfferRepository = dailyOfferRepository;
+        this.dailyOfferCache = dailyOfferCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.zone = StringUtils.hasText(zone) ? ZoneId.of(zone) : ZoneId.systemDefault();
+        this.batchSize = batchSize;
+        this.wheel = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+    }
+
+    /**
+     * Programmer toutes les offres actives au démarrage (les offres déjà terminées sont désactivées au premier tour)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleActiveOffers() {
+        List<DailyOffer> offers = dailyOfferCache.getActiveOffers();
+        for (DailyOffer offer : offers) {
+            register(offer.getId(), offer.getStartDate(), offer.getEndDate());
+        }
+        log.info("Cycle de vie des offres: {} offres programmées ({} échéances)", offers.size(), wheel.size());
+    }
+
+    /**
+     * Reprogrammer une offre après le commit de sa création ou de sa modification
+     */
+    public void reschedule(DailyOffer offer) {
+        Long offerId = offer.getId();
+        boolean active = Boolean.TRUE.equals(offer.getIsActive());
+        LocalDate startDate = offer.getStartDate();
+        LocalDate endDate = offer.getEndDate();
+        TransactionUtils.runAfterCommit(() -> {
+            if (active) {
+                register(offerId, startDate, endDate);
+            } else {
+                unregister(offerId);
+            }
+        });
+    }
+
+    @Override
+    public Set<ChangeEntityType> getSubscribedTypes() {
+        return Set.of(ChangeEntityType.DAILY_OFFER);
+    }
+
+    /**
+     * Replanifier les offres créées ou modifiées par une autre instance
+     */
+    @Override
+    public void onRemoteChanges(ChangeEntityType type, Set<Long> ids) {
+        dailyOfferRepository.findAllById(ids).forEach(this::reschedule);
+    }
+
+    /**
+     * Faire avancer la roue : publier les débuts et fins d'offres atteints, désactiver les offres terminées
+     */
+    @Scheduled(fixedDelayString = "${bookstore.offers.lifecycle-tick-ms:1000}")
+    public void tick() {
+        List<Transition> transitions = new ArrayList<>();
+        wheel.advanceTo(System.currentTimeMillis(), transitions::add);
+        if (transitions.isEmpty()) {
+            return;
+        }
+
+        List<Long> startedOfferIds = new ArrayList<>();
+        List<Long> endedOfferIds = new ArrayList<>();
+        for (Transition transition : transitions) {
+            if (transition.type == TransitionType.ENDED) {
+                // Oublier les échéances de l'offre, sauf si elle a été reprogrammée entre-temps
+                timersByOffer.computeIfPresent(transition.offerId,
+                        (id, timers) -> timers.end.getPayload() == transition ? null : timers);
+                endedOfferIds.add(transition.offerId);
+            } else {
+                startedOfferIds.add(transition.offerId);
+            }
+        }
+        deactivate(endedOfferIds);
+
+        // Un seul événement par tour : les abonnés (table des prix, caches) ne se reconstruisent qu'une fois
+        eventPublisher.publishEvent(new OfferLifecycleEvent(List.copyOf(startedOfferIds), List.copyOf(endedOfferIds)));
+        log.info("Cycle de vie des offres: {} débuts, {} fins", startedOfferIds.size(), endedOfferIds.size());
+    }
+
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+
+    private synchronized void register(Long offerId, LocalDate startDate, LocalDate endDate) {
+        unregister(offerId);
+        if (startDate == null || endDate == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long startMillis = startDate.atStartOfDay(zone).toInstant().toEpochMilli();
+        long endMillis = endDate.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        Timeout<Transition> start = startMillis > now
+                ? wheel.schedule(startMillis, new Transition(offerId, TransitionType.STARTED)) : null;
+        Timeout<Transition> end = wheel.schedule(endMillis, new Transition(offerId, TransitionType.ENDED));
+        timersByOffer.put(offerId, new OfferTimers(start, end));
+    }
+
+    private synchronized void unregister(Long offerId) {
+        OfferTimers timers = timersByOffer.remove(offerId);
+        if (timers != null) {
+            if (timers.start != null) {
+                timers.start.cancel();
+            }
+            timers.end.cancel();
+        }
+    }
+
+    private void deactivate(List<Long> offerIds) {
+        LocalDate today = LocalDate.now(zone);
+        LocalDateTime now = LocalDateTime.now();
+        int deactivated = 0;
+        for (int from = 0; from < offerIds.size(); from += batchSize) {
+            List<Long> chunk = offerIds.subList(from, Math.min(from + batchSize, offerIds.size()));
+            Integer count = transactionTemplate.execute(status -> dailyOfferRepository.deactivateExpiredOffers(chunk, today, now));
+            deactivated += count != null ? count : 0;
+        }
+        if (deactivated > 0) {
+            log.info("{} offres expirées désactivées", deactivated);
+        }
+    }
+
+    private static final class OfferTimers {
+        final Timeout<Transition> start;
+        final Timeout<Transition> end;
+
+        OfferTimers(Timeout<Transition> start, Timeout<Transition> end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final class Transition {
+        final Long offerId;
+        final TransitionType type;
+
+        Transition(Long offerId, TransitionType type) {
+            this.offerId = offerId;
+            this.type = type;
+        }
+    }
+
+    // Classes d'aide
+    public enum TransitionType {
+        STARTED,
+        ENDED
+    }
+
+    /**
+     * Débuts et fins d'offres atteints pendant un même tour de la roue
+     */
+    @lombok.Value
+    public static class OfferLifecycleEvent {
+        List<Long> startedOfferIds;
+        List<Long> endedOfferIds;
+    }
+}
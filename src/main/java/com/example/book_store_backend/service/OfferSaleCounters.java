@@ -0,0 +1,422 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.ChangeEntityType;
+import com.example.book_store_backend.entity.DailyOffer;
+import com.example.book_store_backend.util.ClaimCounter;
+import com.example.book_store_backend.util.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compteurs de ventes des offres du jour : la base répartit la limite d'une offre entre les instances
+ * par tranches (UPDATE conditionnel sur allocated_quantity, jamais au-delà de limit_quantity), et chaque
+ * instance admet ou refuse les ventes sur sa tranche par un compare-and-set en mémoire, sans verrou de
+ * ligne. Les quantités vendues sont écrites en base par lots (soldQuantity = soldQuantity + ?, ou - ? pour
+ * les unités rendues par les commandes annulées) et la part inutilisée d'une tranche est rendue quand
+ * l'offre se termine, quand sa limite change et à l'arrêt.
+ */
+@Service
+@Slf4j
+public class OfferSaleCounters implements ChangeSubscriber {
+
+    // Base de répartition : les lignes antérieures aux tranches n'ont que sold_quantity
+    private static final String ALLOCATED_BASE = "GREATEST(COALESCE(allocated_quantity, 0), COALESCE(sold_quantity, 0))";
+    private static final String RECORD_SALES_SQL = "UPDATE daily_offers SET sold_quantity = sold_quantity + ? WHERE id = ?";
+    // Les unités rendues restent réparties : fixer allocated_quantity avant de baisser sold_quantity
+    // (MySQL évalue les affectations de gauche à droite)
+    private static final String RELEASE_SALES_SQL = "UPDATE daily_offers SET allocated_quantity = CASE WHEN limit_quantity IS NULL " +
+            "THEN allocated_quantity ELSE " + ALLOCATED_BASE + " END, sold_quantity = GREATEST(sold_quantity - ?, 0) WHERE id = ?";
+
+    private final DailyOfferRepository dailyOfferRepository;
+    private final DailyOfferCache dailyOfferCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final SecondLevelCacheService secondLevelCacheService;
+    private final ChangeOutboxService changeOutboxService;
+    private final BusinessMetrics businessMetrics;
+    private final ZoneId zone;
+    private final int sliceSize;
+
+    private final Map<Long, OfferCounter> counters = new ConcurrentHashMap<>();
+    // Un seul lot à la fois ; verrou plutôt que moniteur car le lot attend la base
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public OfferSaleCounters(DailyOfferRepository dailyOfferRepository,
+                             DailyOfferCache dailyOfferCache,
+                             JdbcTemplate jdbcTemplate,
+                             SecondLevelCacheService secondLevelCacheService,
+                             ChangeOutboxService changeOutboxService,
+                             BusinessMetrics businessMetrics,
+                             @Value("${bookstore.offers.zone:}") String zone,
+                             @Value("${bookstore.offers.claim-slice-size:10}") int sliceSize) {
+        this.dailyOfferRepository = dailyOfferRepository;
+        this.dailyOfferCache = dailyOfferCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.secondLevelCacheService = secondLevelCacheService;
+        this.changeOutboxService = changeOutboxService;
+        this.businessMetrics = businessMetrics;
+        this.zone = StringUtils.hasText(zone) ? ZoneId.of(zone) : ZoneId.systemDefault();
+        this.sliceSize = Math.max(1, sliceSize);
+    }
+
+    /**
+     * Préparer les compteurs des offres actives (les tranches sont demandées à la première vente)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        for (DailyOffer offer : dailyOfferCache.getActiveOffers()) {
+            counters.putIfAbsent(offer.getId(), new OfferCounter(offer));
+        }
+        log.info("Compteurs de ventes préparés pour {} offres", counters.size());
+    }
+
+    /**
+     * Réserver des unités d'une offre ; libérées automatiquement si la transaction courante est annulée
+     */
+    public ClaimOutcome tryClaim(Long offerId, int quantity) {
+        ClaimOutcome outcome = claim(offerId, quantity);
+        businessMetrics.recordOfferClaim(outcome);
+        return outcome;
+    }
+
+    private ClaimOutcome claim(Long offerId, int quantity) {
+        OfferCounter counter = counters.computeIfAbsent(offerId,
+                id -> dailyOfferRepository.findById(id).map(OfferCounter::new).orElse(null));
+        if (counter == null) {
+            return ClaimOutcome.NOT_FOUND;
+        }
+        if (!counter.isValidOn(LocalDate.now(zone))) {
+            return ClaimOutcome.INVALID_OFFER;
+        }
+
+        if (counter.limit == null) {
+            counter.claims.record(quantity);
+            TransactionUtils.runAfterRollback(() -> counter.claims.unrecord(quantity));
+            return ClaimOutcome.CLAIMED;
+        }
+        if (counter.claims.tryClaim(quantity)) {
+            TransactionUtils.runAfterRollback(() -> counter.claims.release(quantity));
+            return ClaimOutcome.CLAIMED;
+        }
+        return claimFromNewSlice(offerId, counter, quantity) ? ClaimOutcome.CLAIMED : ClaimOutcome.LIMIT_REACHED;
+    }
+
+    /**
+     * Quota local épuisé : demander une tranche à la base, dans la transaction courante. Les unités de la
+     * vente sont prises directement sur la tranche ; le reste n'alimente le quota local qu'après commit,
+     * une annulation rendant toute la tranche en base.
+     */
+    private boolean claimFromNewSlice(Long offerId, OfferCounter counter, int quantity) {
+        counter.refillLock.lock();
+        try {
+            // Un autre thread a pu alimenter le quota entre-temps
+            if (counter.claims.tryClaim(quantity)) {
+                TransactionUtils.runAfterRollback(() -> counter.claims.release(quantity));
+                return true;
+            }
+            int granted = allocateSlice(offerId, counter, quantity);
+            if (granted == 0) {
+                return false;
+            }
+            counter.claims.record(quantity);
+            int surplus = granted - quantity;
+            TransactionUtils.runAfterCommit(() -> counter.claims.grant(surplus));
+            TransactionUtils.runAfterRollback(() -> counter.claims.unrecord(quantity));
+            return true;
+        } finally {
+            counter.refillLock.unlock();
+        }
+    }
+
+    // Réserver en base entre quantity et sliceSize unités, sans jamais dépasser la limite (0 si impossible)
+    private int allocateSlice(Long offerId, OfferCounter counter, int quantity) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Integer remaining = jdbcTemplate.query(
+                    "SELECT limit_quantity - " + ALLOCATED_BASE + " FROM daily_offers WHERE id = ? AND limit_quantity IS NOT NULL",
+                    rs -> rs.next() ? rs.getInt(1) : null, offerId);
+            if (remaining == null || remaining < quantity) {
+                counter.unallocated = remaining != null ? Math.max(0, remaining) : 0;
+                return 0;
+            }
+            int grant = Math.min(remaining, Math.max(sliceSize, quantity));
+            int updated = jdbcTemplate.update(
+                    "UPDATE daily_offers SET allocated_quantity = " + ALLOCATED_BASE + " + ? " +
+                            "WHERE id = ? AND limit_quantity IS NOT NULL AND " + ALLOCATED_BASE + " + ? <= limit_quantity",
+                    grant, offerId, grant);
+            if (updated == 1) {
+                counter.unallocated = remaining - grant;
+                return grant;
+            }
+            // Une autre instance a pris une tranche entre la lecture et l'écriture : relire
+        }
+        return 0;
+    }
+
+    /**
+     * Rendre des unités vendues (commande annulée) après commit : elles reviennent au quota local de
+     * l'offre, toujours réparti en base, et sont retirées de sold_quantity au prochain lot
+     */
+    public void release(Long offerId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        OfferCounter loaded = counters.computeIfAbsent(offerId,
+                id -> dailyOfferRepository.findById(id).map(OfferCounter::new).orElse(null));
+        if (loaded == null) {
+            return;
+        }
+        TransactionUtils.runAfterCommit(() -> {
+            // Le compteur a pu être oublié entre-temps (offre terminée) : le lot suivant le rendra en base
+            OfferCounter counter = counters.computeIfAbsent(offerId, id -> loaded);
+            if (counter.limit == null) {
+                counter.claims.unrecord(quantity);
+            } else {
+                counter.claims.release(quantity);
+            }
+        });
+    }
+
+    /**
+     * Quantité vendue d'une offre, y compris les ventes et retours de cette instance pas encore écrits en base
+     */
+    public int getSoldQuantity(DailyOffer offer) {
+        int soldQuantity = offer.getSoldQuantity() != null ? offer.getSoldQuantity() : 0;
+        OfferCounter counter = counters.get(offer.getId());
+        return counter != null ? Math.max(0, soldQuantity + counter.claims.getPending()) : soldQuantity;
+    }
+
+    /**
+     * Unités encore vendables depuis cette instance : quota local plus part non répartie connue
+     * (Integer.MAX_VALUE sans limite, 0 si l'offre n'a pas de compteur)
+     */
+    public int getRemaining(Long offerId) {
+        OfferCounter counter = counters.get(offerId);
+        if (counter == null) {
+            return 0;
+        }
+        return counter.limit == null ? Integer.MAX_VALUE : counter.claims.getAvailable() + counter.unallocated;
+    }
+
+    /**
+     * L'offre peut-elle encore couvrir cette quantité (vrai si son compteur n'est pas encore chargé)
+     */
+    public boolean canCover(Long offerId, int quantity) {
+        return !counters.containsKey(offerId) || getRemaining(offerId) >= quantity;
+    }
+
+    /**
+     * L'offre limitée ne peut plus être vendue depuis cette instance (quota local et part non répartie épuisés)
+     */
+    public boolean isExhausted(DailyOffer offer) {
+        if (offer.getLimitQuantity() == null) {
+            return false;
+        }
+        return counters.containsKey(offer.getId()) ? getRemaining(offer.getId()) == 0 : OfferCounter.unallocatedOf(offer) == 0;
+    }
+
+    @Override
+    public Set<ChangeEntityType> getSubscribedTypes() {
+        return Set.of(ChangeEntityType.DAILY_OFFER);
+    }
+
+    /**
+     * Reporter les changements d'offres faits par une autre instance (tranche locale rendue si la limite change)
+     */
+    @Override
+    public void onRemoteChanges(ChangeEntityType type, Set<Long> ids) {
+        dailyOfferRepository.findAllById(ids).forEach(this::refresh);
+    }
+
+    /**
+     * Reporter les changements d'une offre (limite, dates, statut) après commit ; si la limite change,
+     * la part inutilisée de la tranche locale est rendue et la suivante est demandée sous la nouvelle limite
+     */
+    public void refresh(DailyOffer offer) {
+        Long offerId = offer.getId();
+        Integer limit = offer.getLimitQuantity();
+        boolean active = Boolean.TRUE.equals(offer.getIsActive());
+        LocalDate startDate = offer.getStartDate();
+        LocalDate endDate = offer.getEndDate();
+        int unallocated = OfferCounter.unallocatedOf(offer);
+        TransactionUtils.runAfterCommit(() -> {
+            OfferCounter counter = counters.computeIfAbsent(offerId, id -> new OfferCounter(limit, unallocated));
+            if (!Objects.equals(counter.limit, limit)) {
+                counter.refillLock.lock();
+                try {
+                    int returned = returnUnused(offerId, counter);
+                    counter.limit = limit;
+                    counter.unallocated = limit != null ? Math.min(limit, unallocated + returned) : 0;
+                } finally {
+                    counter.refillLock.unlock();
+                }
+            } else {
+                counter.unallocated = unallocated;
+            }
+            counter.active = active;
+            counter.startDate = startDate;
+            counter.endDate = endDate;
+        });
+    }
+
+    /**
+     * Écrire les ventes admises et les unités rendues en base par lot, puis rendre les tranches et oublier
+     * les compteurs des offres terminées
+     */
+    @Scheduled(fixedDelayString = "${bookstore.offers.sale-flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Integer> sales = new LinkedHashMap<>();
+            Map<Long, Integer> releases = new LinkedHashMap<>();
+            counters.forEach((offerId, counter) -> {
+                int delta = counter.claims.drainPending();
+                if (delta > 0) {
+                    sales.put(offerId, delta);
+                } else if (delta < 0) {
+                    releases.put(offerId, -delta);
+                }
+            });
+
+            List<Long> offerIds = new ArrayList<>(writeDeltas(RECORD_SALES_SQL, sales, 1));
+            offerIds.addAll(writeDeltas(RELEASE_SALES_SQL, releases, -1));
+            if (!offerIds.isEmpty()) {
+                dailyOfferCache.invalidate();
+                secondLevelCacheService.evictEntities(DailyOffer.class, offerIds);
+                changeOutboxService.publishAll(ChangeEntityType.DAILY_OFFER, offerIds);
+                log.debug("Ventes d'offres écrites en base pour {} offres", offerIds.size());
+            }
+
+            LocalDate today = LocalDate.now(zone);
+            counters.entrySet().removeIf(entry -> {
+                OfferCounter counter = entry.getValue();
+                if (!counter.isFinished(today) || counter.claims.getPending() != 0) {
+                    return false;
+                }
+                returnUnused(entry.getKey(), counter);
+                return true;
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Arrêt de l'instance : écrire les dernières ventes et rendre toutes les tranches inutilisées
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        counters.forEach(this::returnUnused);
+    }
+
+    // Écrire un lot de quantités (retourne les offres écrites ; en cas d'échec, quantités remises en attente)
+    private Collection<Long> writeDeltas(String sql, Map<Long, Integer> quantities, int sign) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> batchArgs = new ArrayList<>(quantities.size());
+        quantities.forEach((offerId, quantity) -> batchArgs.add(new Object[]{quantity, offerId}));
+        try {
+            jdbcTemplate.batchUpdate(sql, batchArgs);
+            return quantities.keySet();
+        } catch (RuntimeException e) {
+            // Remettre les quantités en attente pour le prochain passage
+            quantities.forEach((offerId, quantity) -> {
+                OfferCounter counter = counters.get(offerId);
+                if (counter != null) {
+                    counter.claims.restorePending(sign * quantity);
+                }
+            });
+            log.error("Échec de l'écriture des ventes d'offres ({} offres): {}", quantities.size(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    public int getCounterCount() {
+        return counters.size();
+    }
+
+    // Rendre en base la part inutilisée du quota local (retourne le nombre d'unités rendues)
+    private int returnUnused(Long offerId, OfferCounter counter) {
+        int unused = counter.claims.revokeAvailable();
+        if (unused <= 0) {
+            return 0;
+        }
+        try {
+            jdbcTemplate.update("UPDATE daily_offers SET allocated_quantity = " + ALLOCATED_BASE + " - ? WHERE id = ?",
+                    unused, offerId);
+            return unused;
+        } catch (RuntimeException e) {
+            // Unités perdues pour la vente, jamais survendues
+            log.warn("Impossible de rendre {} unités de l'offre {}: {}", unused, offerId, e.getMessage());
+            return 0;
+        }
+    }
+
+    private static final class OfferCounter {
+        final ClaimCounter claims = new ClaimCounter();
+        // Sérialise les demandes de tranche et les changements de limite d'une offre
+        final ReentrantLock refillLock = new ReentrantLock();
+        volatile Integer limit;
+        // Unités non encore réparties en base, au dernier accès (estimation)
+        volatile int unallocated;
+        volatile boolean active;
+        volatile LocalDate startDate;
+        volatile LocalDate endDate;
+
+        OfferCounter(DailyOffer offer) {
+            this(offer.getLimitQuantity(), unallocatedOf(offer));
+            this.active = Boolean.TRUE.equals(offer.getIsActive());
+            this.startDate = offer.getStartDate();
+            this.endDate = offer.getEndDate();
+        }
+
+        OfferCounter(Integer limit, int unallocated) {
+            this.limit = limit;
+            this.unallocated = unallocated;
+        }
+
+        static int unallocatedOf(DailyOffer offer) {
+            if (offer.getLimitQuantity() == null) {
+                return 0;
+            }
+            int sold = offer.getSoldQuantity() != null ? offer.getSoldQuantity() : 0;
+            int allocated = offer.getAllocatedQuantity() != null ? offer.getAllocatedQuantity() : 0;
+            return Math.max(0, offer.getLimitQuantity() - Math.max(sold, allocated));
+        }
+
+        boolean isValidOn(LocalDate day) {
+            return active && startDate != null && endDate != null && !day.isBefore(startDate) && !day.isAfter(endDate);
+        }
+
+        boolean isFinished(LocalDate day) {
+            return !active || (endDate != null && day.isAfter(endDate));
+        }
+    }
+
+    // Classes d'aide
+    public enum ClaimOutcome {
+        CLAIMED,
+        NOT_FOUND,
+        INVALID_OFFER,
+        LIMIT_REACHED
+    }
+}
@@ -0,0 +1,587 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.Order;
+import com.example.book_store_backend.entity.OrderItem;
+import com.example.book_store_backend.entity.OrderStatus;
+import com.example.book_store_backend.entity.PaymentStatus;
+import com.example.book_store_backend.repository.OrderItemRepository;
+import com.example.book_store_backend.repository.OrderRepository;
+import com.example.book_store_backend.util.Money;
+import com.example.book_store_backend.util.TransactionUtils;
+import com.example.book_store_backend.util.ValueDictionary;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moteur analytique en mémoire : table de faits colonnaire (une ligne par article de commande),
+ * chaînes encodées par dictionnaire, montants en centimes, agrégations parallèles (fork-join).
+ */
+@Service
+@Slf4j
+public class OrderAnalyticsService {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int SCAN_THRESHOLD = 16_384;
+    private static final int MAX_GROUP_BY = 3;
+    private static final int CODE_BITS = 21;
+    private static final long CODE_MASK = (1L << CODE_BITS) - 1;
+    private static final String UNKNOWN = "N/A";
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final PaymentStatus[] PAYMENT_STATUSES = PaymentStatus.values();
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderArchiveService orderArchiveService;
+    private final ForkJoinPool scanPool;
+    private final int loadChunkSize;
+
+    private final ValueDictionary<String> cities = new ValueDictionary<>();
+    private final ValueDictionary<String> countries = new ValueDictionary<>();
+    private final ValueDictionary<String> categories = new ValueDictionary<>();
+    private final ValueDictionary<Long> books = new ValueDictionary<>();
+
+    // Position des lignes de chaque commande : (début << 32) | nombre de lignes
+    private final Map<Long, Long> orderRows = new ConcurrentHashMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+    private volatile boolean loaded = false;
+
+    public OrderAnalyticsService(OrderRepository orderRepository,
+                                 OrderItemRepository orderItemRepository,
+                                 OrderArchiveService orderArchiveService,
+                                 @Value("${bookstore.analytics.parallelism:0}") int parallelism,
+                                 @Value("${bookstore.analytics.load-chunk-size:5000}") int loadChunkSize) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.orderArchiveService = orderArchiveService;
+        this.scanPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.loadChunkSize = loadChunkSize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scanPool.shutdown();
+    }
+
+    /**
+     * Charger la table de faits au démarrage, par tranches d'IDs de commande (tables chaudes et archive)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFacts() {
+        Long hotMaxId = orderRepository.findMaxId();
+        Long archivedMaxId = orderArchiveService.findMaxArchivedId();
+        Long maxId = hotMaxId;
+        if (archivedMaxId != null && (maxId == null || archivedMaxId > maxId)) {
+            maxId = archivedMaxId;
+        }
+        if (maxId == null) {
+            loaded = true;
+            log.info("Moteur analytique initialisé (aucune commande)");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        for (long fromId = 0; fromId < maxId; fromId += loadChunkSize) {
+            List<Object[]> rows = new ArrayList<>(orderItemRepository.findFactRowsByOrderIdRange(fromId, fromId + loadChunkSize));
+            for (OrderArchiveService.OrderSnapshot snapshot : orderArchiveService.findSnapshotsByIdRange(fromId, fromId + loadChunkSize)) {
+                for (OrderArchiveService.OrderItemSnapshot item : snapshot.getItems()) {
+                    rows.add(new Object[]{
+                            snapshot.getId(), snapshot.getCreatedAt(), snapshot.getStatus(), snapshot.getPaymentStatus(),
+                            snapshot.getCustomerCity(), snapshot.getCustomerCountry(),
+                            item.getBookId(), item.getBookCategory(), item.getQuantity(), item.getPrice()
+                    });
+                }
+            }
+            // Les lignes d'une même commande doivent rester contiguës
+            rows.sort(Comparator.comparingLong(row -> (Long) row[0]));
+            appendRows(rows);
+        }
+        loaded = true;
+        log.info("Moteur analytique chargé: {} lignes, {} commandes en {} ms",
+                columns.size, orderRows.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Ajouter une nouvelle commande à la table de faits (après commit)
+     */
+    public void recordOrder(Order order) {
+        List<Object[]> rows = new ArrayList<>(order.getOrderItems().size());
+        for (OrderItem item : order.getOrderItems()) {
+            rows.add(new Object[]{
+                    order.getId(), order.getCreatedAt(), order.getStatus(), order.getPaymentStatus(),
+                    order.getCustomer().getCity(), order.getCustomer().getCountry(),
+                    item.getBook().getId(), item.getBook().getCategory(), item.getQuantity(), item.getPrice()
+            });
+        }
+        TransactionUtils.runAfterCommit(() -> appendRows(rows));
+    }
+
+    /**
+     * Répercuter un changement de statut sur les lignes d'une commande (après commit)
+     */
+    public void recordStatusChange(Long orderId, OrderStatus status, PaymentStatus paymentStatus) {
+        TransactionUtils.runAfterCommit(() -> {
+            Long position = orderRows.get(orderId);
+            if (position == null) {
+                return;
+            }
+            appendLock.lock();
+            try {
+                Columns current = columns;
+                int first = (int) (position >>> 32);
+                int count = (int) (position & 0xFFFFFFFFL);
+                for (int row = first; row < first + count; row++) {
+                    if (status != null) {
+                        current.status[row] = (byte) status.ordinal();
+                    }
+                    if (paymentStatus != null) {
+                        current.paymentStatus[row] = (byte) paymentStatus.ordinal();
+                    }
+                }
+            } finally {
+                appendLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Exécuter une requête filtre / regroupement / agrégation
+     */
+    public AnalyticsResult query(AnalyticsQuery query) {
+        long start = System.nanoTime();
+        List<Dimension> groupBy = query.getGroupBy() != null ? query.getGroupBy() : List.of();
+        if (groupBy.size() > MAX_GROUP_BY) {
+            throw new IllegalArgumentException("Au plus " + MAX_GROUP_BY + " dimensions de regroupement sont supportées");
+        }
+
+        Columns snapshot = columns;
+        RowFilter filter = compileFilter(query);
+        Map<Long, long[]> groups = filter.matchesNothing
+                ? new HashMap<>()
+                : scanPool.invoke(new ScanTask(snapshot, filter, groupBy, 0, snapshot.size));
+
+        List<AnalyticsRow> rows = new ArrayList<>(groups.size());
+        for (Map.Entry<Long, long[]> entry : groups.entrySet()) {
+            rows.add(toRow(entry.getKey(), entry.getValue(), groupBy));
+        }
+
+        Measure sortBy = query.getSortBy() != null ? query.getSortBy() : Measure.REVENUE;
+        rows.sort(Comparator.comparingLong((AnalyticsRow row) -> row.measure(sortBy)).reversed());
+        if (query.getLimit() != null && query.getLimit() > 0 && rows.size() > query.getLimit()) {
+            rows = new ArrayList<>(rows.subList(0, query.getLimit()));
+        }
+
+        return AnalyticsResult.builder()
+                .rows(rows)
+                .groupCount(groups.size())
+                .scannedRows(snapshot.size)
+                .elapsedMicros((System.nanoTime() - start) / 1_000)
+                .build();
+    }
+
+    /**
+     * État de la table de faits
+     */
+    public AnalyticsStatus getStatus() {
+        Columns snapshot = columns;
+        return AnalyticsStatus.builder()
+                .loaded(loaded)
+                .rows(snapshot.size)
+                .orders(orderRows.size())
+                .capacity(snapshot.orderId.length)
+                .distinctCategories(categories.size())
+                .distinctCities(cities.size())
+                .distinctCountries(countries.size())
+                .distinctBooks(books.size())
+                .build();
+    }
+
+    private void appendRows(List<Object[]> facts) {
+        if (facts.isEmpty()) {
+            return;
+        }
+        appendLock.lock();
+        try {
+            // Une commande créée pendant le chargement initial ne doit pas être ajoutée deux fois
+            List<Object[]> rows = facts.stream()
+                    .filter(fact -> !orderRows.containsKey((Long) fact[0]))
+                    .toList();
+            if (rows.isEmpty()) {
+                return;
+            }
+            Columns current = columns.ensureCapacity(columns.size + rows.size());
+            int row = current.size;
+            long previousOrderId = -1;
+            int orderStart = row;
+            for (Object[] fact : rows) {
+                long orderId = (Long) fact[0];
+                if (orderId != previousOrderId) {
+                    if (previousOrderId != -1) {
+                        orderRows.put(previousOrderId, ((long) orderStart << 32) | (row - orderStart));
+                    }
+                    previousOrderId = orderId;
+                    orderStart = row;
+                }
+                LocalDateTime createdAt = (LocalDateTime) fact[1];
+                current.orderId[row] = orderId;
+                current.day[row] = createdAt != null ? (int) createdAt.toLocalDate().toEpochDay() : 0;
+                current.status[row] = (byte) ((OrderStatus) fact[2]).ordinal();
+                current.paymentStatus[row] = (byte) ((PaymentStatus) fact[3]).ordinal();
+                current.city[row] = cities.encode(orUnknown((String) fact[4]));
+                current.country[row] = countries.encode(orUnknown((String) fact[5]));
+                current.book[row] = books.encode((Long) fact[6]);
+                current.category[row] = categories.encode(orUnknown((String) fact[7]));
+                current.quantity[row] = (Integer) fact[8];
+                current.amountCents[row] = Math.multiplyExact(Money.toMinorUnits((BigDecimal) fact[9]), (long) (Integer) fact[8]);
+                current.firstOfOrder[row] = row == orderStart;
+                row++;
+            }
+            orderRows.put(previousOrderId, ((long) orderStart << 32) | (row - orderStart));
+            // Publication : les lecteurs ne voient que des lignes complètes
+            columns = current.withSize(row);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private RowFilter compileFilter(AnalyticsQuery query) {
+        RowFilter filter = new RowFilter();
+        filter.fromDay = query.getFromDate() != null ? (int) query.getFromDate().toEpochDay() : Integer.MIN_VALUE;
+        filter.toDay = query.getToDate() != null ? (int) query.getToDate().toEpochDay() : Integer.MAX_VALUE;
+
+        if (query.getFilters() != null) {
+            for (Map.Entry<Dimension, List<String>> entry : query.getFilters().entrySet()) {
+                if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                    continue;
+                }
+                BitSet codes = new BitSet();
+                for (String value : entry.getValue()) {
+                    int code = encodeFilterValue(entry.getKey(), value);
+                    if (code >= 0) {
+                        codes.set(code);
+                    }
+                }
+                if (codes.isEmpty()) {
+                    filter.matchesNothing = true;
+                }
+                filter.codes.put(entry.getKey(), codes);
+            }
+        }
+        return filter;
+    }
+
+    private int encodeFilterValue(Dimension dimension, String value) {
+        switch (dimension) {
+            case CATEGORY:
+                return categories.lookup(value);
+            case CITY:
+                return cities.lookup(value);
+            case COUNTRY:
+                return countries.lookup(value);
+            case BOOK:
+                return books.lookup(parseBookId(value));
+            case STATUS:
+                return OrderStatus.valueOf(value).ordinal();
+            case PAYMENT_STATUS:
+                return PaymentStatus.valueOf(value).ordinal();
+            default:
+                throw new IllegalArgumentException("Filtre non supporté sur la dimension " + dimension
+                        + " (utiliser fromDate/toDate)");
+        }
+    }
+
+    private static long parseBookId(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Identifiant de livre invalide: " + value);
+        }
+    }
+
+    private static int dimensionCode(Columns c, Dimension dimension, int row) {
+        switch (dimension) {
+            case CATEGORY:
+                return c.category[row];
+            case CITY:
+                return c.city[row];
+            case COUNTRY:
+                return c.country[row];
+            case BOOK:
+                return c.book[row];
+            case STATUS:
+                return c.status[row];
+            case PAYMENT_STATUS:
+                return c.paymentStatus[row];
+            case DAY:
+                return c.day[row];
+            case WEEK:
+                LocalDate day = LocalDate.ofEpochDay(c.day[row]);
+                return (int) day.minusDays(day.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue()).toEpochDay();
+            case MONTH:
+                LocalDate date = LocalDate.ofEpochDay(c.day[row]);
+                return date.getYear() * 12 + date.getMonthValue() - 1;
+            default:
+                throw new IllegalArgumentException("Dimension inconnue: " + dimension);
+        }
+    }
+
+    private String decodeDimension(Dimension dimension, int code) {
+        switch (dimension) {
+            case CATEGORY:
+                return categories.decode(code);
+            case CITY:
+                return cities.decode(code);
+            case COUNTRY:
+                return countries.decode(code);
+            case BOOK:
+                return String.valueOf(books.decode(code));
+            case STATUS:
+                return STATUSES[code].name();
+            case PAYMENT_STATUS:
+                return PAYMENT_STATUSES[code].name();
+            case DAY:
+            case WEEK:
+                return LocalDate.ofEpochDay(code).toString();
+            case MONTH:
+                return String.format("%04d-%02d", code / 12, code % 12 + 1);
+            default:
+                throw new IllegalArgumentException("Dimension inconnue: " + dimension);
+        }
+    }
+
+    private AnalyticsRow toRow(long key, long[] aggregates, List<Dimension> groupBy) {
+        Map<String, String> dimensions = new LinkedHashMap<>();
+        for (int i = 0; i < groupBy.size(); i++) {
+            int code = (int) ((key >>> (CODE_BITS * i)) & CODE_MASK);
+            dimensions.put(groupBy.get(i).name(), decodeDimension(groupBy.get(i), code));
+        }
+        return AnalyticsRow.builder()
+                .dimensions(dimensions)
+                .revenue(Money.toBigDecimal(aggregates[0]))
+                .revenueCents(aggregates[0])
+                .quantity(aggregates[1])
+                .items(aggregates[2])
+                .orders(aggregates[3])
+                .build();
+    }
+
+    private static String orUnknown(String value) {
+        return value == null || value.isBlank() ? UNKNOWN : value;
+    }
+
+    // Stockage colonnaire : tableaux primitifs partagés entre instantanés, seule la taille publiée change
+    private static final class Columns {
+        final int size;
+        final long[] orderId;
+        final int[] day;
+        final byte[] status;
+        final byte[] paymentStatus;
+        final int[] city;
+        final int[] country;
+        final int[] category;
+        final int[] book;
+        final int[] quantity;
+        final long[] amountCents;
+        final boolean[] firstOfOrder;
+
+        Columns(int capacity) {
+            this(0, new long[capacity], new int[capacity], new byte[capacity], new byte[capacity],
+                    new int[capacity], new int[capacity], new int[capacity], new int[capacity],
+                    new int[capacity], new long[capacity], new boolean[capacity]);
+        }
+
+        private Columns(int size, long[] orderId, int[] day, byte[] status, byte[] paymentStatus,
+                        int[] city, int[] country, int[] category, int[] book,
+                        int[] quantity, long[] amountCents, boolean[] firstOfOrder) {
+            this.size = size;
+            this.orderId = orderId;
+            this.day = day;
+            this.status = status;
+            this.paymentStatus = paymentStatus;
+            this.city = city;
+            this.country = country;
+            this.category = category;
+            this.book = book;
+            this.quantity = quantity;
+            this.amountCents = amountCents;
+            this.firstOfOrder = firstOfOrder;
+        }
+
+        Columns withSize(int newSize) {
+            return new Columns(newSize, orderId, day, status, paymentStatus, city, country,
+                    category, book, quantity, amountCents, firstOfOrder);
+        }
+
+        Columns ensureCapacity(int required) {
+            if (required <= orderId.length) {
+                return this;
+            }
+            int capacity = Math.max(required, orderId.length * 2);
+            return new Columns(size,
+                    Arrays.copyOf(orderId, capacity), Arrays.copyOf(day, capacity),
+                    Arrays.copyOf(status, capacity), Arrays.copyOf(paymentStatus, capacity),
+                    Arrays.copyOf(city, capacity), Arrays.copyOf(country, capacity),
+                    Arrays.copyOf(category, capacity), Arrays.copyOf(book, capacity),
+                    Arrays.copyOf(quantity, capacity), Arrays.copyOf(amountCents, capacity),
+                    Arrays.copyOf(firstOfOrder, capacity));
+        }
+    }
+
+    private static final class RowFilter {
+        int fromDay;
+        int toDay;
+        boolean matchesNothing;
+        final EnumMap<Dimension, BitSet> codes = new EnumMap<>(Dimension.class);
+
+        boolean matches(Columns c, int row) {
+            int day = c.day[row];
+            if (day < fromDay || day > toDay) {
+                return false;
+            }
+            for (Map.Entry<Dimension, BitSet> entry : codes.entrySet()) {
+                if (!entry.getValue().get(dimensionCode(c, entry.getKey(), row))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Balayage parallèle : chaque feuille agrège sa plage de lignes, les résultats sont fusionnés
+    private static final class ScanTask extends RecursiveTask<Map<Long, long[]>> {
+        private final Columns columns;
+        private final RowFilter filter;
+        private final List<Dimension> groupBy;
+        private final int from;
+        private final int to;
+
+        ScanTask(Columns columns, RowFilter filter, List<Dimension> groupBy, int from, int to) {
+            this.columns = columns;
+            this.filter = filter;
+            this.groupBy = groupBy;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Long, long[]> compute() {
+            if (to - from <= SCAN_THRESHOLD) {
+                return scan();
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(columns, filter, groupBy, from, middle);
+            left.fork();
+            Map<Long, long[]> right = new ScanTask(columns, filter, groupBy, middle, to).compute();
+            Map<Long, long[]> merged = left.join();
+            right.forEach((key, values) -> merged.merge(key, values, (a, b) -> {
+                for (int i = 0; i < a.length; i++) {
+                    a[i] += b[i];
+                }
+                return a;
+            }));
+            return merged;
+        }
+
+        private Map<Long, long[]> scan() {
+            Map<Long, long[]> groups = new HashMap<>();
+            for (int row = from; row < to; row++) {
+                if (!filter.matches(columns, row)) {
+                    continue;
+                }
+                long key = 0;
+                for (int i = 0; i < groupBy.size(); i++) {
+                    key |= ((long) dimensionCode(columns, groupBy.get(i), row) & CODE_MASK) << (CODE_BITS * i);
+                }
+                long[] aggregates = groups.computeIfAbsent(key, k -> new long[4]);
+                aggregates[0] += columns.amountCents[row];
+                aggregates[1] += columns.quantity[row];
+                aggregates[2]++;
+                if (columns.firstOfOrder[row]) {
+                    aggregates[3]++;
+                }
+            }
+            return groups;
+        }
+    }
+
+    // Classes d'aide
+    public enum Dimension {
+        CATEGORY, CITY, COUNTRY, BOOK, STATUS, PAYMENT_STATUS, DAY, WEEK, MONTH
+    }
+
+    public enum Measure {
+        REVENUE, QUANTITY, ITEMS, ORDERS
+    }
+
+    @lombok.Data
+    public static class AnalyticsQuery {
+        private Map<Dimension, List<String>> filters;
+        private LocalDate fromDate;
+        private LocalDate toDate;
+        private List<Dimension> groupBy;
+        private Measure sortBy;
+        private Integer limit;
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class AnalyticsRow {
+        private Map<String, String> dimensions;
+        private BigDecimal revenue;
+        private long revenueCents;
+        private long quantity;
+        private long items;
+        private long orders;
+
+        long measure(Measure measure) {
+            switch (measure) {
+                case QUANTITY:
+                    return quantity;
+                case ITEMS:
+                    return items;
+                case ORDERS:
+                    return orders;
+                default:
+                    return revenueCents;
+            }
+        }
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class AnalyticsResult {
+        private List<AnalyticsRow> rows;
+        private int groupCount;
+        private int scannedRows;
+        private long elapsedMicros;
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class AnalyticsStatus {
+        private boolean loaded;
+        private int rows;
+        private int orders;
+        private int capacity;
+        private int distinctCategories;
+        private int distinctCities;
+        private int distinctCountries;
+        private int distinctBooks;
+    }
+}
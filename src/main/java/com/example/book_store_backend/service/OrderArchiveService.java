@@ -0,0 +1,395 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.ArchivedOrder;
+import com.example.book_store_backend.entity.Book;
+import com.example.book_store_backend.entity.Customer;
+import com.example.book_store_backend.entity.Order;
+import com.example.book_store_backend.entity.OrderItem;
+import com.example.book_store_backend.entity.OrderStatus;
+import com.example.book_store_backend.entity.PaymentStatus;
+import com.example.book_store_backend.repository.ArchivedOrderRepository;
+import com.example.book_store_backend.repository.CustomerRepository;
+import com.example.book_store_backend.repository.OrderItemRepository;
+import com.example.book_store_backend.repository.OrderRepository;
+import com.example.book_store_backend.util.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archivage des commandes finalisées : les commandes livrées ou annulées depuis plus de N jours
+ * sont déplacées, par lots transactionnels, des tables chaudes (orders, order_items) vers
+ * archived_orders sous forme d'instantané JSON compressé. La taille des tables chaudes reste bornée.
+ */
+@Service
+@Slf4j
+@Transactional
+public class OrderArchiveService {
+
+    private static final Set<OrderStatus> FINAL_STATUSES = EnumSet.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final CustomerRepository customerRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int archiveAfterDays;
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public OrderArchiveService(OrderRepository orderRepository,
+                               OrderItemRepository orderItemRepository,
+                               CustomerRepository customerRepository,
+                               ArchivedOrderRepository archivedOrderRepository,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${bookstore.archive.enabled:true}") boolean enabled,
+                               @Value("${bookstore.archive.after-days:180}") int archiveAfterDays,
+                               @Value("${bookstore.archive.chunk-size:500}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.customerRepository = customerRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.archiveAfterDays = archiveAfterDays;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Archivage planifié (par défaut chaque nuit)
+     */
+    @Scheduled(cron = "${bookstore.archive.cron:0 30 3 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void scheduledArchive() {
+        if (enabled) {
+            archiveFinalizedOrders(archiveAfterDays);
+        }
+    }
+
+    /**
+     * Archiver les commandes finalisées depuis plus de {@code olderThanDays} jours, une transaction par lot
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ArchiveResult archiveFinalizedOrders(int olderThanDays) {
+        if (olderThanDays < 0) {
+            throw new IllegalArgumentException("Le nombre de jours doit être positif");
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(olderThanDays);
+        int archived = 0;
+        int chunks = 0;
+        while (true) {
+            List<Long> candidateIds = orderRepository.findArchivableOrderIds(FINAL_STATUSES, cutoff, PageRequest.of(0, chunkSize));
+            if (candidateIds.isEmpty()) {
+                break;
+            }
+            Integer count = transactionTemplate.execute(status -> archiveChunk(candidateIds, cutoff));
+            if (count == null || count == 0) {
+                break;
+            }
+            archived += count;
+            chunks++;
+            if (candidateIds.size() < chunkSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("{} commandes archivées en {} lots ({} ms)", archived, chunks, System.currentTimeMillis() - start);
+        }
+        return ArchiveResult.builder()
+                .cutoff(cutoff)
+                .archivedOrders(archived)
+                .chunks(chunks)
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    /**
+     * Relire une commande archivée par ID
+     */
+    @Transactional(readOnly = true)
+    public Optional<Order> findArchivedOrder(Long id) {
+        return archivedOrderRepository.findById(id).map(this::toOrder);
+    }
+
+    /**
+     * Relire une commande archivée par numéro
+     */
+    @Transactional(readOnly = true)
+    public Optional<Order> findArchivedOrderByNumber(String orderNumber) {
+        return archivedOrderRepository.findByOrderNumber(orderNumber).map(this::toOrder);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isArchived(Long id) {
+        return archivedOrderRepository.existsById(id);
+    }
+
+    /**
+     * Instantanés des commandes archivées d'une tranche d'IDs
+     */
+    @Transactional(readOnly = true)
+    public List<OrderSnapshot> findSnapshotsByIdRange(Long fromId, Long toId) {
+        return archivedOrderRepository.findByIdRange(fromId, toId).stream()
+                .map(archived -> readSnapshot(archived.getSnapshot()))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public Long findMaxArchivedId() {
+        return archivedOrderRepository.findMaxId();
+    }
+
+    /**
+     * Supprimer les archives d'un client supprimé définitivement
+     */
+    public void deleteCustomerArchives(Long customerId) {
+        archivedOrderRepository.deleteByCustomerId(customerId);
+    }
+
+    /**
+     * Rattacher les archives de clients fusionnés au client conservé
+     */
+    public int reassignCustomerArchives(Collection<Long> fromCustomerIds, Long customerId) {
+        return archivedOrderRepository.reassignCustomer(fromCustomerIds, customerId);
+    }
+
+    @Transactional(readOnly = true)
+    public ArchiveStatus getStatus() {
+        return ArchiveStatus.builder()
+                .enabled(enabled)
+                .archiveAfterDays(archiveAfterDays)
+                .hotOrders(orderRepository.count())
+                .archivedOrders(archivedOrderRepository.count())
+                .build();
+    }
+
+    private int archiveChunk(List<Long> candidateIds, LocalDateTime cutoff) {
+        List<Order> orders = orderRepository.lockArchivableOrders(candidateIds, FINAL_STATUSES, cutoff);
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = orders.stream().map(Order::getId).collect(Collectors.toList());
+
+        // Clients et articles chargés en deux requêtes pour tout le lot
+        customerRepository.findAllById(orders.stream().map(order -> order.getCustomer().getId()).collect(Collectors.toSet()));
+        Map<Long, List<OrderItem>> itemsByOrder = orderItemRepository.findWithBookByOrderIdIn(ids).stream()
+                .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Order order : orders) {
+            OrderSnapshot snapshot = toSnapshot(order, itemsByOrder.getOrDefault(order.getId(), List.of()));
+            entityManager.persist(new ArchivedOrder(
+                    order.getId(),
+                    order.getOrderNumber(),
+                    order.getCustomer().getId(),
+                    order.getStatus(),
+                    Money.of(order.getTotalAmount()),
+                    order.getCreatedAt(),
+                    order.getDeliveredAt() != null ? order.getDeliveredAt() : order.getUpdatedAt(),
+                    now,
+                    writeSnapshot(snapshot)));
+        }
+        entityManager.flush();
+
+        orderItemRepository.deleteByOrderIdIn(ids);
+        orderRepository.deleteByIdIn(ids);
+        entityManager.clear();
+        return orders.size();
+    }
+
+    private static OrderSnapshot toSnapshot(Order order, List<OrderItem> items) {
+        Customer customer = order.getCustomer();
+        List<OrderItemSnapshot> itemSnapshots = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            itemSnapshots.add(OrderItemSnapshot.builder()
+                    .id(item.getId())
+                    .bookId(item.getBook().getId())
+                    .bookTitle(item.getBookTitle())
+                    .bookAuthor(item.getBookAuthor())
+                    .bookCategory(item.getBook().getCategory())
+                    .quantity(item.getQuantity())
+                    .price(item.getPrice())
+                    .build());
+        }
+        return OrderSnapshot.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .customerId(customer.getId())
+                .customerFirstName(customer.getFirstName())
+                .customerLastName(customer.getLastName())
+                .customerEmail(customer.getEmail())
+                .customerPhoneNumber(customer.getPhoneNumber())
+                .customerCity(customer.getCity())
+                .customerCountry(customer.getCountry())
+                .totalAmount(order.getTotalAmount())
+                .status(order.getStatus())
+                .paymentStatus(order.getPaymentStatus())
+                .notes(order.getNotes())
+                .shippingAddress(order.getShippingAddress())
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .shippedAt(order.getShippedAt())
+                .deliveredAt(order.getDeliveredAt())
+                .items(itemSnapshots)
+                .build();
+    }
+
+    // Commande détachée reconstruite depuis l'instantané (lecture seule)
+    private Order toOrder(ArchivedOrder archived) {
+        OrderSnapshot snapshot = readSnapshot(archived.getSnapshot());
+
+        // La colonne fait foi : le client a pu être fusionné depuis l'archivage
+        Customer customer = new Customer();
+        customer.setId(archived.getCustomerId());
+        customer.setFirstName(snapshot.getCustomerFirstName());
+        customer.setLastName(snapshot.getCustomerLastName());
+        customer.setEmail(snapshot.getCustomerEmail());
+        customer.setPhoneNumber(snapshot.getCustomerPhoneNumber());
+        customer.setCity(snapshot.getCustomerCity());
+        customer.setCountry(snapshot.getCustomerCountry());
+
+        Order order = new Order();
+        order.setId(snapshot.getId());
+        order.setOrderNumber(snapshot.getOrderNumber());
+        order.setCustomer(customer);
+        order.setTotalAmount(snapshot.getTotalAmount());
+        order.setStatus(snapshot.getStatus());
+        order.setPaymentStatus(snapshot.getPaymentStatus());
+        order.setNotes(snapshot.getNotes());
+        order.setShippingAddress(snapshot.getShippingAddress());
+        order.setCreatedAt(snapshot.getCreatedAt());
+        order.setUpdatedAt(snapshot.getUpdatedAt());
+        order.setShippedAt(snapshot.getShippedAt());
+        order.setDeliveredAt(snapshot.getDeliveredAt());
+
+        for (OrderItemSnapshot itemSnapshot : snapshot.getItems()) {
+            Book book = new Book();
+            book.setId(itemSnapshot.getBookId());
+            book.setTitle(itemSnapshot.getBookTitle());
+            book.setAuthor(itemSnapshot.getBookAuthor());
+            book.setCategory(itemSnapshot.getBookCategory());
+
+            OrderItem item = new OrderItem();
+            item.setId(itemSnapshot.getId());
+            item.setOrder(order);
+            item.setBook(book);
+            item.setQuantity(itemSnapshot.getQuantity());
+            item.setPrice(itemSnapshot.getPrice());
+            item.setBookTitle(itemSnapshot.getBookTitle());
+            item.setBookAuthor(itemSnapshot.getBookAuthor());
+            order.getOrderItems().add(item);
+        }
+        return order;
+    }
+
+    private byte[] writeSnapshot(OrderSnapshot snapshot) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Échec de la sérialisation de la commande " + snapshot.getId(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private OrderSnapshot readSnapshot(byte[] data) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return objectMapper.readValue(gzip, OrderSnapshot.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Instantané de commande archivée illisible", e);
+        }
+    }
+
+    // Classes d'aide
+    @lombok.Builder
+    @lombok.Data
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class OrderSnapshot {
+        private Long id;
+        private String orderNumber;
+        private Long customerId;
+        private String customerFirstName;
+        private String customerLastName;
+        private String customerEmail;
+        private String customerPhoneNumber;
+        private String customerCity;
+        private String customerCountry;
+        private BigDecimal totalAmount;
+        private OrderStatus status;
+        private PaymentStatus paymentStatus;
+        private String notes;
+        private String shippingAddress;
+        private LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
+        private LocalDateTime shippedAt;
+        private LocalDateTime deliveredAt;
+        @lombok.Builder.Default
+        private List<OrderItemSnapshot> items = new ArrayList<>();
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class OrderItemSnapshot {
+        private Long id;
+        private Long bookId;
+        private String bookTitle;
+        private String bookAuthor;
+        private String bookCategory;
+        private Integer quantity;
+        private BigDecimal price;
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class ArchiveResult {
+        private LocalDateTime cutoff;
+        private int archivedOrders;
+        private int chunks;
+        private long elapsedMillis;
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class ArchiveStatus {
+        private boolean enabled;
+        private int archiveAfterDays;
+        private long hotOrders;
+        private long archivedOrders;
+    }
+}
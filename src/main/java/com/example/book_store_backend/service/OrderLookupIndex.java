@@ -0,0 +1,295 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.repository.OrderSummaryRepository;
+import com.example.book_store_backend.util.IntPostingList;
+import com.example.book_store_backend.util.TextNormalizer;
+import com.example.book_store_backend.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Index de recherche des commandes en mémoire : trigrammes du numéro de commande et du nom du client
+ * vers des listes de postings triées. Une recherche intersecte les postings des trigrammes du mot-clé,
+ * vérifie les candidats puis ne lit en base que la page demandée.
+ */
+@Service
+@Slf4j
+public class OrderLookupIndex {
+
+    private static final int GRAM = 3;
+
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final int loadChunkSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Emplacements denses : slot -> commande
+    private long[] orderIds = new long[1024];
+    private String[] orderNumbers = new String[1024];
+    private String[] customerNames = new String[1024];
+    private int slotCount = 0;
+
+    private final Map<Long, Integer> slotsByOrderId = new HashMap<>();
+    private final Map<Long, IntPostingList> slotsByCustomerId = new HashMap<>();
+    private final Map<String, IntPostingList> orderNumberGrams = new HashMap<>();
+    private final Map<String, IntPostingList> customerNameGrams = new HashMap<>();
+
+    public OrderLookupIndex(OrderSummaryRepository orderSummaryRepository,
+                            @Value("${bookstore.search.load-chunk-size:10000}") int loadChunkSize) {
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.loadChunkSize = loadChunkSize;
+    }
+
+    /**
+     * Construire l'index au démarrage, après la reconstruction du modèle de lecture
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public void loadIndex() {
+        Long maxId = orderSummaryRepository.findMaxOrderId();
+        if (maxId == null) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        // Lecture des tranches en parallèle, insertion dans l'ordre des identifiants
+        List<Object[]> rows = LongStream.iterate(0, fromId -> fromId < maxId, fromId -> fromId + loadChunkSize)
+                .boxed()
+                .parallel()
+                .flatMap(fromId -> orderSummaryRepository.findSearchRowsByIdRange(fromId, fromId + loadChunkSize).stream())
+                .sorted(Comparator.comparingLong(row -> (Long) row[0]))
+                .collect(Collectors.toList());
+
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : rows) {
+                addUnderLock((Long) row[0], (String) row[1], (Long) row[2], (String) row[3]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Index de recherche des commandes construit: {} commandes, {} trigrammes en {} ms",
+                rows.size(), orderNumberGrams.size() + customerNameGrams.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Indexer une commande (après commit)
+     */
+    public void addOrder(Long orderId, String orderNumber, Long customerId, String customerName) {
+        TransactionUtils.runAfterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                addUnderLock(orderId, orderNumber, customerId, customerName);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Réindexer le nom du client sur toutes ses commandes (après commit)
+     */
+    public void renameCustomer(Long customerId, String customerName) {
+        TransactionUtils.runAfterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                IntPostingList slots = slotsByCustomerId.get(customerId);
+                if (slots == null) {
+                    return;
+                }
+                String normalized = TextNormalizer.normalize(customerName);
+                for (int slot : slots.toArray()) {
+                    unindex(customerNameGrams, customerNames[slot], slot);
+                    customerNames[slot] = normalized;
+                    index(customerNameGrams, normalized, slot);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Rattacher les commandes d'un client fusionné au client conservé (après commit)
+     */
+    public void reassignCustomer(Long fromCustomerId, Long toCustomerId, String customerName) {
+        TransactionUtils.runAfterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                IntPostingList slots = slotsByCustomerId.remove(fromCustomerId);
+                if (slots == null) {
+                    return;
+                }
+                String normalized = TextNormalizer.normalize(customerName);
+                IntPostingList targetSlots = slotsByCustomerId.computeIfAbsent(toCustomerId, id -> new IntPostingList());
+                for (int slot : slots.toArray()) {
+                    unindex(customerNameGrams, customerNames[slot], slot);
+                    customerNames[slot] = normalized;
+                    index(customerNameGrams, normalized, slot);
+                    targetSlots.add(slot);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Retirer les commandes d'un client supprimé définitivement (après commit)
+     */
+    public void removeCustomer(Long customerId) {
+        TransactionUtils.runAfterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                IntPostingList slots = slotsByCustomerId.remove(customerId);
+                if (slots == null) {
+                    return;
+                }
+                for (int slot : slots.toArray()) {
+                    unindex(orderNumberGrams, orderNumbers[slot], slot);
+                    unindex(customerNameGrams, customerNames[slot], slot);
+                    slotsByOrderId.remove(orderIds[slot]);
+                    orderIds[slot] = 0;
+                    orderNumbers[slot] = null;
+                    customerNames[slot] = null;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Identifiants des commandes dont le numéro ou le nom du client contient le mot-clé, les plus récentes d'abord
+     */
+    public long[] search(String keyword) {
+        String normalized = TextNormalizer.normalize(keyword);
+        if (normalized.isEmpty()) {
+            return new long[0];
+        }
+
+        lock.readLock().lock();
+        try {
+            long[] matches;
+            if (normalized.length() < GRAM) {
+                // Mot-clé trop court pour les trigrammes : parcours séquentiel des emplacements
+                matches = LongStream.range(0, slotCount)
+                        .filter(slot -> matches((int) slot, normalized))
+                        .map(slot -> orderIds[(int) slot])
+                        .toArray();
+            } else {
+                int[] candidates = IntPostingList.union(
+                        candidates(orderNumberGrams, normalized),
+                        candidates(customerNameGrams, normalized));
+                matches = Arrays.stream(candidates)
+                        .filter(slot -> matches(slot, normalized))
+                        .mapToLong(slot -> orderIds[slot])
+                        .toArray();
+            }
+            Arrays.sort(matches);
+            reverse(matches);
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsByOrderId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addUnderLock(Long orderId, String orderNumber, Long customerId, String customerName) {
+        if (slotsByOrderId.containsKey(orderId)) {
+            return;
+        }
+        ensureCapacity(slotCount + 1);
+        int slot = slotCount++;
+        orderIds[slot] = orderId;
+        orderNumbers[slot] = TextNormalizer.normalize(orderNumber);
+        customerNames[slot] = TextNormalizer.normalize(customerName);
+
+        slotsByOrderId.put(orderId, slot);
+        slotsByCustomerId.computeIfAbsent(customerId, id -> new IntPostingList()).add(slot);
+        index(orderNumberGrams, orderNumbers[slot], slot);
+        index(customerNameGrams, customerNames[slot], slot);
+    }
+
+    private boolean matches(int slot, String normalized) {
+        return orderIds[slot] != 0
+                && (orderNumbers[slot].contains(normalized) || customerNames[slot].contains(normalized));
+    }
+
+    private static int[] candidates(Map<String, IntPostingList> grams, String normalized) {
+        int[] result = null;
+        for (String gram : grams(normalized)) {
+            IntPostingList postings = grams.get(gram);
+            if (postings == null) {
+                return new int[0];
+            }
+            result = result == null ? postings.toArray() : IntPostingList.intersect(result, postings.toArray());
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result != null ? result : new int[0];
+    }
+
+    private static void index(Map<String, IntPostingList> grams, String text, int slot) {
+        for (String gram : grams(text)) {
+            grams.computeIfAbsent(gram, g -> new IntPostingList()).add(slot);
+        }
+    }
+
+    private static void unindex(Map<String, IntPostingList> grams, String text, int slot) {
+        for (String gram : grams(text)) {
+            IntPostingList postings = grams.get(gram);
+            if (postings != null && postings.remove(slot) && postings.isEmpty()) {
+                grams.remove(gram);
+            }
+        }
+    }
+
+    private static List<String> grams(String text) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > orderIds.length) {
+            int capacity = Math.max(required, orderIds.length * 2);
+            orderIds = Arrays.copyOf(orderIds, capacity);
+            orderNumbers = Arrays.copyOf(orderNumbers, capacity);
+            customerNames = Arrays.copyOf(customerNames, capacity);
+        }
+    }
+
+    private static void reverse(long[] values) {
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            long tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.Order;
+import com.example.book_store_backend.entity.OrderItem;
+import com.example.book_store_backend.repository.OrderSummaryRepository;
+import com.example.book_store_backend.util.LogHistogram;
+import com.example.book_store_backend.util.Money;
+import com.example.book_store_backend.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Histogrammes journaliers à mémoire fixe (valeur des commandes, articles par commande,
+ * latence de checkout), fusionnés à la demande pour calculer les percentiles d'une période.
+ */
+@Service
+@Slf4j
+public class OrderMetricsService {
+
+    // 2^34 centimes (~171 M) par commande, 2^16 articles par commande, 2^36 µs (~19 h) de latence
+    private static final long MAX_ORDER_VALUE_CENTS = 1L << 34;
+    private static final long MAX_ITEMS_PER_ORDER = 1L << 16;
+    private static final long MAX_LATENCY_MICROS = 1L << 36;
+
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final int retentionDays;
+    private final int loadChunkSize;
+
+    private final Map<LocalDate, DailyHistograms> days = new ConcurrentHashMap<>();
+
+    // Plus grand ID de commande lu par le chargement initial : tant qu'il n'est pas terminé, les commandes
+    // enregistrées après commit avec un ID inférieur ou égal sont ignorées (le chargement les compte)
+    private volatile long coveredMaxOrderId = Long.MAX_VALUE;
+    private volatile boolean loaded;
+
+    public OrderMetricsService(OrderSummaryRepository orderSummaryRepository,
+                               @Value("${bookstore.metrics.histogram-retention-days:400}") int retentionDays,
+                               @Value("${bookstore.analytics.load-chunk-size:5000}") int loadChunkSize) {
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.retentionDays = retentionDays;
+        this.loadChunkSize = loadChunkSize;
+    }
+
+    /**
+     * Reconstruire les histogrammes de la période de rétention au démarrage
+     * (depuis le modèle de lecture, qui conserve aussi les commandes archivées)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadHistograms() {
+        Long maxId = orderSummaryRepository.findMaxOrderId();
+        coveredMaxOrderId = maxId != null ? maxId : 0;
+        if (maxId == null) {
+            loaded = true;
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        LocalDate oldestDay = LocalDate.now().minusDays(retentionDays);
+        long recorded = 0;
+        try {
+            for (long fromId = 0; fromId < maxId; fromId += loadChunkSize) {
+                for (Object[] row : orderSummaryRepository.findOrderValuesByIdRange(fromId, Math.min(fromId + loadChunkSize, maxId))) {
+                    LocalDateTime createdAt = (LocalDateTime) row[0];
+                    if (createdAt == null || createdAt.toLocalDate().isBefore(oldestDay)) {
+                        continue;
+                    }
+                    dayOf(createdAt.toLocalDate()).recordOrder(Money.toMinorUnits((BigDecimal) row[1]), ((Number) row[2]).longValue());
+                    recorded++;
+                }
+            }
+        } finally {
+            loaded = true;
+        }
+        log.info("Histogrammes de commandes chargés: {} commandes sur {} jours en {} ms",
+                recorded, days.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Enregistrer une nouvelle commande (après commit)
+     */
+    public void recordOrder(Order order) {
+        long orderId = order.getId();
+        LocalDate day = dayOf(order);
+        long valueCents = Money.toMinorUnits(order.getTotalAmount());
+        long items = countItems(order);
+        TransactionUtils.runAfterCommit(() -> {
+            if (!loaded && orderId <= coveredMaxOrderId) {
+                return;
+            }
+            dayOf(day).recordOrder(valueCents, items);
+        });
+    }
+
+    /**
+     * Retirer une commande annulée des distributions (après commit)
+     */
+    public void removeOrder(Order order) {
+        removeOrder(dayOf(order), order.getTotalAmount(), countItems(order));
+    }
+
+    /**
+     * Retirer une commande annulée à partir de ses valeurs (mises à jour ensemblistes)
+     */
+    public void removeOrder(LocalDate orderDay, BigDecimal totalAmount, long items) {
+        LocalDate day = orderDay != null ? orderDay : LocalDate.now();
+        long valueCents = Money.toMinorUnits(totalAmount);
+        TransactionUtils.runAfterCommit(() -> {
+            DailyHistograms histograms = days.get(day);
+            if (histograms != null) {
+                histograms.orderValueCents.remove(valueCents);
+                histograms.itemsPerOrder.remove(items);
+            }
+        });
+    }
+
+    /**
+     * Enregistrer la durée d'un checkout
+     */
+    public void recordCheckoutLatency(long nanos) {
+        dayOf(LocalDate.now()).checkoutLatencyMicros.record(nanos / 1_000);
+    }
+
+    /**
+     * Percentiles de la valeur des commandes et du nombre d'articles sur une période (granularité journalière)
+     */
+    public OrderDistribution getOrderDistribution(LocalDateTime startDate, LocalDateTime endDate) {
+        LogHistogram values = new LogHistogram(MAX_ORDER_VALUE_CENTS);
+        LogHistogram items = new LogHistogram(MAX_ITEMS_PER_ORDER);
+        forEachDay(startDate.toLocalDate(), endDate.toLocalDate(), histograms -> {
+            values.merge(histograms.orderValueCents);
+            items.merge(histograms.itemsPerOrder);
+        });
+
+        return OrderDistribution.builder()
+                .orderCount(values.getTotalCount())
+                .orderValueP50(Money.toBigDecimal(values.valueAtPercentile(50)))
+                .orderValueP90(Money.toBigDecimal(values.valueAtPercentile(90)))
+                .orderValueP99(Money.toBigDecimal(values.valueAtPercentile(99)))
+                .itemsPerOrderP50(items.valueAtPercentile(50))
+                .itemsPerOrderP90(items.valueAtPercentile(90))
+                .itemsPerOrderP99(items.valueAtPercentile(99))
+                .build();
+    }
+
+    /**
+     * Percentiles de la latence de checkout sur une période (granularité journalière)
+     */
+    public LatencyStatistics getCheckoutLatency(LocalDate startDate, LocalDate endDate) {
+        LogHistogram latency = new LogHistogram(MAX_LATENCY_MICROS);
+        forEachDay(startDate, endDate, histograms -> latency.merge(histograms.checkoutLatencyMicros));
+
+        return LatencyStatistics.builder()
+                .count(latency.getTotalCount())
+                .meanMillis(latency.getMean() / 1_000.0)
+                .p50Millis(latency.valueAtPercentile(50) / 1_000.0)
+                .p90Millis(latency.valueAtPercentile(90) / 1_000.0)
+                .p99Millis(latency.valueAtPercentile(99) / 1_000.0)
+                .maxMillis(latency.maxValue() / 1_000.0)
+                .build();
+    }
+
+    private void forEachDay(LocalDate from, LocalDate to, Consumer<DailyHistograms> action) {
+        days.forEach((day, histograms) -> {
+            if (!day.isBefore(from) && !day.isAfter(to)) {
+                action.accept(histograms);
+            }
+        });
+    }
+
+    private DailyHistograms dayOf(LocalDate day) {
+        DailyHistograms histograms = days.get(day);
+        if (histograms == null) {
+            histograms = days.computeIfAbsent(day, d -> new DailyHistograms());
+            // Nouveau jour : purger les jours sortis de la période de rétention
+            LocalDate oldestDay = LocalDate.now().minusDays(retentionDays);
+            days.keySet().removeIf(existing -> existing.isBefore(oldestDay));
+        }
+        return histograms;
+    }
+
+    private static LocalDate dayOf(Order order) {
+        return order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now();
+    }
+
+    private static long countItems(Order order) {
+        return order.getOrderItems().stream().mapToLong(OrderItem::getQuantity).sum();
+    }
+
+    private static final class DailyHistograms {
+        final LogHistogram orderValueCents = new LogHistogram(MAX_ORDER_VALUE_CENTS);
+        final LogHistogram itemsPerOrder = new LogHistogram(MAX_ITEMS_PER_ORDER);
+        final LogHistogram checkoutLatencyMicros = new LogHistogram(MAX_LATENCY_MICROS);
+
+        void recordOrder(long valueCents, long items) {
+            orderValueCents.record(valueCents);
+            itemsPerOrder.record(items);
+        }
+    }
+
+    // Classes d'aide
+    @lombok.Builder
+    @lombok.Data
+    public static class OrderDistribution {
+        private long orderCount;
+        private BigDecimal orderValueP50;
+        private BigDecimal orderValueP90;
+        private BigDecimal orderValueP99;
+        private long itemsPerOrderP50;
+        private long itemsPerOrderP90;
+        private long itemsPerOrderP99;
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class LatencyStatistics {
+        private long count;
+        private double meanMillis;
+        private double p50Millis;
+        private double p90Millis;
+        private double p99Millis;
+        private double maxMillis;
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.book_store_backend.service;
 
+import com.example.book_store_backend.dto.OrderSummaryDTO;
 import com.example.book_store_backend.entity.*;
+import com.example.book_store_backend.repository.OrderItemRepository;
 import com.example.book_store_backend.repository.OrderRepository;
+import com.example.book_store_backend.util.Money;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -12,8 +15,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.Map;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -21,14 +24,35 @@ import java.util.Map;
 @Transactional
 public class OrderService {
 
+    private static final int MAX_BULK_ORDERS = 10_000;
+    private static final int BULK_CHUNK_SIZE = 1_000;
+
     private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
     private final CustomerService customerService;
     private final BookService bookService;
+    private final OrderAnalyticsService orderAnalyticsService;
+    private final OrderMetricsService orderMetricsService;
+    private final OrderSummaryService orderSummaryService;
+    private final OrderArchiveService orderArchiveService;
+    private final PricingEngine pricingEngine;
+    private final DailyOfferService dailyOfferService;
+    private final CustomerValueEngine customerValueEngine;
+    private final BusinessMetrics businessMetrics;
 
     /**
      * Créer une nouvelle commande
      */
     public Order createOrder(Long customerId, List<OrderItemRequest> items, String shippingAddress, String notes) {
+        return createOrder(customerId, items, shippingAddress, notes, null);
+    }
+
+    /**
+     * Créer une commande aux prix unitaires confirmés au client (centimes par livre, ex. panier) :
+     * la commande est refusée si un prix effectif diffère, par exemple une offre épuisée entre-temps
+     */
+    public Order createOrder(Long customerId, List<OrderItemRequest> items, String shippingAddress, String notes,
+                             Map<Long, Long> expectedUnitPriceCents) {
         log.info("Création d'une nouvelle commande pour le client ID: {}", customerId);
 
         // Récupérer le client
@@ -43,14 +67,15 @@ public class OrderService {
         order.setStatus(OrderStatus.PENDING);
         order.setPaymentStatus(PaymentStatus.PENDING);
 
-        // Traiter les articles de la commande
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        // Traiter les articles de la commande (total cumulé en centimes)
+        long totalCents = 0;
 
         for (OrderItemRequest itemRequest : items) {
             Book book = bookService.getBookById(itemRequest.getBookId());
 
             // Vérifier le stock
             if (book.getStockQuantity() < itemRequest.getQuantity()) {
+                businessMetrics.recordOrderStockFailure();
                 throw new IllegalArgumentException("Stock insuffisant pour le livre: " + book.getTitle());
             }
 
@@ -59,34 +84,66 @@ public class OrderService {
             orderItem.setBook(book);
             orderItem.setQuantity(itemRequest.getQuantity());
             orderItem.setPrice(book.getPrice());
+            applyDailyOffer(orderItem, book, itemRequest.getQuantity());
+            Long expectedCents = expectedUnitPriceCents != null ? expectedUnitPriceCents.get(book.getId()) : null;
+            if (expectedCents != null && expectedCents != Money.toMinorUnits(orderItem.getPrice())) {
+                throw new IllegalStateException("Le prix de certains articles a changé, veuillez vérifier le panier");
+            }
             orderItem.setBookTitle(book.getTitle());
             orderItem.setBookAuthor(book.getAuthor());
 
             order.addOrderItem(orderItem);
 
             // Calculer le sous-total
-            BigDecimal subTotal = book.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
-            totalAmount = totalAmount.add(subTotal);
+            totalCents = Math.addExact(totalCents, orderItem.subTotalCents());
 
             // Réduire le stock
             bookService.reduceStock(book.getId(), itemRequest.getQuantity());
         }
 
-        order.setTotalAmount(totalAmount);
+        order.setTotalAmount(Money.toBigDecimal(totalCents));
 
         Order savedOrder = orderRepository.save(order);
+        orderSummaryService.project(savedOrder);
+        orderAnalyticsService.recordOrder(savedOrder);
+        orderMetricsService.recordOrder(savedOrder);
+        customerValueEngine.recordOrder(savedOrder);
+        businessMetrics.recordOrderCreated();
         log.info("Commande créée avec succès. Numéro: {}, Total: {}", savedOrder.getOrderNumber(), savedOrder.getTotalAmount());
         return savedOrder;
     }
 
+    /**
+     * Appliquer la meilleure offre du jour au prix de l'article si ses unités peuvent être réservées
+     */
+    private void applyDailyOffer(OrderItem orderItem, Book book, int quantity) {
+        PricingEngine.AppliedOffer offer = pricingEngine.findBookOffer(book.getId());
+        if (offer == null || offer.getPriceCents() >= Money.toMinorUnits(book.getPrice())) {
+            return;
+        }
+        if (dailyOfferService.tryRecordSale(offer.getOfferId(), quantity)) {
+            orderItem.setPrice(Money.toBigDecimal(offer.getPriceCents()));
+            orderItem.setAppliedOfferId(offer.getOfferId());
+        }
+    }
+
     /**
      * Mettre à jour le statut d'une commande
      */
     public Order updateOrderStatus(Long orderId, OrderStatus newStatus) {
         log.info("Mise à jour du statut de la commande ID: {} vers {}", orderId, newStatus);
 
-        Order order = getOrderById(orderId);
+        // Une annulation suit le même chemin que l'annulation explicite (stock, remboursement, statistiques)
+        if (newStatus == OrderStatus.CANCELLED) {
+            return cancelOrder(orderId, null);
+        }
+
+        Order order = getActiveOrder(orderId);
         OrderStatus oldStatus = order.getStatus();
+        if (oldStatus == newStatus) {
+            return order;
+        }
+        checkTransition(oldStatus, newStatus);
         order.setStatus(newStatus);
 
         // Mettre à jour les dates selon le statut
@@ -101,26 +158,121 @@ public class OrderService {
                     order.setDeliveredAt(LocalDateTime.now());
                 }
                 break;
-            case CANCELLED:
-                // Restaurer le stock si la commande est annulée
-                if (oldStatus != OrderStatus.CANCELLED) {
-                    restoreStockFromCancelledOrder(order);
-                }
-                break;
         }
 
         Order updatedOrder = orderRepository.save(order);
+        orderSummaryService.project(updatedOrder);
+        orderAnalyticsService.recordStatusChange(orderId, newStatus, null);
+        businessMetrics.recordStatusChanges(newStatus, 1);
         log.info("Statut de la commande mis à jour avec succès");
         return updatedOrder;
     }
 
+    /**
+     * Mettre à jour le statut d'un lot de commandes
+     * La machine à états est validée en mémoire, puis les transitions sont appliquées
+     * par des UPDATE ensemblistes (un par statut d'origine et par tranche d'IDs)
+     */
+    public BulkStatusResult bulkUpdateOrderStatus(List<Long> orderIds, OrderStatus newStatus) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            throw new IllegalArgumentException("La liste des commandes ne peut pas être vide");
+        }
+        if (newStatus == null) {
+            throw new IllegalArgumentException("Le statut cible est obligatoire");
+        }
+        if (orderIds.size() > MAX_BULK_ORDERS) {
+            throw new IllegalArgumentException("Au plus " + MAX_BULK_ORDERS + " commandes par lot");
+        }
+        log.info("Mise à jour groupée de {} commandes vers {}", orderIds.size(), newStatus);
+
+        // Horodatage du lot (précision microseconde) : sert aussi à reconnaître nos propres mises à jour
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Set<Long> distinctIds = new LinkedHashSet<>(orderIds);
+        Map<Long, OrderTransitionResult> results = new HashMap<>();
+
+        // Charger les statuts courants et valider les transitions en mémoire
+        Map<Long, Object[]> currentStates = new HashMap<>();
+        for (List<Long> chunk : chunks(distinctIds)) {
+            for (Object[] row : orderRepository.findStatusesByIdIn(chunk)) {
+                currentStates.put((Long) row[0], row);
+            }
+        }
+
+        Map<OrderStatus, List<Long>> eligibleByStatus = new EnumMap<>(OrderStatus.class);
+        for (Long id : distinctIds) {
+            Object[] state = currentStates.get(id);
+            if (state == null) {
+                results.put(id, transitionResult(id, null, newStatus, TransitionOutcome.NOT_FOUND,
+                        "Commande non trouvée"));
+                continue;
+            }
+            OrderStatus currentStatus = (OrderStatus) state[1];
+            String transitionError = currentStatus != newStatus ? transitionError(currentStatus, newStatus) : null;
+            if (currentStatus == newStatus) {
+                results.put(id, transitionResult(id, currentStatus, newStatus, TransitionOutcome.UNCHANGED,
+                        "La commande est déjà au statut " + newStatus));
+            } else if (transitionError != null) {
+                results.put(id, transitionResult(id, currentStatus, newStatus, TransitionOutcome.INVALID_TRANSITION,
+                        transitionError));
+            } else {
+                eligibleByStatus.computeIfAbsent(currentStatus, status -> new ArrayList<>()).add(id);
+            }
+        }
+
+        // Appliquer les transitions
+        List<Long> updatedIds = new ArrayList<>();
+        for (Map.Entry<OrderStatus, List<Long>> entry : eligibleByStatus.entrySet()) {
+            OrderStatus fromStatus = entry.getKey();
+            for (List<Long> chunk : chunks(entry.getValue())) {
+                int updated = applyStatusTransition(chunk, fromStatus, newStatus, now);
+                Set<Long> applied = updated == chunk.size()
+                        ? new HashSet<>(chunk)
+                        : findOwnUpdates(chunk, newStatus, now);
+                for (Long id : chunk) {
+                    if (applied.contains(id)) {
+                        updatedIds.add(id);
+                        results.put(id, transitionResult(id, fromStatus, newStatus, TransitionOutcome.UPDATED, null));
+                    } else {
+                        results.put(id, transitionResult(id, fromStatus, newStatus, TransitionOutcome.CONFLICT,
+                                "La commande a été modifiée simultanément"));
+                    }
+                }
+            }
+        }
+
+        orderSummaryService.applyStatusChange(updatedIds, newStatus, now);
+        PaymentStatus paymentStatus = null;
+        if (newStatus == OrderStatus.CANCELLED) {
+            restoreStockFromCancelledOrders(updatedIds, currentStates);
+            paymentStatus = PaymentStatus.REFUNDED;
+        }
+        for (Long id : updatedIds) {
+            orderAnalyticsService.recordStatusChange(id, newStatus, paymentStatus);
+        }
+        businessMetrics.recordStatusChanges(newStatus, updatedIds.size());
+
+        List<OrderTransitionResult> orderedResults = new ArrayList<>(distinctIds.size());
+        for (Long id : distinctIds) {
+            orderedResults.add(results.get(id));
+        }
+        log.info("Mise à jour groupée terminée: {} commandes sur {} passées à {}", updatedIds.size(), distinctIds.size(), newStatus);
+
+        return BulkStatusResult.builder()
+                .targetStatus(newStatus)
+                .requested(distinctIds.size())
+                .updated(updatedIds.size())
+                .failed(distinctIds.size() - updatedIds.size())
+                .results(orderedResults)
+                .build();
+    }
+
     /**
      * Mettre à jour le statut de paiement
      */
     public Order updatePaymentStatus(Long orderId, PaymentStatus paymentStatus) {
         log.info("Mise à jour du statut de paiement de la commande ID: {} vers {}", orderId, paymentStatus);
 
-        Order order = getOrderById(orderId);
+        Order order = getActiveOrder(orderId);
         order.setPaymentStatus(paymentStatus);
 
         // Si le paiement est confirmé et que la commande est en attente, la passer en confirmée
@@ -128,73 +280,87 @@ public class OrderService {
             order.setStatus(OrderStatus.CONFIRMED);
         }
 
-        return orderRepository.save(order);
+        Order updatedOrder = orderRepository.save(order);
+        orderSummaryService.project(updatedOrder);
+        orderAnalyticsService.recordStatusChange(orderId, order.getStatus(), paymentStatus);
+        return updatedOrder;
     }
 
     /**
-     * Récupérer une commande par ID
+     * Récupérer une commande par ID (tables chaudes, puis archive)
      */
     @Transactional(readOnly = true)
     public Order getOrderById(Long id) {
         return orderRepository.findById(id)
+                .or(() -> orderArchiveService.findArchivedOrder(id))
                 .orElseThrow(() -> new RuntimeException("Commande non trouvée avec l'ID: " + id));
     }
 
     /**
-     * Récupérer une commande par numéro
+     * Récupérer une commande par numéro (tables chaudes, puis archive)
      */
     @Transactional(readOnly = true)
     public Order getOrderByNumber(String orderNumber) {
         return orderRepository.findByOrderNumber(orderNumber)
+                .or(() -> orderArchiveService.findArchivedOrderByNumber(orderNumber))
                 .orElseThrow(() -> new RuntimeException("Commande non trouvée avec le numéro: " + orderNumber));
     }
 
     /**
-     * Récupérer toutes les commandes avec pagination
+     * Récupérer une commande modifiable : une commande archivée est en lecture seule
+     */
+    private Order getActiveOrder(Long id) {
+        return orderRepository.findById(id).orElseThrow(() -> orderArchiveService.isArchived(id)
+                ? new IllegalStateException("La commande " + id + " est archivée et ne peut plus être modifiée")
+                : new RuntimeException("Commande non trouvée avec l'ID: " + id));
+    }
+
+    /**
+     * Récupérer toutes les commandes avec pagination (modèle de lecture)
      */
     @Transactional(readOnly = true)
-    public Page<Order> getAllOrders(Pageable pageable) {
-        return orderRepository.findAllByOrderByCreatedAtDesc(pageable);
+    public Page<OrderSummaryDTO> getAllOrders(Pageable pageable) {
+        return orderSummaryService.getAllOrders(pageable);
     }
 
     /**
-     * Récupérer les commandes d'un client
+     * Récupérer les commandes d'un client (modèle de lecture)
      */
     @Transactional(readOnly = true)
-    public List<Order> getCustomerOrders(Long customerId) {
-        return orderRepository.findByCustomerIdOrderByCreatedAtDesc(customerId);
+    public List<OrderSummaryDTO> getCustomerOrders(Long customerId) {
+        return orderSummaryService.getCustomerOrders(customerId);
     }
 
     /**
-     * Récupérer les commandes d'un client avec pagination
+     * Récupérer les commandes d'un client avec pagination (modèle de lecture)
      */
     @Transactional(readOnly = true)
-    public Page<Order> getCustomerOrdersWithPagination(Long customerId, Pageable pageable) {
-        return orderRepository.findByCustomerIdOrderByCreatedAtDesc(customerId, pageable);
+    public Page<OrderSummaryDTO> getCustomerOrdersWithPagination(Long customerId, Pageable pageable) {
+        return orderSummaryService.getCustomerOrders(customerId, pageable);
     }
 
     /**
-     * Rechercher des commandes
+     * Rechercher des commandes (index en mémoire, page lue dans le modèle de lecture)
      */
     @Transactional(readOnly = true)
-    public List<Order> searchOrders(String keyword) {
-        return orderRepository.searchOrders(keyword);
+    public Page<OrderSummaryDTO> searchOrders(String keyword, Pageable pageable) {
+        return orderSummaryService.searchOrders(keyword, pageable);
     }
 
     /**
-     * Récupérer les commandes par statut
+     * Récupérer les commandes par statut (modèle de lecture)
      */
     @Transactional(readOnly = true)
-    public List<Order> getOrdersByStatus(OrderStatus status) {
-        return orderRepository.findByStatus(status);
+    public List<OrderSummaryDTO> getOrdersByStatus(OrderStatus status) {
+        return orderSummaryService.getOrdersByStatus(status);
     }
 
     /**
-     * Récupérer les commandes en attente de traitement
+     * Récupérer les commandes en attente de traitement (modèle de lecture)
      */
     @Transactional(readOnly = true)
-    public List<Order> getPendingOrders() {
-        return orderRepository.findPendingOrders();
+    public List<OrderSummaryDTO> getPendingOrders() {
+        return orderSummaryService.getPendingOrders();
     }
 
     /**
@@ -203,18 +369,13 @@ public class OrderService {
     public Order cancelOrder(Long orderId, String reason) {
         log.info("Annulation de la commande ID: {}", orderId);
 
-        Order order = getOrderById(orderId);
-
-        if (order.getStatus() == OrderStatus.DELIVERED) {
-            throw new IllegalStateException("Impossible d'annuler une commande déjà livrée");
-        }
-
-        if (order.getStatus() == OrderStatus.CANCELLED) {
-            throw new IllegalStateException("Cette commande est déjà annulée");
-        }
+        Order order = getActiveOrder(orderId);
+        checkTransition(order.getStatus(), OrderStatus.CANCELLED);
 
         // Restaurer le stock
         restoreStockFromCancelledOrder(order);
+        orderMetricsService.removeOrder(order);
+        customerValueEngine.removeOrder(order.getId(), order.getCustomer().getId(), order.getTotalAmount());
 
         // Mettre à jour le statut
         order.setStatus(OrderStatus.CANCELLED);
@@ -224,6 +385,9 @@ public class OrderService {
         }
 
         Order cancelledOrder = orderRepository.save(order);
+        orderSummaryService.project(cancelledOrder);
+        orderAnalyticsService.recordStatusChange(orderId, OrderStatus.CANCELLED, PaymentStatus.REFUNDED);
+        businessMetrics.recordStatusChanges(OrderStatus.CANCELLED, 1);
         log.info("Commande annulée avec succès");
         return cancelledOrder;
     }
@@ -233,27 +397,27 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderStatistics getOrderStatistics(LocalDateTime startDate, LocalDateTime endDate) {
-        List<Order> orders = orderRepository.findOrdersByDateRange(startDate, endDate);
+        // Agrégats lus dans le modèle de lecture, qui couvre aussi les commandes archivées
+        Object[] totals = orderSummaryService.getTotalsByDateRange(startDate, endDate);
+        long totalOrders = ((Number) totals[0]).longValue();
+        long completedOrders = totals[1] != null ? ((Number) totals[1]).longValue() : 0;
+        Money totalRevenue = totals[2] != null ? Money.of((BigDecimal) totals[2]) : Money.ZERO;
+        Money averageOrderValue = totalOrders > 0 ? totalRevenue.dividedBy(totalOrders) : Money.ZERO;
 
-        BigDecimal totalRevenue = orders.stream()
-                .filter(order -> order.getStatus() != OrderStatus.CANCELLED)
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        long totalOrders = orders.size();
-        long completedOrders = orders.stream()
-                .filter(order -> order.getStatus() == OrderStatus.DELIVERED)
-                .count();
-
-        BigDecimal averageOrderValue = totalOrders > 0 ?
-                totalRevenue.divide(BigDecimal.valueOf(totalOrders), 2, BigDecimal.ROUND_HALF_UP) :
-                BigDecimal.ZERO;
+        // Percentiles issus des histogrammes journaliers (sans relecture des commandes)
+        OrderMetricsService.OrderDistribution distribution = orderMetricsService.getOrderDistribution(startDate, endDate);
 
         return OrderStatistics.builder()
                 .totalOrders(totalOrders)
                 .completedOrders(completedOrders)
-                .totalRevenue(totalRevenue)
-                .averageOrderValue(averageOrderValue)
+                .totalRevenue(totalRevenue.toBigDecimal())
+                .averageOrderValue(averageOrderValue.toBigDecimal())
+                .orderValueP50(distribution.getOrderValueP50())
+                .orderValueP90(distribution.getOrderValueP90())
+                .orderValueP99(distribution.getOrderValueP99())
+                .itemsPerOrderP50(distribution.getItemsPerOrderP50())
+                .itemsPerOrderP90(distribution.getItemsPerOrderP90())
+                .itemsPerOrderP99(distribution.getItemsPerOrderP99())
                 .build();
     }
 
@@ -267,17 +431,127 @@ public class OrderService {
     }
 
     /**
-     * Restaurer le stock des articles d'une commande annulée
+     * Restaurer le stock et les unités d'offres des articles d'une commande annulée
      */
     private void restoreStockFromCancelledOrder(Order order) {
+        Map<Long, Integer> quantitiesByBook = new HashMap<>();
+        Map<Long, Integer> quantitiesByOffer = new HashMap<>();
         for (OrderItem item : order.getOrderItems()) {
-            Book book = item.getBook();
-            book.setStockQuantity(book.getStockQuantity() + item.getQuantity());
-            bookService.updateBook(book.getId(), book);
+            quantitiesByBook.merge(item.getBook().getId(), item.getQuantity(), Integer::sum);
+            if (item.getAppliedOfferId() != null) {
+                quantitiesByOffer.merge(item.getAppliedOfferId(), item.getQuantity(), Integer::sum);
+            }
         }
+        bookService.increaseStockBatch(quantitiesByBook);
+        dailyOfferService.releaseSales(quantitiesByOffer);
         log.info("Stock restauré pour la commande annulée: {}", order.getOrderNumber());
     }
 
+    /**
+     * Restaurer le stock et les unités d'offres d'un lot de commandes annulées : un seul incrément par livre
+     */
+    private void restoreStockFromCancelledOrders(List<Long> orderIds, Map<Long, Object[]> orderStates) {
+        Map<Long, Integer> quantitiesByBook = new HashMap<>();
+        Map<Long, Integer> quantitiesByOffer = new HashMap<>();
+        Map<Long, Long> itemsByOrder = new HashMap<>();
+        for (List<Long> chunk : chunks(orderIds)) {
+            for (Object[] row : orderItemRepository.findQuantitiesByOrderIdIn(chunk)) {
+                Integer quantity = (Integer) row[2];
+                quantitiesByBook.merge((Long) row[1], quantity, Integer::sum);
+                itemsByOrder.merge((Long) row[0], quantity.longValue(), Long::sum);
+                if (row[3] != null) {
+                    quantitiesByOffer.merge((Long) row[3], quantity, Integer::sum);
+                }
+            }
+        }
+        bookService.increaseStockBatch(quantitiesByBook);
+        dailyOfferService.releaseSales(quantitiesByOffer);
+
+        for (Long id : orderIds) {
+            Object[] state = orderStates.get(id);
+            LocalDateTime createdAt = (LocalDateTime) state[2];
+            orderMetricsService.removeOrder(createdAt != null ? createdAt.toLocalDate() : null,
+                    (BigDecimal) state[3], itemsByOrder.getOrDefault(id, 0L));
+            customerValueEngine.removeOrder(id, (Long) state[4], (BigDecimal) state[3]);
+        }
+    }
+
+    /**
+     * Valider une transition de statut (commande seule, annulation et lot partagent la même machine à états)
+     */
+    private static void checkTransition(OrderStatus currentStatus, OrderStatus newStatus) {
+        String error = transitionError(currentStatus, newStatus);
+        if (error != null) {
+            throw new IllegalStateException(error);
+        }
+    }
+
+    private static String transitionError(OrderStatus currentStatus, OrderStatus newStatus) {
+        if (currentStatus.canTransitionTo(newStatus)) {
+            return null;
+        }
+        if (currentStatus == OrderStatus.CANCELLED) {
+            return newStatus == OrderStatus.CANCELLED
+                    ? "Cette commande est déjà annulée"
+                    : "Une commande annulée ne peut plus changer de statut";
+        }
+        if (currentStatus == OrderStatus.DELIVERED && newStatus == OrderStatus.CANCELLED) {
+            return "Impossible d'annuler une commande déjà livrée";
+        }
+        return "Transition " + currentStatus + " -> " + newStatus + " non autorisée";
+    }
+
+    private int applyStatusTransition(List<Long> ids, OrderStatus fromStatus, OrderStatus newStatus, LocalDateTime now) {
+        switch (newStatus) {
+            case CANCELLED:
+                return orderRepository.updateStatusAndPaymentStatus(ids, fromStatus, newStatus, PaymentStatus.REFUNDED, now);
+            case SHIPPED:
+                return orderRepository.updateStatusAndShippedAt(ids, fromStatus, newStatus, now);
+            case DELIVERED:
+                return orderRepository.updateStatusAndDeliveredAt(ids, fromStatus, newStatus, now);
+            default:
+                return orderRepository.updateStatus(ids, fromStatus, newStatus, now);
+        }
+    }
+
+    // Relire un lot partiellement appliqué : nos lignes portent le statut cible et l'horodatage du lot
+    private Set<Long> findOwnUpdates(List<Long> ids, OrderStatus newStatus, LocalDateTime now) {
+        Set<Long> applied = new HashSet<>();
+        for (Order order : orderRepository.findAllById(ids)) {
+            if (order.getStatus() == newStatus && now.equals(order.getUpdatedAt())) {
+                applied.add(order.getId());
+            }
+        }
+        return applied;
+    }
+
+    private static <T> List<List<T>> chunks(Collection<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> current = new ArrayList<>(BULK_CHUNK_SIZE);
+        for (T value : values) {
+            current.add(value);
+            if (current.size() == BULK_CHUNK_SIZE) {
+                chunks.add(current);
+                current = new ArrayList<>(BULK_CHUNK_SIZE);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    private static OrderTransitionResult transitionResult(Long orderId, OrderStatus previousStatus, OrderStatus newStatus,
+                                                          TransitionOutcome outcome, String message) {
+        return OrderTransitionResult.builder()
+                .orderId(orderId)
+                .previousStatus(previousStatus)
+                .newStatus(outcome == TransitionOutcome.UPDATED ? newStatus : previousStatus)
+                .outcome(outcome)
+                .message(message)
+                .build();
+    }
+
     // Classes d'aide
     public static class OrderItemRequest {
         private Long bookId;
@@ -305,5 +579,35 @@ public class OrderService {
         private long completedOrders;
         private BigDecimal totalRevenue;
         private BigDecimal averageOrderValue;
+        private BigDecimal orderValueP50;
+        private BigDecimal orderValueP90;
+        private BigDecimal orderValueP99;
+        private long itemsPerOrderP50;
+        private long itemsPerOrderP90;
+        private long itemsPerOrderP99;
+    }
+
+    public enum TransitionOutcome {
+        UPDATED, UNCHANGED, NOT_FOUND, INVALID_TRANSITION, CONFLICT
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class OrderTransitionResult {
+        private Long orderId;
+        private OrderStatus previousStatus;
+        private OrderStatus newStatus;
+        private TransitionOutcome outcome;
+        private String message;
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class BulkStatusResult {
+        private OrderStatus targetStatus;
+        private int requested;
+        private int updated;
+        private int failed;
+        private List<OrderTransitionResult> results;
     }
 }
\ No newline at end of file
@@ -0,0 +1,218 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.dto.OrderSummaryDTO;
+import com.example.book_store_backend.entity.Customer;
+import com.example.book_store_backend.entity.Order;
+import com.example.book_store_backend.entity.OrderItem;
+import com.example.book_store_backend.entity.OrderStatus;
+import com.example.book_store_backend.entity.OrderSummary;
+import com.example.book_store_backend.entity.PaymentStatus;
+import com.example.book_store_backend.repository.OrderRepository;
+import com.example.book_store_backend.repository.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Modèle de lecture des commandes (CQRS) : maintenu dans la transaction de chaque écriture
+ * de commande, il sert les listes et recherches par lecture d'une seule table indexée.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class OrderSummaryService {
+
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final OrderRepository orderRepository;
+    private final OrderLookupIndex orderLookupIndex;
+
+    /**
+     * Construire les résumés manquants au démarrage (commandes antérieures au modèle de lecture).
+     * Toujours exécuté : les résumés des commandes archivées restent, les compteurs ne se comparent pas
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(1)
+    public void backfillSummaries() {
+        int inserted = orderSummaryRepository.insertMissingSummaries();
+        log.info("Modèle de lecture des commandes: {} résumés construits", inserted);
+    }
+
+    /**
+     * Projeter l'état courant d'une commande dans le modèle de lecture
+     */
+    public void project(Order order) {
+        // @UpdateTimestamp n'est renseigné qu'au flush
+        orderRepository.flush();
+        Customer customer = order.getCustomer();
+        int itemCount = order.getOrderItems().stream().mapToInt(OrderItem::getQuantity).sum();
+
+        OrderSummary summary = new OrderSummary(
+                order.getId(),
+                order.getOrderNumber(),
+                customer.getId(),
+                fullName(customer),
+                customer.getEmail(),
+                itemCount,
+                order.getTotalAmount(),
+                order.getStatus(),
+                order.getPaymentStatus(),
+                order.getCreatedAt(),
+                order.getUpdatedAt(),
+                order.getShippedAt(),
+                order.getDeliveredAt());
+        orderSummaryRepository.save(summary);
+        orderLookupIndex.addOrder(order.getId(), order.getOrderNumber(), customer.getId(), summary.getCustomerName());
+    }
+
+    /**
+     * Répercuter une transition de statut ensembliste
+     */
+    public void applyStatusChange(Collection<Long> orderIds, OrderStatus status, LocalDateTime now) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        switch (status) {
+            case SHIPPED:
+                orderSummaryRepository.updateStatusAndShippedAt(orderIds, status, now);
+                break;
+            case DELIVERED:
+                orderSummaryRepository.updateStatusAndDeliveredAt(orderIds, status, now);
+                break;
+            case CANCELLED:
+                orderSummaryRepository.updateStatusAndPaymentStatus(orderIds, status, PaymentStatus.REFUNDED, now);
+                break;
+            default:
+                orderSummaryRepository.updateStatus(orderIds, status, now);
+        }
+    }
+
+    /**
+     * Répercuter un changement de nom ou d'email du client
+     */
+    public void updateCustomerIdentity(Customer customer) {
+        orderSummaryRepository.updateCustomerIdentity(customer.getId(), fullName(customer), customer.getEmail());
+        orderLookupIndex.renameCustomer(customer.getId(), fullName(customer));
+    }
+
+    /**
+     * Rattacher les résumés de clients fusionnés au client conservé
+     */
+    public int reassignCustomer(Collection<Long> fromCustomerIds, Customer customer) {
+        int updated = orderSummaryRepository.reassignCustomer(fromCustomerIds, customer.getId(),
+                fullName(customer), customer.getEmail());
+        for (Long fromCustomerId : fromCustomerIds) {
+            orderLookupIndex.reassignCustomer(fromCustomerId, customer.getId(), fullName(customer));
+        }
+        return updated;
+    }
+
+    /**
+     * Supprimer les résumés d'un client supprimé définitivement
+     */
+    public void deleteCustomerSummaries(Long customerId) {
+        orderSummaryRepository.deleteByCustomerId(customerId);
+        orderLookupIndex.removeCustomer(customerId);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<OrderSummaryDTO> getAllOrders(Pageable pageable) {
+        return orderSummaryRepository.findAllByOrderByCreatedAtDesc(pageable).map(OrderSummaryService::toDTO);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderSummaryDTO> getCustomerOrders(Long customerId) {
+        return toDTOs(orderSummaryRepository.findByCustomerIdOrderByCreatedAtDesc(customerId));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<OrderSummaryDTO> getCustomerOrders(Long customerId, Pageable pageable) {
+        return orderSummaryRepository.findByCustomerIdOrderByCreatedAtDesc(customerId, pageable)
+                .map(OrderSummaryService::toDTO);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderSummaryDTO> getOrdersByStatus(OrderStatus status) {
+        return toDTOs(orderSummaryRepository.findByStatusOrderByCreatedAtDesc(status));
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderSummaryDTO> getPendingOrders() {
+        return toDTOs(orderSummaryRepository.findPendingOrders());
+    }
+
+    /**
+     * Rechercher par numéro de commande ou nom de client : identifiants résolus par l'index en mémoire,
+     * seule la page demandée est lue en base
+     */
+    @Transactional(readOnly = true)
+    public Page<OrderSummaryDTO> searchOrders(String keyword, Pageable pageable) {
+        long[] matches = orderLookupIndex.search(keyword);
+        int from = (int) Math.min(pageable.getOffset(), matches.length);
+        int to = Math.min(from + pageable.getPageSize(), matches.length);
+
+        List<Long> pageIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            pageIds.add(matches[i]);
+        }
+        Map<Long, OrderSummary> summaries = orderSummaryRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(OrderSummary::getOrderId, Function.identity()));
+
+        List<OrderSummaryDTO> content = pageIds.stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .map(OrderSummaryService::toDTO)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, matches.length);
+    }
+
+    @Transactional(readOnly = true)
+    public Object[] getTotalsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        return orderSummaryRepository.getTotalsByDateRange(startDate, endDate).get(0);
+    }
+
+    public static OrderSummaryDTO toDTO(OrderSummary summary) {
+        OrderSummaryDTO dto = new OrderSummaryDTO();
+        dto.setId(summary.getOrderId());
+        dto.setOrderNumber(summary.getOrderNumber());
+        dto.setCustomerId(summary.getCustomerId());
+        dto.setCustomerName(summary.getCustomerName());
+        dto.setCustomerEmail(summary.getCustomerEmail());
+        dto.setItemCount(summary.getItemCount());
+        dto.setTotalAmount(summary.getTotalAmount());
+        dto.setStatus(summary.getStatus().name());
+        dto.setPaymentStatus(summary.getPaymentStatus().name());
+        dto.setCreatedAt(format(summary.getCreatedAt()));
+        dto.setUpdatedAt(format(summary.getUpdatedAt()));
+        dto.setShippedAt(format(summary.getShippedAt()));
+        dto.setDeliveredAt(format(summary.getDeliveredAt()));
+        return dto;
+    }
+
+    private static List<OrderSummaryDTO> toDTOs(List<OrderSummary> summaries) {
+        return summaries.stream().map(OrderSummaryService::toDTO).collect(Collectors.toList());
+    }
+
+    private static String format(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toString() : null;
+    }
+
+    private static String fullName(Customer customer) {
+        return customer.getFirstName() + " " + customer.getLastName();
+    }
+}
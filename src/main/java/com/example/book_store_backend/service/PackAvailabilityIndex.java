@@ -0,0 +1,169 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.ChangeEntityType;
+import com.example.book_store_backend.entity.PackItem;
+import com.example.book_store_backend.repository.PackItemRepository;
+import com.example.book_store_backend.service.BookCatalogCache.BookSnapshot;
+import com.example.book_store_backend.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Disponibilité des packs dérivée de leurs livres : min sur les composants de stock / quantité par pack.
+ * Un index inverse livre -> packs permet de ne recalculer que les packs concernés à chaque variation
+ * de stock signalée par le catalogue ; les lectures ne font ni jointure ni agrégat.
+ */
+@Service
+@Slf4j
+public class PackAvailabilityIndex implements ChangeSubscriber {
+
+    private final PackItemRepository packItemRepository;
+    private final BookCatalogCache bookCatalogCache;
+
+    private final Map<Long, Composition> compositions = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> packsByBook = new ConcurrentHashMap<>();
+
+    public PackAvailabilityIndex(PackItemRepository packItemRepository, BookCatalogCache bookCatalogCache) {
+        this.packItemRepository = packItemRepository;
+        this.bookCatalogCache = bookCatalogCache;
+        bookCatalogCache.addListener(this::onBookChanged);
+    }
+
+    /**
+     * Charger les compositions au démarrage, après le catalogue des livres
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public void loadIndex() {
+        List<PackItem> items = packItemRepository.findAll();
+        for (PackItem item : items) {
+            putComponent(item.getPackId(), item.getBookId(), item.getQuantity());
+        }
+        compositions.values().forEach(this::recompute);
+        log.info("Disponibilité des packs calculée: {} packs composés, {} lignes", compositions.size(), items.size());
+    }
+
+    /**
+     * Quantité de packs disponible, ou null si le pack n'a pas de composition
+     */
+    public Integer getAvailableQuantity(Long packId) {
+        Composition composition = compositions.get(packId);
+        return composition != null ? composition.available : null;
+    }
+
+    /**
+     * Ajouter ou modifier un composant (après commit)
+     */
+    public void setComponent(Long packId, Long bookId, int quantity) {
+        TransactionUtils.runAfterCommit(() -> recompute(putComponent(packId, bookId, quantity)));
+    }
+
+    /**
+     * Retirer un composant (après commit)
+     */
+    public void removeComponent(Long packId, Long bookId) {
+        TransactionUtils.runAfterCommit(() -> {
+            Composition composition = compositions.get(packId);
+            if (composition == null) {
+                return;
+            }
+            composition.quantities.remove(bookId);
+            unlink(bookId, packId);
+            if (composition.quantities.isEmpty()) {
+                compositions.remove(packId);
+            } else {
+                recompute(composition);
+            }
+        });
+    }
+
+    @Override
+    public Set<ChangeEntityType> getSubscribedTypes() {
+        return Set.of(ChangeEntityType.PACK);
+    }
+
+    /**
+     * Recharger la composition des packs modifiés par une autre instance
+     * (les variations de stock arrivent par le catalogue des livres)
+     */
+    @Override
+    public void onRemoteChanges(ChangeEntityType type, Set<Long> ids) {
+        for (Long packId : ids) {
+            List<PackItem> items = packItemRepository.findByPackIdOrderById(packId);
+            Composition previous = compositions.remove(packId);
+            if (previous != null) {
+                previous.quantities.keySet().forEach(bookId -> unlink(bookId, packId));
+            }
+            if (items.isEmpty()) {
+                continue;
+            }
+            Composition composition = null;
+            for (PackItem item : items) {
+                composition = putComponent(packId, item.getBookId(), item.getQuantity());
+            }
+            recompute(composition);
+        }
+    }
+
+    private void onBookChanged(Long bookId, BookSnapshot snapshot) {
+        // Livre supprimé définitivement : ses lignes de pack ont été supprimées avec lui
+        Set<Long> packIds = snapshot == null ? packsByBook.remove(bookId) : packsByBook.get(bookId);
+        if (packIds == null) {
+            return;
+        }
+        for (Long packId : packIds) {
+            Composition composition = compositions.get(packId);
+            if (composition == null) {
+                continue;
+            }
+            if (snapshot == null) {
+                composition.quantities.remove(bookId);
+                if (composition.quantities.isEmpty()) {
+                    compositions.remove(packId);
+                    continue;
+                }
+            }
+            recompute(composition);
+        }
+    }
+
+    private Composition putComponent(Long packId, Long bookId, int quantity) {
+        Composition composition = compositions.computeIfAbsent(packId, id -> new Composition());
+        composition.quantities.put(bookId, quantity);
+        packsByBook.computeIfAbsent(bookId, id -> ConcurrentHashMap.newKeySet()).add(packId);
+        return composition;
+    }
+
+    private void unlink(Long bookId, Long packId) {
+        packsByBook.computeIfPresent(bookId, (id, packIds) -> {
+            packIds.remove(packId);
+            return packIds.isEmpty() ? null : packIds;
+        });
+    }
+
+    // Recalcul sous le verrou du pack : le dernier recalcul lit toujours le stock le plus récent
+    private void recompute(Composition composition) {
+        synchronized (composition) {
+            int available = Integer.MAX_VALUE;
+            for (Map.Entry<Long, Integer> component : composition.quantities.entrySet()) {
+                BookSnapshot book = bookCatalogCache.get(component.getKey()).orElse(null);
+                int stock = book != null && book.isActive() ? book.getStockQuantity() : 0;
+                available = Math.min(available, Math.max(0, stock) / component.getValue());
+            }
+            composition.available = available == Integer.MAX_VALUE ? 0 : available;
+        }
+    }
+
+    private static final class Composition {
+        final Map<Long, Integer> quantities = new ConcurrentHashMap<>();
+        volatile int available;
+    }
+}
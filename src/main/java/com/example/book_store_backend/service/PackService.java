@@ -1,7 +1,10 @@
 package com.example.book_store_backend.service;
 
+import com.example.book_store_backend.entity.ChangeEntityType;
 import com.example.book_store_backend.entity.Pack;
 import com.example.book_store_backend.entity.DailyOffer;
+import com.example.book_store_backend.entity.PackItem;
+import com.example.book_store_backend.repository.PackItemRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,6 +23,10 @@ interface PackRepository extends org.springframework.data.jpa.repository.JpaRepo
     List<Pack> findByNameContainingIgnoreCaseAndIsActiveTrue(String name);
 
     @org.springframework.data.jpa.repository.Query("SELECT DISTINCT p.category FROM Pack p WHERE p.category IS NOT NULL AND p.isActive = true")
+    @org.springframework.data.jpa.repository.QueryHints({
+            @jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_CACHEABLE, value = "true"),
+            @jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION, value = "catalog-queries")
+    })
     List<String> findDistinctCategories();
 }
 
@@ -34,6 +41,13 @@ interface DailyOfferRepository extends org.springframework.data.jpa.repository.J
 
     List<DailyOffer> findByBookIdAndIsActiveTrue(Long bookId);
     List<DailyOffer> findByPackIdAndIsActiveTrue(Long packId);
+
+    @org.springframework.data.jpa.repository.Modifying
+    @org.springframework.data.jpa.repository.Query("UPDATE DailyOffer d SET d.isActive = false, d.updatedAt = :now " +
+            "WHERE d.id IN :ids AND d.isActive = true AND d.endDate < :currentDate")
+    int deactivateExpiredOffers(@org.springframework.data.repository.query.Param("ids") java.util.Collection<Long> ids,
+                                @org.springframework.data.repository.query.Param("currentDate") LocalDate currentDate,
+                                @org.springframework.data.repository.query.Param("now") java.time.LocalDateTime now);
 }
 
 // ======== PACK SERVICE ========
@@ -44,6 +58,11 @@ interface DailyOfferRepository extends org.springframework.data.jpa.repository.J
 public class PackService {
 
     private final PackRepository packRepository;
+    private final PricingEngine pricingEngine;
+    private final PackItemRepository packItemRepository;
+    private final PackAvailabilityIndex packAvailabilityIndex;
+    private final BookCatalogCache bookCatalogCache;
+    private final ChangeOutboxService changeOutboxService;
 
     /**
      * Créer un nouveau pack
@@ -58,7 +77,9 @@ public class PackService {
             pack.setIsFeatured(false);
         }
 
-        Pack savedPack = packRepository.save(pack);
+        Pack savedPack = withAvailability(packRepository.save(pack));
+        pricingEngine.rebuildAfterCommit();
+        changeOutboxService.publish(ChangeEntityType.PACK, savedPack.getId());
         log.info("Pack créé avec succès. ID: {}", savedPack.getId());
         return savedPack;
     }
@@ -80,7 +101,9 @@ public class PackService {
         existingPack.setStockQuantity(packDetails.getStockQuantity());
         existingPack.setCategory(packDetails.getCategory());
 
-        Pack updatedPack = packRepository.save(existingPack);
+        Pack updatedPack = withAvailability(packRepository.save(existingPack));
+        pricingEngine.rebuildAfterCommit();
+        changeOutboxService.publish(ChangeEntityType.PACK, updatedPack.getId());
         log.info("Pack mis à jour avec succès. ID: {}", updatedPack.getId());
         return updatedPack;
     }
@@ -90,8 +113,8 @@ public class PackService {
      */
     @Transactional(readOnly = true)
     public Pack getPackById(Long id) {
-        return packRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Pack non trouvé avec l'ID: " + id));
+        return withAvailability(packRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Pack non trouvé avec l'ID: " + id)));
     }
 
     /**
@@ -99,7 +122,7 @@ public class PackService {
      */
     @Transactional(readOnly = true)
     public List<Pack> getAllActivePacks() {
-        return packRepository.findByIsActiveTrueOrderByCreatedAtDesc();
+        return withAvailability(packRepository.findByIsActiveTrueOrderByCreatedAtDesc());
     }
 
     /**
@@ -107,7 +130,7 @@ public class PackService {
      */
     @Transactional(readOnly = true)
     public List<Pack> getAllPacks() {
-        return packRepository.findAll();
+        return withAvailability(packRepository.findAll());
     }
 
     /**
@@ -115,7 +138,7 @@ public class PackService {
      */
     @Transactional(readOnly = true)
     public List<Pack> getFeaturedPacks() {
-        return packRepository.findByIsFeaturedTrue();
+        return withAvailability(packRepository.findByIsFeaturedTrue());
     }
 
     /**
@@ -123,7 +146,7 @@ public class PackService {
      */
     @Transactional(readOnly = true)
     public List<Pack> getPacksByCategory(String category) {
-        return packRepository.findByCategoryAndIsActiveTrue(category);
+        return withAvailability(packRepository.findByCategoryAndIsActiveTrue(category));
     }
 
     /**
@@ -131,7 +154,7 @@ public class PackService {
      */
     @Transactional(readOnly = true)
     public List<Pack> searchPacks(String keyword) {
-        return packRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(keyword);
+        return withAvailability(packRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(keyword));
     }
 
     /**
@@ -142,6 +165,7 @@ public class PackService {
         Pack pack = getPackById(id);
         pack.setIsActive(false);
         packRepository.save(pack);
+        changeOutboxService.publish(ChangeEntityType.PACK, id);
         log.info("Pack supprimé (désactivé) avec succès. ID: {}", id);
     }
 
@@ -151,7 +175,8 @@ public class PackService {
     public Pack toggleFeaturedStatus(Long id) {
         Pack pack = getPackById(id);
         pack.setIsFeatured(!pack.getIsFeatured());
-        return packRepository.save(pack);
+        changeOutboxService.publish(ChangeEntityType.PACK, id);
+        return withAvailability(packRepository.save(pack));
     }
 
     /**
@@ -161,5 +186,65 @@ public class PackService {
     public List<String> getAllPackCategories() {
         return packRepository.findDistinctCategories();
     }
+
+    /**
+     * Récupérer la composition d'un pack
+     */
+    @Transactional(readOnly = true)
+    public List<PackItem> getPackItems(Long packId) {
+        getPackById(packId);
+        return packItemRepository.findByPackIdOrderById(packId);
+    }
+
+    /**
+     * Ajouter un livre à un pack ou modifier sa quantité par pack
+     */
+    public PackItem setPackItem(Long packId, Long bookId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("La quantité doit être supérieure à 0");
+        }
+        Pack pack = getPackById(packId);
+        if (bookCatalogCache.get(bookId).isEmpty()) {
+            throw new RuntimeException("Livre non trouvé avec l'ID: " + bookId);
+        }
+
+        PackItem item = packItemRepository.findByPackIdAndBookId(packId, bookId).orElseGet(() -> {
+            PackItem created = new PackItem();
+            created.setPack(pack);
+            created.setPackId(packId);
+            created.setBookId(bookId);
+            return created;
+        });
+        item.setQuantity(quantity);
+        PackItem savedItem = packItemRepository.save(item);
+        packAvailabilityIndex.setComponent(packId, bookId, quantity);
+        changeOutboxService.publish(ChangeEntityType.PACK, packId);
+        log.info("Pack ID: {} - livre ID: {} x{}", packId, bookId, quantity);
+        return savedItem;
+    }
+
+    /**
+     * Retirer un livre d'un pack
+     */
+    public void removePackItem(Long packId, Long bookId) {
+        PackItem item = packItemRepository.findByPackIdAndBookId(packId, bookId)
+                .orElseThrow(() -> new RuntimeException("Livre ID " + bookId + " absent du pack ID " + packId));
+        packItemRepository.delete(item);
+        packAvailabilityIndex.removeComponent(packId, bookId);
+        changeOutboxService.publish(ChangeEntityType.PACK, packId);
+        log.info("Livre ID: {} retiré du pack ID: {}", bookId, packId);
+    }
+
+    private List<Pack> withAvailability(List<Pack> packs) {
+        packs.forEach(this::withAvailability);
+        return packs;
+    }
+
+    // Sans composition, le pack garde son stock propre
+    private Pack withAvailability(Pack pack) {
+        Integer available = packAvailabilityIndex.getAvailableQuantity(pack.getId());
+        pack.setAvailableQuantity(available != null ? available : pack.getStockQuantity());
+        return pack;
+    }
 }
 
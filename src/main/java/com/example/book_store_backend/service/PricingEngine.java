@@ -0,0 +1,254 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.ChangeEntityType;
+import com.example.book_store_backend.entity.DailyOffer;
+import com.example.book_store_backend.entity.Pack;
+import com.example.book_store_backend.service.BookCatalogCache.BookSnapshot;
+import com.example.book_store_backend.service.OfferLifecycleScheduler.OfferLifecycleEvent;
+import com.example.book_store_backend.util.LongLongHashMap;
+import com.example.book_store_backend.util.Money;
+import com.example.book_store_backend.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Table des prix effectifs : prix catalogue des livres et des packs combinés aux offres du jour
+ * valides, dans des tables primitives publiées atomiquement. La résolution d'un prix est en O(1)
+ * et n'accède pas à la base ; la table est reconstruite quand une offre ou un pack change, quand une
+ * offre commence ou se termine, et au premier accès d'une nouvelle journée.
+ */
+@Service
+@Slf4j
+public class PricingEngine implements ChangeSubscriber {
+
+    private static final long NONE = -1L;
+
+    private final DailyOfferCache dailyOfferCache;
+    private final OfferSaleCounters offerSaleCounters;
+    private final PackRepository packRepository;
+    private final BookCatalogCache bookCatalogCache;
+    private final ZoneId zone;
+    // Reconstructions sérialisées (elles lisent les packs en base : verrou explicite, compatible avec les
+    // threads virtuels) ; une demande déjà couverte par une reconstruction commencée après elle est ignorée
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicLong requestedGeneration = new AtomicLong();
+    private long publishedGeneration;
+
+    private volatile PriceTable table = new PriceTable(null, 0, 0);
+
+    public PricingEngine(DailyOfferCache dailyOfferCache,
+                         OfferSaleCounters offerSaleCounters,
+                         PackRepository packRepository,
+                         BookCatalogCache bookCatalogCache,
+                         @Value("${bookstore.offers.zone:}") String zone) {
+        this.dailyOfferCache = dailyOfferCache;
+        this.offerSaleCounters = offerSaleCounters;
+        this.packRepository = packRepository;
+        this.bookCatalogCache = bookCatalogCache;
+        this.zone = StringUtils.hasText(zone) ? ZoneId.of(zone) : ZoneId.systemDefault();
+    }
+
+    /**
+     * Reconstruire la table au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long generation = requestedGeneration.incrementAndGet();
+        rebuildLock.lock();
+        try {
+            if (publishedGeneration >= generation) {
+                return;
+            }
+            long covered = requestedGeneration.get();
+            table = buildTable();
+            publishedGeneration = covered;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private PriceTable buildTable() {
+        LocalDate today = LocalDate.now(zone);
+        List<DailyOffer> offers = dailyOfferCache.getCurrentOffers();
+        List<Pack> packs = packRepository.findAll();
+
+        PriceTable next = new PriceTable(today, offers.size(), packs.size());
+        for (Pack pack : packs) {
+            next.packPrices.put(pack.getId(), Money.toMinorUnits(pack.getPrice()));
+        }
+        for (DailyOffer offer : offers) {
+            if (offerSaleCounters.isExhausted(offer)) {
+                continue;
+            }
+            long offerCents = Money.toMinorUnits(offer.getOfferPrice());
+            next.offerPrices.put(offer.getId(), offerCents);
+            // Plusieurs offres sur le même article : la moins chère l'emporte
+            if (offer.getBook() != null) {
+                keepCheapest(next.bookOffers, next.offerPrices, offer.getBook().getId(), offer.getId(), offerCents);
+            }
+            if (offer.getPack() != null) {
+                keepCheapest(next.packOffers, next.offerPrices, offer.getPack().getId(), offer.getId(), offerCents);
+            }
+        }
+        log.debug("Table des prix reconstruite pour le {}: {} offres, {} packs", today, next.offerPrices.size(), packs.size());
+        return next;
+    }
+
+    /**
+     * Reconstruire la table une fois par tour du cycle de vie, quel que soit le nombre d'offres qui commencent ou se terminent
+     */
+    @EventListener
+    @org.springframework.core.annotation.Order(2)
+    public void onLifecycleEvent(OfferLifecycleEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Reconstruire la table après le commit de la transaction courante
+     */
+    public void rebuildAfterCommit() {
+        TransactionUtils.runAfterCommit(this::rebuild);
+    }
+
+    /**
+     * Reconstruire la table à la fin de la transaction courante, même annulée (table constatée périmée)
+     */
+    public void rebuildAfterCompletion() {
+        TransactionUtils.runAfterCompletion(this::rebuild);
+    }
+
+    @Override
+    public Set<ChangeEntityType> getSubscribedTypes() {
+        return Set.of(ChangeEntityType.PACK, ChangeEntityType.DAILY_OFFER);
+    }
+
+    /**
+     * Reconstruire la table quand une autre instance modifie un pack ou une offre
+     */
+    @Override
+    public void onRemoteChanges(ChangeEntityType type, Set<Long> ids) {
+        rebuild();
+    }
+
+    /**
+     * Meilleure offre valide aujourd'hui pour un livre (null si aucune)
+     */
+    public AppliedOffer findBookOffer(Long bookId) {
+        PriceTable current = currentTable();
+        long offerId = current.bookOffers.get(bookId, NONE);
+        return offerId == NONE ? null : new AppliedOffer(offerId, current.offerPrices.get(offerId, NONE));
+    }
+
+    /**
+     * Prix effectif d'un livre en centimes pour une quantité : prix de l'offre s'il est inférieur et si l'offre
+     * peut encore couvrir la quantité (sinon la commande serait facturée au prix catalogue)
+     */
+    public long bookPriceCents(BookSnapshot book, int quantity) {
+        AppliedOffer offer = findBookOffer(book.getId());
+        if (offer == null || !offerSaleCounters.canCover(offer.getOfferId(), quantity)) {
+            return book.getPriceCents();
+        }
+        return Math.min(offer.getPriceCents(), book.getPriceCents());
+    }
+
+    public EffectivePrice getBookPrice(Long bookId) {
+        BookSnapshot book = bookCatalogCache.get(bookId)
+                .orElseThrow(() -> new RuntimeException("Livre non trouvé avec l'ID: " + bookId));
+        return effectivePrice(bookId, book.getPriceCents(), findBookOffer(bookId));
+    }
+
+    public EffectivePrice getPackPrice(Long packId) {
+        PriceTable current = currentTable();
+        long baseCents = current.packPrices.get(packId, NONE);
+        if (baseCents == NONE) {
+            throw new RuntimeException("Pack non trouvé avec l'ID: " + packId);
+        }
+        long offerId = current.packOffers.get(packId, NONE);
+        AppliedOffer offer = offerId == NONE ? null : new AppliedOffer(offerId, current.offerPrices.get(offerId, NONE));
+        return effectivePrice(packId, baseCents, offer);
+    }
+
+    private PriceTable currentTable() {
+        PriceTable current = table;
+        // Filet de sécurité si la tâche de minuit n'est pas encore passée
+        if (current.day != null && !current.day.equals(LocalDate.now(zone))) {
+            rebuildLock.lock();
+            try {
+                if (table == current) {
+                    rebuild();
+                }
+            } finally {
+                rebuildLock.unlock();
+            }
+            current = table;
+        }
+        return current;
+    }
+
+    private static EffectivePrice effectivePrice(Long itemId, long baseCents, AppliedOffer offer) {
+        boolean applied = offer != null && offer.getPriceCents() < baseCents;
+        long priceCents = applied ? offer.getPriceCents() : baseCents;
+        return EffectivePrice.builder()
+                .itemId(itemId)
+                .basePrice(Money.toBigDecimal(baseCents))
+                .price(Money.toBigDecimal(priceCents))
+                .appliedOfferId(applied ? offer.getOfferId() : null)
+                .discountPercentage(applied && baseCents > 0
+                        ? Money.ofMinor(baseCents - priceCents).percentageOf(Money.ofMinor(baseCents)) : 0)
+                .build();
+    }
+
+    private static void keepCheapest(LongLongHashMap offersByItem, LongLongHashMap offerPrices,
+                                     long itemId, long offerId, long offerCents) {
+        long currentOffer = offersByItem.get(itemId, NONE);
+        if (currentOffer == NONE || offerCents < offerPrices.get(currentOffer, Long.MAX_VALUE)) {
+            offersByItem.put(itemId, offerId);
+        }
+    }
+
+    // Instantané immuable une fois publié
+    private static final class PriceTable {
+        final LocalDate day;
+        final LongLongHashMap bookOffers;
+        final LongLongHashMap packOffers;
+        final LongLongHashMap offerPrices;
+        final LongLongHashMap packPrices;
+
+        PriceTable(LocalDate day, int offerCount, int packCount) {
+            this.day = day;
+            this.bookOffers = new LongLongHashMap(offerCount);
+            this.packOffers = new LongLongHashMap(offerCount);
+            this.offerPrices = new LongLongHashMap(offerCount);
+            this.packPrices = new LongLongHashMap(packCount);
+        }
+    }
+
+    // Classes d'aide
+    @lombok.Value
+    public static class AppliedOffer {
+        long offerId;
+        long priceCents;
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class EffectivePrice {
+        private Long itemId;
+        private BigDecimal basePrice;
+        private BigDecimal price;
+        private Long appliedOfferId;
+        private int discountPercentage;
+    }
+}
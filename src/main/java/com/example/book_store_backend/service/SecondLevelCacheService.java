@@ -0,0 +1,138 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.util.TransactionUtils;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Cache de second niveau Hibernate (régions définies dans ehcache.xml) : invalidation des entrées
+ * modifiées hors d'Hibernate (lots JDBC) et statistiques de succès par région.
+ */
+@Service
+@Slf4j
+public class SecondLevelCacheService {
+
+    private final SessionFactory sessionFactory;
+
+    public SecondLevelCacheService(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /**
+     * Retirer du cache des entités modifiées par SQL direct (après commit s'il y a une transaction)
+     */
+    public void evictEntities(Class<?> entityClass, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> evicted = new ArrayList<>(ids);
+        TransactionUtils.runAfterCommit(() -> {
+            for (Long id : evicted) {
+                sessionFactory.getCache().evictEntityData(entityClass, id);
+            }
+        });
+    }
+
+    /**
+     * Vider les résultats de requêtes en cache (leurs horodatages d'invalidation sont locaux à l'instance)
+     */
+    public void evictQueryRegions() {
+        sessionFactory.getCache().evictQueryRegions();
+    }
+
+    /**
+     * Vider une région (entités ou requêtes)
+     */
+    public void evictRegion(String region) {
+        if (!Arrays.asList(sessionFactory.getStatistics().getSecondLevelCacheRegionNames()).contains(region)) {
+            throw new IllegalArgumentException("Région de cache inconnue: " + region);
+        }
+        sessionFactory.getCache().evictRegion(region);
+        log.info("Région de cache vidée: {}", region);
+    }
+
+    /**
+     * Statistiques du cache de second niveau depuis le démarrage (ou la dernière remise à zéro)
+     */
+    public CacheStatistics getStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        List<RegionStatistics> regions = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            regions.add(RegionStatistics.builder()
+                    .region(region)
+                    .hitCount(regionStatistics.getHitCount())
+                    .missCount(regionStatistics.getMissCount())
+                    .putCount(regionStatistics.getPutCount())
+                    .hitRate(hitRate(regionStatistics.getHitCount(), regionStatistics.getMissCount()))
+                    .build());
+        }
+        regions.sort((left, right) -> left.getRegion().compareTo(right.getRegion()));
+
+        return CacheStatistics.builder()
+                .statisticsEnabled(statistics.isStatisticsEnabled())
+                .secondLevelCacheHitCount(statistics.getSecondLevelCacheHitCount())
+                .secondLevelCacheMissCount(statistics.getSecondLevelCacheMissCount())
+                .secondLevelCacheHitRate(hitRate(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount()))
+                .queryCacheHitCount(statistics.getQueryCacheHitCount())
+                .queryCacheMissCount(statistics.getQueryCacheMissCount())
+                .queryCacheHitRate(hitRate(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()))
+                .entityLoadCount(statistics.getEntityLoadCount())
+                .queryExecutionCount(statistics.getQueryExecutionCount())
+                .prepareStatementCount(statistics.getPrepareStatementCount())
+                .regions(regions)
+                .build();
+    }
+
+    /**
+     * Remettre les compteurs à zéro (ex. avant une campagne de charge)
+     */
+    public void clearStatistics() {
+        sessionFactory.getStatistics().clear();
+    }
+
+    private static double hitRate(long hits, long misses) {
+        long total = hits + misses;
+        return total > 0 ? Math.round(hits * 10000.0 / total) / 10000.0 : 0.0;
+    }
+
+    // Classes d'aide
+    @lombok.Builder
+    @lombok.Data
+    public static class CacheStatistics {
+        private boolean statisticsEnabled;
+        private long secondLevelCacheHitCount;
+        private long secondLevelCacheMissCount;
+        private double secondLevelCacheHitRate;
+        private long queryCacheHitCount;
+        private long queryCacheMissCount;
+        private double queryCacheHitRate;
+        // Chargements depuis MySQL, requêtes exécutées et statements préparés : charge réelle sur la base
+        private long entityLoadCount;
+        private long queryExecutionCount;
+        private long prepareStatementCount;
+        private List<RegionStatistics> regions;
+    }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class RegionStatistics {
+        private String region;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+        private double hitRate;
+    }
+}
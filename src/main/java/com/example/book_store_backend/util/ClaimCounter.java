@@ -0,0 +1,98 @@
+package com.example.book_store_backend.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compteur de réservations sur un quota local, sans verrou : chaque réservation est admise ou refusée
+ * par un compare-and-set sur les unités disponibles. Le quota est alimenté par le propriétaire (tranche
+ * accordée par la base) ; les unités admises sont aussi cumulées dans un compteur « à persister » que
+ * le propriétaire vide périodiquement.
+ */
+public class ClaimCounter {
+
+    private final AtomicInteger available = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Réserver {@code quantity} unités du quota local si elles sont disponibles
+     */
+    public boolean tryClaim(int quantity) {
+        checkQuantity(quantity);
+        while (true) {
+            int current = available.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (available.compareAndSet(current, current - quantity)) {
+                pending.addAndGet(quantity);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Compter des unités admises hors quota local (offre sans limite, ou unités prises directement
+     * sur une tranche qui vient d'être accordée)
+     */
+    public void record(int quantity) {
+        checkQuantity(quantity);
+        pending.addAndGet(quantity);
+    }
+
+    /**
+     * Rendre au quota local des unités admises (transaction annulée, vente rendue par une commande annulée)
+     */
+    public void release(int quantity) {
+        available.addAndGet(quantity);
+        pending.addAndGet(-quantity);
+    }
+
+    /**
+     * Annuler des unités comptées par {@link #record}
+     */
+    public void unrecord(int quantity) {
+        pending.addAndGet(-quantity);
+    }
+
+    /**
+     * Ajouter au quota local des unités accordées
+     */
+    public void grant(int units) {
+        available.addAndGet(units);
+    }
+
+    /**
+     * Retirer tout le quota local inutilisé (à rendre au propriétaire du quota global)
+     */
+    public int revokeAvailable() {
+        return available.getAndSet(0);
+    }
+
+    /**
+     * Récupérer et remettre à zéro les unités non encore persistées (peut être négatif après un release)
+     */
+    public int drainPending() {
+        return pending.getAndSet(0);
+    }
+
+    /**
+     * Remettre des unités à persister après un échec d'écriture
+     */
+    public void restorePending(int quantity) {
+        pending.addAndGet(quantity);
+    }
+
+    public int getAvailable() {
+        return available.get();
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    private static void checkQuantity(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("La quantité doit être supérieure à 0");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.book_store_backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Liste de postings : tableau d'entiers triés sans doublons, à croissance amortie.
+ * L'ajout d'une valeur supérieure à la dernière (cas courant : identifiants croissants) est en O(1).
+ */
+public class IntPostingList {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values = new int[4];
+    private int size = 0;
+
+    public void add(int value) {
+        if (size == 0 || value > values[size - 1]) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+            return;
+        }
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return;
+        }
+        int insertAt = -index - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+    }
+
+    public boolean remove(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int[] toArray() {
+        return size == 0 ? EMPTY : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Intersection de deux tableaux triés
+     */
+    public static int[] intersect(int[] left, int[] right) {
+        int[] result = new int[Math.min(left.length, right.length)];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Union de deux tableaux triés
+     */
+    public static int[] union(int[] left, int[] right) {
+        int[] result = new int[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < left.length || j < right.length) {
+            if (j >= right.length || (i < left.length && left[i] < right[j])) {
+                result[count++] = left[i++];
+            } else if (i >= left.length || right[j] < left[i]) {
+                result[count++] = right[j++];
+            } else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > values.length) {
+            values = Arrays.copyOf(values, Math.max(required, values.length * 2));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.book_store_backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Arbre d'intervalles fermés [début, fin] : treap ordonné par (début, id) et augmenté de la fin
+ * maximale de chaque sous-arbre. Insertion et suppression en O(log n) attendu, requêtes de
+ * recouvrement en O(log n + k). Non synchronisé.
+ */
+public class IntervalTree<T> {
+
+    private final SplittableRandom random = new SplittableRandom();
+    private Node<T> root;
+
+    /**
+     * Ajouter un intervalle identifié par {@code id} (unique dans l'arbre)
+     */
+    public void insert(long start, long end, long id, T value) {
+        if (end < start) {
+            throw new IllegalArgumentException("La fin de l'intervalle précède son début");
+        }
+        root = insert(root, new Node<>(start, end, id, value, random.nextInt()));
+    }
+
+    /**
+     * Retirer l'intervalle de début {@code start} et d'identifiant {@code id}
+     */
+    public boolean remove(long start, long id) {
+        int before = size();
+        root = remove(root, start, id);
+        return size() < before;
+    }
+
+    /**
+     * Intervalles contenant le point donné
+     */
+    public List<T> stab(long point) {
+        return overlapping(point, point);
+    }
+
+    /**
+     * Intervalles recouvrant [from, to]
+     */
+    public List<T> overlapping(long from, long to) {
+        List<T> result = new ArrayList<>();
+        collect(root, from, to, result);
+        return result;
+    }
+
+    public int size() {
+        return root == null ? 0 : root.size;
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (compare(inserted.start, inserted.id, node) < 0) {
+            node.left = insert(node.left, inserted);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, inserted);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> remove(Node<T> node, long start, long id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, start, id);
+        } else {
+            node.right = remove(node.right, start, id);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private void collect(Node<T> node, long from, long to, List<T> result) {
+        // Aucun intervalle du sous-arbre ne finit après le début de la fenêtre
+        if (node == null || node.maxEnd < from) {
+            return;
+        }
+        collect(node.left, from, to, result);
+        if (node.start <= to) {
+            if (node.end >= from) {
+                result.add(node.value);
+            }
+            collect(node.right, from, to, result);
+        }
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static int compare(long start, long id, Node<?> node) {
+        int cmp = Long.compare(start, node.start);
+        return cmp != 0 ? cmp : Long.compare(id, node.id);
+    }
+
+    private static void update(Node<?> node) {
+        long maxEnd = node.end;
+        int size = 1;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+            size += node.left.size;
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+            size += node.right.size;
+        }
+        node.maxEnd = maxEnd;
+        node.size = size;
+    }
+
+    private static final class Node<T> {
+        final long start;
+        final long end;
+        final long id;
+        final T value;
+        final int priority;
+        long maxEnd;
+        int size = 1;
+        Node<T> left;
+        Node<T> right;
+
+        Node(long start, long end, long id, T value, int priority) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.value = value;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+    }
+}
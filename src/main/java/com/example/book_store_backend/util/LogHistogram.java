@@ -0,0 +1,155 @@
+package com.example.book_store_backend.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramme à buckets log-linéaires (style HDR) : mémoire fixe, enregistrement sans verrou,
+ * fusionnable. Les valeurs inférieures à 128 sont exactes, au-delà l'erreur relative est inférieure à 1,6 %.
+ */
+public class LogHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+
+    private final long highestTrackableValue;
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+
+    public LogHistogram(long highestTrackableValue) {
+        if (highestTrackableValue < SUB_BUCKET_COUNT) {
+            throw new IllegalArgumentException("La valeur maximale doit être au moins " + SUB_BUCKET_COUNT);
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(bucketIndex(highestTrackableValue) + 1);
+    }
+
+    /**
+     * Enregistrer une valeur (les valeurs hors bornes sont ramenées dans [0, max])
+     */
+    public void record(long value) {
+        long clamped = clamp(value);
+        counts.incrementAndGet(bucketIndex(clamped));
+        totalCount.incrementAndGet();
+        sum.addAndGet(clamped);
+    }
+
+    /**
+     * Retirer une valeur précédemment enregistrée (ex. commande annulée)
+     */
+    public void remove(long value) {
+        long clamped = clamp(value);
+        int index = bucketIndex(clamped);
+        if (counts.get(index) > 0) {
+            counts.decrementAndGet(index);
+            totalCount.decrementAndGet();
+            sum.addAndGet(-clamped);
+        }
+    }
+
+    /**
+     * Ajouter le contenu d'un autre histogramme de même configuration
+     */
+    public void merge(LogHistogram other) {
+        if (other.counts.length() != counts.length()) {
+            throw new IllegalArgumentException("Histogrammes de configurations différentes");
+        }
+        for (int i = 0; i < counts.length(); i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        sum.addAndGet(other.sum.get());
+    }
+
+    /**
+     * Valeur au percentile demandé (0-100), représentant du bucket correspondant
+     */
+    public long valueAtPercentile(double percentile) {
+        long total = totalCount.get();
+        if (total <= 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return representativeValue(i);
+            }
+        }
+        return maxValue();
+    }
+
+    public long minValue() {
+        for (int i = 0; i < counts.length(); i++) {
+            if (counts.get(i) > 0) {
+                return lowestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    public long maxValue() {
+        for (int i = counts.length() - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) {
+                return highestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public double getMean() {
+        long total = totalCount.get();
+        return total > 0 ? (double) sum.get() / total : 0.0;
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    private long clamp(long value) {
+        return Math.max(0, Math.min(value, highestTrackableValue));
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return exponent * SUB_BUCKET_HALF + (int) (value >>> exponent);
+    }
+
+    static long lowestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_HALF - 1;
+        long subBucket = index - (long) exponent * SUB_BUCKET_HALF;
+        return subBucket << exponent;
+    }
+
+    static long highestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_HALF - 1;
+        return lowestValue(index) + (1L << exponent) - 1;
+    }
+
+    static long representativeValue(int index) {
+        return (lowestValue(index) + highestValue(index)) >>> 1;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.book_store_backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage long -> long à adressage ouvert (sondage linéaire), sans objet par entrée.
+ * Non synchronisée : destinée à être construite puis publiée en lecture seule.
+ */
+public class LongLongHashMap {
+
+    private static final long EMPTY_KEY = 0L;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    // La clé 0 sert de marqueur de case vide : elle est stockée à part
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public LongLongHashMap() {
+        this(16);
+    }
+
+    public LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    public long get(long key, long missingValue) {
+        if (key == EMPTY_KEY) {
+            return hasZeroKey ? zeroValue : missingValue;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY_KEY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY_KEY) {
+            return hasZeroKey;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY_KEY) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public void put(long key, long value) {
+        if (key == EMPTY_KEY) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY_KEY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        // Facteur de charge maximal 0,5
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    private int slot(long key) {
+        // Mélange de Fibonacci : les identifiants séquentiels se répartissent sur toute la table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != EMPTY_KEY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.book_store_backend.util;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Montant en centimes (entier long, 2 décimales fixes). Les additions et multiplications sont exactes
+ * et lèvent ArithmeticException en cas de dépassement ; les divisions et conversions depuis un
+ * BigDecimal de plus de 2 décimales arrondissent au demi supérieur (HALF_UP), comme le reste de l'application.
+ */
+public final class Money implements Comparable<Money>, Serializable {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return ofMinor(toMinorUnits(amount));
+    }
+
+    /**
+     * Centimes d'un montant décimal, sans passer par un objet Money
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Le montant est obligatoire");
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * Division entière arrondie au demi supérieur (symétrique pour les valeurs négatives)
+     */
+    public static long divideHalfUp(long numerator, long denominator) {
+        if (denominator == 0) {
+            throw new ArithmeticException("Division par zéro");
+        }
+        long quotient = numerator / denominator;
+        long remainder = numerator % denominator;
+        if (remainder != 0 && Math.abs(remainder) >= Math.abs(denominator) - Math.abs(remainder)) {
+            quotient += (numerator ^ denominator) < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money times(long factor) {
+        return ofMinor(Math.multiplyExact(minorUnits, factor));
+    }
+
+    public Money dividedBy(long divisor) {
+        return ofMinor(divideHalfUp(minorUnits, divisor));
+    }
+
+    /**
+     * Part de ce montant dans {@code whole}, en pourcentage entier arrondi
+     */
+    public int percentageOf(Money whole) {
+        return Math.toIntExact(divideHalfUp(Math.multiplyExact(minorUnits, 100L), whole.minorUnits));
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(minorUnits);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money && ((Money) o).minorUnits == minorUnits);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.book_store_backend.util;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Source de données qui compte les requêtes SQL dans {@link SqlStatementRecorder}, quel que soit
+ * l'appelant (Hibernate, JdbcTemplate) : une requête est comptée à sa préparation (ou à son exécution
+ * pour un Statement simple) et le temps d'exécution JDBC est mesuré autour de chaque exécution ou lot.
+ * Sans enregistrement ouvert sur le thread, les connexions sont rendues telles quelles.
+ */
+public class SqlCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> PREPARE_METHODS = Set.of("prepareStatement", "prepareCall");
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    public SqlCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    // Toujours envelopper : un enregistrement peut s'ouvrir alors qu'une transaction détient déjà la connexion
+    private static Connection countingConnection(Connection target) {
+        return proxy(Connection.class, target, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (PREPARE_METHODS.contains(name) && args != null && args[0] instanceof String sql) {
+                SqlStatementRecorder.recordStatement(sql);
+                Statement statement = (Statement) invoke(target, method, args);
+                return name.equals("prepareCall")
+                        ? countingStatement(statement, CallableStatement.class)
+                        : countingStatement(statement, PreparedStatement.class);
+            }
+            if (name.equals("createStatement")) {
+                return countingStatement((Statement) invoke(target, method, args), Statement.class);
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private static <T extends Statement> T countingStatement(Statement target, Class<T> type) {
+        return proxy(type, target, (proxy, method, args) -> {
+            String name = method.getName();
+            boolean execute = EXECUTE_METHODS.contains(name);
+            // Statement simple : la requête n'est connue qu'à l'exécution ou à l'ajout au lot
+            if ((execute || name.equals("addBatch")) && args != null && args.length > 0 && args[0] instanceof String sql) {
+                SqlStatementRecorder.recordStatement(sql);
+            }
+            if (!execute || !SqlStatementRecorder.isRecording()) {
+                return invoke(target, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return invoke(target, method, args);
+            } finally {
+                SqlStatementRecorder.recordExecution(System.nanoTime() - start);
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SqlCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.book_store_backend.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Comptage des requêtes SQL du thread courant (une requête HTTP, un test) : nombre, durée d'exécution
+ * et occurrences par forme de requête. Les enregistrements s'emboîtent : une requête est comptée
+ * dans tous les enregistrements ouverts. Sans enregistrement ouvert, le coût se limite à une lecture
+ * de ThreadLocal.
+ */
+public final class SqlStatementRecorder {
+
+    // Listes IN de longueur variable ramenées à une seule forme
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+    private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementRecorder() {
+    }
+
+    /**
+     * Ouvrir un enregistrement sur le thread courant (à fermer dans le même thread)
+     */
+    public static Recording start() {
+        Recording recording = new Recording(CURRENT.get());
+        CURRENT.set(recording);
+        return recording;
+    }
+
+    public static boolean isRecording() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Compter une requête préparée
+     */
+    public static void recordStatement(String sql) {
+        Recording recording = CURRENT.get();
+        if (recording == null) {
+            return;
+        }
+        String shape = shapeOf(sql);
+        for (Recording current = recording; current != null; current = current.parent) {
+            current.statementCount++;
+            current.countsByShape.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Ajouter la durée d'exécution d'une requête ou d'un lot
+     */
+    public static void recordExecution(long nanos) {
+        for (Recording current = CURRENT.get(); current != null; current = current.parent) {
+            current.executionNanos += nanos;
+        }
+    }
+
+    static String shapeOf(String sql) {
+        return sql.indexOf('?') >= 0 ? IN_LIST.matcher(sql).replaceAll("(?)") : sql;
+    }
+
+    // Classes d'aide
+    public static final class Recording implements AutoCloseable {
+        private final Recording parent;
+        private final Map<String, Integer> countsByShape = new HashMap<>();
+        private int statementCount;
+        private long executionNanos;
+        private boolean closed;
+
+        private Recording(Recording parent) {
+            this.parent = parent;
+        }
+
+        public int getStatementCount() {
+            return statementCount;
+        }
+
+        public long getExecutionNanos() {
+            return executionNanos;
+        }
+
+        /**
+         * Formes de requête exécutées au moins {@code threshold} fois, de la plus répétée à la moins répétée
+         */
+        public List<RepeatedStatement> getRepeatedStatements(int threshold) {
+            List<RepeatedStatement> repeated = new ArrayList<>();
+            countsByShape.forEach((shape, count) -> {
+                if (count >= threshold) {
+                    repeated.add(new RepeatedStatement(shape, count));
+                }
+            });
+            repeated.sort((left, right) -> Integer.compare(right.getCount(), left.getCount()));
+            return repeated;
+        }
+
+        public Map<String, Integer> getCountsByShape() {
+            return Collections.unmodifiableMap(countsByShape);
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (CURRENT.get() != this) {
+                throw new IllegalStateException("Les enregistrements SQL doivent être fermés dans l'ordre inverse de leur ouverture");
+            }
+            if (parent != null) {
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    @lombok.Value
+    public static class RepeatedStatement {
+        String sql;
+        int count;
+    }
+}
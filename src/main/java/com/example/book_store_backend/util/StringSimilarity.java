@@ -0,0 +1,92 @@
+package com.example.book_store_backend.util;
+
+public class StringSimilarity {
+
+    private static final String SOUNDEX_CODES = "01230120022455012623010202";
+
+    /**
+     * Similarité de Jaro-Winkler entre deux chaînes (1 = identiques, 0 = rien en commun)
+     */
+    public static double jaroWinkler(String left, String right) {
+        if (left.equals(right)) {
+            return left.isEmpty() ? 0.0 : 1.0;
+        }
+        if (left.isEmpty() || right.isEmpty()) {
+            return 0.0;
+        }
+
+        int window = Math.max(0, Math.max(left.length(), right.length()) / 2 - 1);
+        boolean[] leftMatched = new boolean[left.length()];
+        boolean[] rightMatched = new boolean[right.length()];
+        int matches = 0;
+        for (int i = 0; i < left.length(); i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(right.length() - 1, i + window);
+            for (int j = from; j <= to; j++) {
+                if (!rightMatched[j] && left.charAt(i) == right.charAt(j)) {
+                    leftMatched[i] = true;
+                    rightMatched[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < left.length(); i++) {
+            if (!leftMatched[i]) {
+                continue;
+            }
+            while (!rightMatched[j]) {
+                j++;
+            }
+            if (left.charAt(i) != right.charAt(j)) {
+                transpositions++;
+            }
+            j++;
+        }
+
+        double m = matches;
+        double jaro = (m / left.length() + m / right.length() + (m - transpositions / 2.0) / m) / 3.0;
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(left.length(), right.length()))
+                && left.charAt(prefix) == right.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1.0 - jaro);
+    }
+
+    /**
+     * Clé phonétique Soundex (lettre initiale + 3 chiffres) d'un texte normalisé, vide s'il n'a pas de lettre
+     */
+    public static String phoneticKey(String text) {
+        StringBuilder key = new StringBuilder(4);
+        char previousCode = 0;
+        for (int i = 0; i < text.length() && key.length() < 4; i++) {
+            char c = text.charAt(i);
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+            char code = SOUNDEX_CODES.charAt(c - 'a');
+            if (key.length() == 0) {
+                key.append(Character.toUpperCase(c));
+            } else if (code != '0' && code != previousCode) {
+                key.append(code);
+            }
+            // h et w ne séparent pas deux consonnes de même code
+            if (c != 'h' && c != 'w') {
+                previousCode = code;
+            }
+        }
+        if (key.length() == 0) {
+            return "";
+        }
+        while (key.length() < 4) {
+            key.append('0');
+        }
+        return key.toString();
+    }
+}
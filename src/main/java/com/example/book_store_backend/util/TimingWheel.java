@@ -0,0 +1,189 @@
+package com.example.book_store_backend.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Roue temporelle hiérarchique (64 cases par niveau) : insertion et annulation en O(1), avancée
+ * amortie en O(1) par échéance. Un niveau couvre 64 fois la durée du niveau inférieur ; une échéance
+ * lointaine descend de niveau en niveau (cascade) à mesure que le temps avance.
+ * Les méthodes sont synchronisées ; l'horloge est fournie par l'appelant via {@link #advanceTo}.
+ */
+public class TimingWheel<T> {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    // 10 niveaux : 2^60 graduations, aucune échéance ne peut dépasser la roue
+    private static final int LEVELS = 10;
+
+    private final long tickMillis;
+    private final Bucket<T>[][] wheels;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("La durée d'une graduation doit être positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        this.wheels = new Bucket[LEVELS][WHEEL_SIZE];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                wheels[level][slot] = new Bucket<>();
+            }
+        }
+    }
+
+    /**
+     * Programmer {@code payload} à l'instant {@code deadlineMillis} (une échéance passée expire à la prochaine avancée)
+     */
+    public synchronized Timeout<T> schedule(long deadlineMillis, T payload) {
+        Timeout<T> timeout = new Timeout<>(this, Math.max(deadlineMillis / tickMillis, currentTick + 1), payload);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Avancer l'horloge jusqu'à {@code nowMillis} en transmettant les échéances atteintes, dans l'ordre
+     */
+    public synchronized int advanceTo(long nowMillis, Consumer<T> expired) {
+        long targetTick = nowMillis / tickMillis;
+        int fired = 0;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Bucket<T> bucket = wheels[0][(int) (currentTick & WHEEL_MASK)];
+            Timeout<T> timeout;
+            while ((timeout = bucket.poll()) != null) {
+                size--;
+                timeout.state = Timeout.EXPIRED;
+                expired.accept(timeout.payload);
+                fired++;
+            }
+        }
+        return fired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    private synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.state != Timeout.PENDING) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        timeout.state = Timeout.CANCELLED;
+        size--;
+        return true;
+    }
+
+    // Redescendre les échéances des niveaux supérieurs dont la période commence à cette graduation
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = level * WHEEL_BITS;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            Bucket<T> bucket = wheels[level][(int) ((currentTick >>> shift) & WHEEL_MASK)];
+            Timeout<T> timeout;
+            while ((timeout = bucket.poll()) != null) {
+                place(timeout);
+            }
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        int level = 0;
+        // Plus petit niveau dont la portée (64^(niveau+1) graduations) contient l'échéance
+        while (level < LEVELS - 1 && delta >= (1L << ((level + 1) * WHEEL_BITS))) {
+            level++;
+        }
+        wheels[level][(int) ((timeout.deadlineTick >>> (level * WHEEL_BITS)) & WHEEL_MASK)].add(timeout);
+    }
+
+    /**
+     * Échéance programmée, annulable en O(1)
+     */
+    public static final class Timeout<T> {
+        private static final int PENDING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+
+        private final TimingWheel<T> wheel;
+        private final long deadlineTick;
+        private final T payload;
+        private int state = PENDING;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(TimingWheel<T> wheel, long deadlineTick, T payload) {
+            this.wheel = wheel;
+            this.deadlineTick = deadlineTick;
+            this.payload = payload;
+        }
+
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineTick * wheel.tickMillis;
+        }
+    }
+
+    // Liste doublement chaînée intrusive : ajout et retrait sans allocation
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        Timeout<T> poll() {
+            Timeout<T> timeout = head;
+            if (timeout != null) {
+                remove(timeout);
+            }
+            return timeout;
+        }
+    }
+}
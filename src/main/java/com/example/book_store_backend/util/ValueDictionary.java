@@ -0,0 +1,57 @@
+package com.example.book_store_backend.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionnaire d'encodage : associe chaque valeur distincte à un code entier dense.
+ * Les lectures sont sans verrou, les ajouts sont sérialisés.
+ */
+public class ValueDictionary<T> {
+
+    private final ConcurrentHashMap<T, Integer> codes = new ConcurrentHashMap<>();
+    private volatile Object[] values = new Object[16];
+    private volatile int size = 0;
+
+    /**
+     * Récupérer le code d'une valeur, en l'ajoutant si nécessaire
+     */
+    public int encode(T value) {
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    /**
+     * Récupérer le code d'une valeur sans l'ajouter (-1 si inconnue)
+     */
+    public int lookup(T value) {
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T decode(int code) {
+        return (T) values[code];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private synchronized int add(T value) {
+        Integer existing = codes.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int code = size;
+        Object[] current = values;
+        if (code == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[code] = value;
+        values = current;
+        size = code + 1;
+        codes.put(value, code);
+        return code;
+    }
+}
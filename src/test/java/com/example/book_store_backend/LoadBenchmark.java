@@ -0,0 +1,340 @@
+package com.example.book_store_backend;
+
+import com.example.book_store_backend.entity.Book;
+import com.example.book_store_backend.entity.Customer;
+import com.example.book_store_backend.service.BookService;
+import com.example.book_store_backend.service.CustomerService;
+import com.example.book_store_backend.service.OrderService;
+import com.example.book_store_backend.service.SecondLevelCacheService;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Banc de charge (hors suite de tests) : débit et latences à forte concurrence avec les threads
+ * virtuels puis avec le pool de threads plateforme de Tomcat. L'application est démarrée sur H2 pour
+ * chaque mode ; une latence est ajoutée à chaque requête SQL pour simuler l'aller-retour vers MySQL.
+ * Lancer après mvn test-compile :
+ * java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *     com.example.book_store_backend.LoadBenchmark [concurrence] [secondes] [latence SQL ms] [connexions]
+ */
+public class LoadBenchmark {
+
+    private static final int BOOKS = 50;
+    private static final int CUSTOMERS = 50;
+    private static final int ORDERS = 200;
+    private static final int WARMUP_SECONDS = 5;
+
+    // Mélange de lectures par défaut (remplaçable par -Dbenchmark.paths=chemin1,chemin2)
+    private static final String[] DEFAULT_PATHS = {
+            "/api/books/{book}",
+            "/api/orders/{order}",
+            "/api/orders/customer/{customer}/paginated?page=0&size=10",
+            "/api/books/search/paginated?keyword=Titre&page=0&size=10"
+    };
+
+    private static String[] paths = DEFAULT_PATHS;
+
+    public static void main(String[] args) throws Exception {
+        String pathsProperty = System.getProperty("benchmark.paths");
+        if (pathsProperty != null) {
+            paths = pathsProperty.split(",");
+        }
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long latencyMillis = args.length > 2 ? Long.parseLong(args[2]) : 5;
+        // Plus de connexions que de threads Tomcat : seul le modèle de threads limite la concurrence
+        int poolSize = args.length > 3 ? Integer.parseInt(args[3]) : 300;
+
+        System.out.printf("Concurrence %d, %d s de mesure, latence SQL %d ms, %d connexions%n",
+                concurrency, seconds, latencyMillis, poolSize);
+        Result platform = run(false, concurrency, seconds, latencyMillis, poolSize);
+        Result virtual = run(true, concurrency, seconds, latencyMillis, poolSize);
+
+        System.out.printf("%-12s %10s %10s %8s %8s %8s %8s %8s %8s %8s%n",
+                "mode", "requêtes", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "erreurs", "threads", "L2 %");
+        platform.print();
+        virtual.print();
+        System.out.printf("Threads virtuels / plateforme : débit x%.2f, p99 x%.2f%n",
+                virtual.throughput() / platform.throughput(),
+                (double) virtual.percentile(0.99) / Math.max(1, platform.percentile(0.99)));
+    }
+
+    private static Result run(boolean virtualThreads, int concurrency, int seconds,
+                              long latencyMillis, int poolSize) throws Exception {
+        String mode = virtualThreads ? "virtuels" : "plateforme";
+        SlowStatements slowStatements = new SlowStatements();
+        // Arguments de ligne de commande : prioritaires sur application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BookStoreBackendApplication.class)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(slowStatements))
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:bench_" + mode
+                                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.book_store_backend=WARN",
+                        "--logging.level.org.springframework.security=WARN",
+                        "--logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF");
+        try {
+            Targets targets = seed(context);
+            slowStatements.latencyMillis = latencyMillis;
+
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            try (ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .executor(clientExecutor)
+                        .build();
+
+                load(client, baseUrl, targets, concurrency, WARMUP_SECONDS);
+
+                SecondLevelCacheService cacheService = context.getBean(SecondLevelCacheService.class);
+                cacheService.clearStatistics();
+                ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+                threads.resetPeakThreadCount();
+
+                Result result = load(client, baseUrl, targets, concurrency, seconds);
+                result.mode = mode;
+                result.peakThreads = threads.getPeakThreadCount();
+                result.secondLevelHitRate = cacheService.getStatistics().getSecondLevelCacheHitRate();
+                return result;
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Targets seed(ConfigurableApplicationContext context) {
+        BookService bookService = context.getBean(BookService.class);
+        CustomerService customerService = context.getBean(CustomerService.class);
+        OrderService orderService = context.getBean(OrderService.class);
+
+        Targets targets = new Targets();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setIsbn("978-0-" + i);
+            book.setTitle("Titre " + i);
+            book.setAuthor("Auteur " + (i % 10));
+            book.setCategory("Catégorie " + (i % 5));
+            book.setPrice(new BigDecimal("12.50"));
+            book.setStockQuantity(1_000_000);
+            targets.books.add(bookService.createBook(book).getId());
+        }
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Customer customer = new Customer();
+            customer.setFirstName("Prénom" + i);
+            customer.setLastName("Nom" + i);
+            customer.setEmail("client" + i + "@example.com");
+            customer.setPhoneNumber(String.format("06%08d", i));
+            customer.setAddress(i + " rue de Paris");
+            customer.setCity("Paris");
+            targets.customers.add(customerService.createCustomer(customer).getId());
+        }
+        for (int i = 0; i < ORDERS; i++) {
+            List<OrderService.OrderItemRequest> items = List.of(
+                    new OrderService.OrderItemRequest(targets.books.get(i % BOOKS), 1 + i % 3),
+                    new OrderService.OrderItemRequest(targets.books.get((i * 7 + 1) % BOOKS), 1));
+            targets.orders.add(createOrder(orderService, targets.customers.get(i % CUSTOMERS), items));
+        }
+        return targets;
+    }
+
+    // Numéros de commande horodatés à la seconde : une collision est possible en création rapide
+    private static Long createOrder(OrderService orderService, Long customerId, List<OrderService.OrderItemRequest> items) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return orderService.createOrder(customerId, items, null, null).getId();
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == 3) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Boucle fermée : chaque client virtuel enchaîne ses requêtes jusqu'à l'échéance
+     */
+    private static Result load(HttpClient client, String baseUrl, Targets targets,
+                               int concurrency, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        Recorder[] recorders = new Recorder[concurrency];
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                Recorder recorder = new Recorder();
+                recorders[i] = recorder;
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + targets.nextPath()))
+                                .timeout(Duration.ofSeconds(60))
+                                .GET()
+                                .build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                recorder.errors++;
+                            } else {
+                                recorder.record((System.nanoTime() - start) / 1_000);
+                            }
+                        } catch (IOException e) {
+                            recorder.errors++;
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        return new Result(recorders, seconds);
+    }
+
+    // Classes d'aide
+    private static final class Targets {
+        final List<Long> books = new ArrayList<>();
+        final List<Long> customers = new ArrayList<>();
+        final List<Long> orders = new ArrayList<>();
+
+        String nextPath() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return paths[random.nextInt(paths.length)]
+                    .replace("{book}", String.valueOf(books.get(random.nextInt(books.size()))))
+                    .replace("{order}", String.valueOf(orders.get(random.nextInt(orders.size()))))
+                    .replace("{customer}", String.valueOf(customers.get(random.nextInt(customers.size()))));
+        }
+    }
+
+    // Latences en microsecondes, propres à un client virtuel
+    private static final class Recorder {
+        long[] latencies = new long[1024];
+        int count;
+        int errors;
+
+        void record(long micros) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = micros;
+        }
+    }
+
+    private static final class Result {
+        final long[] latencies;
+        final int errors;
+        final int seconds;
+        String mode;
+        int peakThreads;
+        double secondLevelHitRate;
+
+        Result(Recorder[] recorders, int seconds) {
+            int total = 0;
+            int errorCount = 0;
+            for (Recorder recorder : recorders) {
+                total += recorder.count;
+                errorCount += recorder.errors;
+            }
+            long[] merged = new long[total];
+            int offset = 0;
+            for (Recorder recorder : recorders) {
+                System.arraycopy(recorder.latencies, 0, merged, offset, recorder.count);
+                offset += recorder.count;
+            }
+            Arrays.sort(merged);
+            this.latencies = merged;
+            this.errors = errorCount;
+            this.seconds = seconds;
+        }
+
+        double throughput() {
+            return (double) latencies.length / seconds;
+        }
+
+        long percentile(double quantile) {
+            return latencies.length == 0 ? 0 : latencies[(int) Math.min(latencies.length - 1, quantile * latencies.length)];
+        }
+
+        void print() {
+            System.out.printf("%-12s %10d %10.0f %8.1f %8.1f %8.1f %8.1f %8d %8d %8.1f%n",
+                    mode, latencies.length, throughput(), percentile(0.50) / 1000.0, percentile(0.95) / 1000.0,
+                    percentile(0.99) / 1000.0, percentile(1.0) / 1000.0, errors, peakThreads, secondLevelHitRate * 100);
+        }
+    }
+
+    /**
+     * Ajoute une attente avant chaque exécution SQL (aller-retour réseau simulé), une fois les données créées
+     */
+    private static final class SlowStatements implements BeanPostProcessor {
+        volatile long latencyMillis;
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource) {
+                return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    return result instanceof Connection connection ? proxy(Connection.class, connection, this::onConnection) : result;
+                });
+            }
+            return bean;
+        }
+
+        private Object onConnection(Object connection, Method method, Object[] args) throws Throwable {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+                return proxy(method.getReturnType(), statement, this::onStatement);
+            }
+            return result;
+        }
+
+        private Object onStatement(Object statement, Method method, Object[] args) throws Throwable {
+            long latency = latencyMillis;
+            if (latency > 0 && method.getName().startsWith("execute")) {
+                Thread.sleep(latency);
+            }
+            return invoke(statement, method, args);
+        }
+
+        private static Object proxy(Class<?> type, Object target, TargetHandler handler) {
+            InvocationHandler invocationHandler = (proxy, method, args) -> handler.invoke(target, method, args);
+            return Proxy.newProxyInstance(LoadBenchmark.class.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface TargetHandler {
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
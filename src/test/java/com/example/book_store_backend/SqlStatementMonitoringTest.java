@@ -0,0 +1,128 @@
+package com.example.book_store_backend;
+
+import com.example.book_store_backend.config.SqlMonitoringFilter;
+import com.example.book_store_backend.entity.Book;
+import com.example.book_store_backend.entity.Customer;
+import com.example.book_store_backend.entity.Order;
+import com.example.book_store_backend.repository.OrderRepository;
+import com.example.book_store_backend.service.BookService;
+import com.example.book_store_backend.service.CustomerService;
+import com.example.book_store_backend.service.OrderService;
+import com.example.book_store_backend.support.SqlAssertions;
+import com.example.book_store_backend.util.SqlStatementRecorder.Recording;
+import com.example.book_store_backend.util.SqlStatementRecorder.RepeatedStatement;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SqlStatementMonitoringTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void endpointResponsesCarryStatementCount() throws Exception {
+        Book book = createBook("978-9001", 10);
+
+        // Le premier chargement remplit le cache de second niveau, le suivant ne touche pas la base
+        mvc.perform(get("/api/books/" + book.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlMonitoringFilter.STATEMENTS_HEADER))
+                .andExpect(header().exists(SqlMonitoringFilter.TIME_HEADER));
+        mvc.perform(get("/api/books/" + book.getId()))
+                .andExpect(status().isOk())
+                .andExpect(SqlAssertions.statementCountAtMost(0))
+                .andExpect(SqlAssertions.noRepeatedStatements());
+    }
+
+    @Test
+    void repeatedStatementShapesAreFlagged() throws Exception {
+        Book book = createBook("978-9002", 100);
+        Customer customer = new Customer();
+        customer.setFirstName("Claire");
+        customer.setLastName("Martin");
+        customer.setEmail("claire.martin@example.com");
+        customer.setPhoneNumber("0699990002");
+        customer.setAddress("2 rue de Lyon");
+        customer.setCity("Lyon");
+        customer = customerService.createCustomer(customer);
+
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Order order = orderService.createOrder(customer.getId(),
+                    List.of(new OrderService.OrderItemRequest(book.getId(), 1)), null, null);
+            orderIds.add(order.getId());
+        }
+
+        // Une lecture par commande : la même forme de requête exécutée six fois
+        SqlAssertions.SqlAction loadOneByOne = () -> orderIds.forEach(id -> assertNotNull(orderRepository.findById(id).orElse(null)));
+        Recording recording = SqlAssertions.record(loadOneByOne);
+        List<RepeatedStatement> repeated = recording.getRepeatedStatements(5);
+        assertFalse(repeated.isEmpty());
+        assertEquals(6, repeated.get(0).getCount());
+
+        assertThrows(AssertionFailedError.class, () -> SqlAssertions.assertStatementCountAtMost(2, loadOneByOne));
+        SqlAssertions.assertStatementCountAtMost(1, () -> orderRepository.findAllById(orderIds));
+    }
+
+    @Test
+    void jdbcTemplateStatementsAreCounted() throws Exception {
+        Book first = createBook("978-9003", 10);
+        Book second = createBook("978-9004", 10);
+
+        // Lot JdbcTemplate : une requête préparée pour tous les livres
+        Recording batch = SqlAssertions.record(() -> bookService.increaseStockBatch(Map.of(first.getId(), 1, second.getId(), 2)));
+        assertEquals(1, batch.getCountsByShape().getOrDefault("UPDATE books SET stock_quantity = stock_quantity + ? WHERE id = ?", 0));
+        assertTrue(batch.getExecutionNanos() > 0);
+
+        Recording query = SqlAssertions.record(() ->
+                jdbcTemplate.queryForObject("SELECT stock_quantity FROM books WHERE id = ?", Integer.class, first.getId()));
+        assertEquals(1, query.getStatementCount());
+    }
+
+    private Book createBook(String isbn, int stock) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle("Livre " + isbn);
+        book.setAuthor("Auteur");
+        book.setPrice(new BigDecimal("9.90"));
+        book.setStockQuantity(stock);
+        book.setCategory("Essai");
+        return bookService.createBook(book);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.ChangeEntityType;
+import com.example.book_store_backend.repository.ChangeOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChangeOutboxServiceTest {
+
+    private static final String NODE = "local";
+    private static final String OTHER_NODE = "distant";
+
+    // Lignes du journal visibles (commitées), par ID
+    private final TreeMap<Long, Object[]> committed = new TreeMap<>();
+    private final List<Long> dispatched = new ArrayList<>();
+    private ChangeOutboxService outbox;
+
+    @BeforeEach
+    void setUp() {
+        ChangeOutboxRepository repository = mock(ChangeOutboxRepository.class);
+        when(repository.findMaxId()).thenAnswer(invocation -> committed.isEmpty() ? null : committed.lastKey());
+        when(repository.findChangesAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            Long afterId = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return committed.tailMap(afterId, false).values().stream().limit(page.getPageSize()).toList();
+        });
+        when(repository.findChangesByIdIn(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(committed::containsKey).map(committed::get).toList();
+        });
+
+        ChangeSubscriber subscriber = new ChangeSubscriber() {
+            @Override
+            public Set<ChangeEntityType> getSubscribedTypes() {
+                return Set.of(ChangeEntityType.BOOK);
+            }
+
+            @Override
+            public void onRemoteChanges(ChangeEntityType type, Set<Long> ids) {
+                dispatched.addAll(ids);
+            }
+        };
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("subscriber", subscriber));
+        // Lots de 2 lignes : la lecture du journal passe par plusieurs pages
+        outbox = new ChangeOutboxService(repository, null, mock(SecondLevelCacheService.class),
+                beanFactory.getBeanProvider(ChangeSubscriber.class), NODE, 2, 60_000, 1_000, 60);
+    }
+
+    @Test
+    void rowsCommittedOutOfOrderAreDispatchedExactlyOnce() {
+        outbox.start();
+        // 2 et 5 sont encore en cours quand 1, 3, 4 et 6 sont visibles ; 4 vient de cette instance
+        commit(1, OTHER_NODE);
+        commit(3, OTHER_NODE);
+        commit(4, NODE);
+        commit(6, OTHER_NODE);
+        outbox.poll();
+        assertEquals(List.of(1L, 3L, 6L), sortedDispatched());
+
+        commit(5, OTHER_NODE);
+        outbox.poll();
+        assertEquals(List.of(1L, 3L, 5L, 6L), sortedDispatched());
+
+        commit(2, OTHER_NODE);
+        commit(7, OTHER_NODE);
+        commit(8, NODE);
+        outbox.poll();
+        outbox.poll();
+
+        assertEquals(List.of(1L, 2L, 3L, 5L, 6L, 7L), sortedDispatched());
+        assertEquals(dispatched.size(), Set.copyOf(dispatched).size(), "ID notifié plusieurs fois: " + dispatched);
+    }
+
+    @Test
+    void rowsBeforeStartAreNotReplayed() {
+        commit(1, OTHER_NODE);
+        commit(2, OTHER_NODE);
+        outbox.start();
+        commit(4, OTHER_NODE);
+        outbox.poll();
+        assertEquals(List.of(4L), sortedDispatched());
+
+        // 3 commité tardivement : rattrapé par le suivi des trous, pas 1 ni 2
+        commit(3, OTHER_NODE);
+        outbox.poll();
+        assertEquals(List.of(3L, 4L), sortedDispatched());
+    }
+
+    private void commit(long id, String originNode) {
+        // ID d'entité = ID de la ligne du journal
+        committed.put(id, new Object[]{id, ChangeEntityType.BOOK, id, originNode});
+    }
+
+    private List<Long> sortedDispatched() {
+        return dispatched.stream().sorted().toList();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.Customer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+@SpringBootTest
+class CustomerServiceCreateOrGetTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void concurrentCheckoutsShareOneCustomer() throws Exception {
+        String email = "checkout.concurrent@example.com";
+        long totalBefore = customerService.getCustomerStatistics().getTotalCustomers();
+        AtomicReference<Thread> secondThread = new AtomicReference<>();
+        AtomicReference<CompletableFuture<Long>> second = new AtomicReference<>();
+
+        Long firstId = transactionTemplate.execute(status -> {
+            Long id = customerService.createOrGetCustomer(customerData(email, "0622220001")).getId();
+            // Second checkout dans sa propre transaction : son INSERT attend le verrou de la ligne non validée
+            second.set(CompletableFuture.supplyAsync(() -> {
+                secondThread.set(Thread.currentThread());
+                return transactionTemplate.execute(inner ->
+                        customerService.createOrGetCustomer(customerData(email, "0622220001")).getId());
+            }));
+            awaitBlocked(secondThread);
+            return id;
+        });
+        Long secondId = second.get().get(30, TimeUnit.SECONDS);
+
+        assertEquals(firstId, secondId);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers WHERE email = ?", Integer.class, email));
+        // Le client n'est compté qu'une fois
+        assertEquals(totalBefore + 1, customerService.getCustomerStatistics().getTotalCustomers());
+        assertEquals(firstId, customerService.createOrGetCustomer(customerData(email, "0622220001")).getId());
+    }
+
+    @Test
+    void rawInsertListsEveryRequiredColumn() {
+        // Une colonne NOT NULL sans défaut ajoutée à Customer doit aussi l'être à l'INSERT direct de createOrGetCustomer
+        List<String> requiredColumns = jdbcTemplate.queryForList(
+                "SELECT column_name FROM information_schema.columns WHERE table_name = 'customers' " +
+                        "AND is_nullable = 'NO' AND column_default IS NULL AND is_identity = 'NO'", String.class);
+        assertTrue(requiredColumns.contains("email"));
+        for (String column : requiredColumns) {
+            assertTrue(CustomerService.INSERT_COLUMNS.contains(column.toLowerCase()),
+                    "Colonne obligatoire absente de l'INSERT de createOrGetCustomer: " + column);
+        }
+
+        Customer created = customerService.createOrGetCustomer(customerData("checkout.columns@example.com", "0622220002"));
+        Customer reloaded = customerService.getCustomerById(created.getId());
+        assertEquals("Camille", reloaded.getFirstName());
+        assertEquals("Durand", reloaded.getLastName());
+        assertEquals("0622220002", reloaded.getPhoneNumber());
+        assertEquals("8 rue de Lyon", reloaded.getAddress());
+        assertEquals("Lyon", reloaded.getCity());
+        assertEquals("69001", reloaded.getPostalCode());
+        assertEquals("France", reloaded.getCountry());
+        assertEquals(Boolean.TRUE, reloaded.getIsActive());
+    }
+
+    private static Customer customerData(String email, String phoneNumber) {
+        Customer customer = new Customer();
+        customer.setFirstName("Camille");
+        customer.setLastName("Durand");
+        customer.setEmail(email);
+        customer.setPhoneNumber(phoneNumber);
+        customer.setAddress("8 rue de Lyon");
+        customer.setCity("Lyon");
+        customer.setPostalCode("69001");
+        customer.setCountry("France");
+        return customer;
+    }
+
+    // Attendre que le second checkout soit dans son INSERT (bloqué sur la ligne non validée) avant de valider le premier
+    private static void awaitBlocked(AtomicReference<Thread> thread) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            Thread current = thread.get();
+            if (current != null && Arrays.stream(current.getStackTrace())
+                    .anyMatch(frame -> frame.getMethodName().equals("insertIfAbsent"))) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+        fail("Le second checkout n'a pas atteint l'INSERT");
+    }
+}
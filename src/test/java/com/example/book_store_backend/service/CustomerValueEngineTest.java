@@ -0,0 +1,98 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.Customer;
+import com.example.book_store_backend.entity.Order;
+import com.example.book_store_backend.entity.OrderStatus;
+import com.example.book_store_backend.repository.OrderSummaryRepository;
+import com.example.book_store_backend.service.CustomerValueEngine.CustomerValue;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerValueEngineTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now().minusHours(1);
+
+    @Test
+    void replaysChangesCommittedDuringRecompute() {
+        OrderSummaryRepository repository = mock(OrderSummaryRepository.class);
+        CustomerValueEngine engine = new CustomerValueEngine(repository, 1, 5_000, 10);
+        try {
+            when(repository.findMaxOrderId()).thenReturn(3L);
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(row(10L, "80.00", OrderStatus.CONFIRMED, 1L));
+            rows.add(row(10L, "50.00", OrderStatus.PENDING, 2L));
+            rows.add(row(20L, "30.00", OrderStatus.PENDING, 3L));
+            when(repository.findCustomerValueRowsByIdRange(anyLong(), anyLong())).thenAnswer(invocation -> {
+                // Validés pendant la lecture : création déjà lue, annulation d'une commande lue encore valide,
+                // nouvelle commande au-delà de la plage couverte
+                engine.recordOrder(order(3L, 20L, "30.00"));
+                engine.removeOrder(2L, 10L, new BigDecimal("50.00"));
+                engine.recordOrder(order(4L, 20L, "60.00"));
+                return rows;
+            });
+
+            engine.recompute();
+
+            CustomerValue first = engine.getCustomerValue(10L).orElseThrow();
+            assertEquals(2, first.getOrderCount());
+            assertEquals(1, first.getValidOrderCount());
+            assertEquals(0, new BigDecimal("80.00").compareTo(first.getMonetary()));
+            CustomerValue second = engine.getCustomerValue(20L).orElseThrow();
+            assertEquals(2, second.getOrderCount());
+            assertEquals(2, second.getValidOrderCount());
+            assertEquals(0, new BigDecimal("90.00").compareTo(second.getMonetary()));
+            // Même nombre de commandes : le montant départage, annulation comprise
+            assertEquals(List.of(20L, 10L), engine.getTopCustomerIds());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void changesAfterRecomputeApplyDirectly() {
+        OrderSummaryRepository repository = mock(OrderSummaryRepository.class);
+        CustomerValueEngine engine = new CustomerValueEngine(repository, 1, 5_000, 10);
+        try {
+            when(repository.findMaxOrderId()).thenReturn(1L);
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(row(10L, "20.00", OrderStatus.PENDING, 1L));
+            when(repository.findCustomerValueRowsByIdRange(anyLong(), anyLong())).thenReturn(rows);
+            engine.recompute();
+
+            engine.recordOrder(order(2L, 30L, "15.00"));
+            engine.recordOrder(order(3L, 30L, "15.00"));
+            engine.removeOrder(1L, 10L, new BigDecimal("20.00"));
+
+            assertEquals(0, engine.getCustomerValue(10L).orElseThrow().getValidOrderCount());
+            assertEquals(2, engine.getCustomerValue(30L).orElseThrow().getValidOrderCount());
+            assertEquals(List.of(30L, 10L), engine.getTopCustomerIds());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    private static Object[] row(Long customerId, String totalAmount, OrderStatus status, Long orderId) {
+        return new Object[]{customerId, NOW, new BigDecimal(totalAmount), status, orderId};
+    }
+
+    private static Order order(Long orderId, Long customerId, String totalAmount) {
+        Customer customer = new Customer();
+        customer.setId(customerId);
+        Order order = new Order();
+        order.setId(orderId);
+        order.setCustomer(customer);
+        order.setCreatedAt(NOW);
+        order.setStatus(OrderStatus.PENDING);
+        order.setTotalAmount(new BigDecimal(totalAmount));
+        return order;
+    }
+}
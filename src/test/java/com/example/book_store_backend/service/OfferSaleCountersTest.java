@@ -0,0 +1,170 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.DailyOffer;
+import com.example.book_store_backend.service.OfferSaleCounters.ClaimOutcome;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class OfferSaleCountersTest {
+
+    @Autowired
+    private DailyOfferService dailyOfferService;
+
+    @Autowired
+    private DailyOfferRepository dailyOfferRepository;
+
+    @Autowired
+    private DailyOfferCache dailyOfferCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SecondLevelCacheService secondLevelCacheService;
+
+    @Autowired
+    private ChangeOutboxService changeOutboxService;
+
+    @Autowired
+    private BusinessMetrics businessMetrics;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void twoNodesNeverOversellTheSharedLimit() throws Exception {
+        int limit = 500;
+        Long offerId = createOffer(limit).getId();
+        // Deux instances qui se partagent la même base
+        List<OfferSaleCounters> nodes = List.of(newNode(), newNode());
+
+        int threadsPerNode = 8;
+        int attemptsPerThread = 100;
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threadsPerNode * nodes.size());
+        CountDownLatch start = new CountDownLatch(1);
+        for (OfferSaleCounters node : nodes) {
+            for (int t = 0; t < threadsPerNode; t++) {
+                int seed = t;
+                pool.execute(() -> {
+                    await(start);
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        int quantity = 1 + (seed + i) % 3;
+                        // Une partie des commandes est annulée après la réservation
+                        boolean rollback = i % 10 == 0;
+                        transactionTemplate.executeWithoutResult(status -> {
+                            if (node.tryClaim(offerId, quantity) != ClaimOutcome.CLAIMED) {
+                                return;
+                            }
+                            if (rollback) {
+                                status.setRollbackOnly();
+                            } else {
+                                admitted.addAndGet(quantity);
+                            }
+                        });
+                    }
+                });
+            }
+        }
+
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+        nodes.forEach(OfferSaleCounters::shutdown);
+
+        Integer sold = jdbcTemplate.queryForObject("SELECT sold_quantity FROM daily_offers WHERE id = ?", Integer.class, offerId);
+        Integer allocated = jdbcTemplate.queryForObject("SELECT allocated_quantity FROM daily_offers WHERE id = ?", Integer.class, offerId);
+        // La demande dépasse largement la limite : elle doit être atteinte sans être dépassée
+        assertTrue(admitted.get() <= limit);
+        assertTrue(admitted.get() > limit - 3 * nodes.size());
+        assertEquals(admitted.get(), sold);
+        // Tranches inutilisées rendues à l'arrêt
+        assertEquals(sold, allocated);
+    }
+
+    @Test
+    void sliceReturnedWhenLimitChanges() {
+        Long offerId = createOffer(100).getId();
+        OfferSaleCounters node = newNode();
+
+        transactionTemplate.executeWithoutResult(status -> assertEquals(ClaimOutcome.CLAIMED, node.tryClaim(offerId, 1)));
+        node.flush();
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT allocated_quantity FROM daily_offers WHERE id = ?", Integer.class, offerId));
+
+        DailyOffer offer = dailyOfferRepository.findById(offerId).orElseThrow();
+        offer.setLimitQuantity(50);
+        node.refresh(offer);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT allocated_quantity FROM daily_offers WHERE id = ?", Integer.class, offerId));
+        assertEquals(49, node.getRemaining(offerId));
+    }
+
+    @Test
+    void releasedUnitsReturnToQuotaAndLeaveSoldQuantity() {
+        Long offerId = createOffer(5).getId();
+        OfferSaleCounters node = newNode();
+
+        transactionTemplate.executeWithoutResult(status -> assertEquals(ClaimOutcome.CLAIMED, node.tryClaim(offerId, 5)));
+        node.flush();
+        assertEquals(0, node.getRemaining(offerId));
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT sold_quantity FROM daily_offers WHERE id = ?", Integer.class, offerId));
+
+        // Annulation rejetée : rien n'est rendu
+        transactionTemplate.executeWithoutResult(status -> {
+            node.release(offerId, 2);
+            status.setRollbackOnly();
+        });
+        assertEquals(0, node.getRemaining(offerId));
+
+        transactionTemplate.executeWithoutResult(status -> node.release(offerId, 2));
+        assertEquals(2, node.getRemaining(offerId));
+        node.flush();
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT sold_quantity FROM daily_offers WHERE id = ?", Integer.class, offerId));
+
+        transactionTemplate.executeWithoutResult(status -> assertEquals(ClaimOutcome.CLAIMED, node.tryClaim(offerId, 2)));
+        assertEquals(ClaimOutcome.LIMIT_REACHED, node.tryClaim(offerId, 1));
+        node.shutdown();
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT sold_quantity FROM daily_offers WHERE id = ?", Integer.class, offerId));
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT allocated_quantity FROM daily_offers WHERE id = ?", Integer.class, offerId));
+    }
+
+    private OfferSaleCounters newNode() {
+        return new OfferSaleCounters(dailyOfferRepository, dailyOfferCache, jdbcTemplate, secondLevelCacheService,
+                changeOutboxService, businessMetrics, "", 10);
+    }
+
+    private DailyOffer createOffer(int limit) {
+        DailyOffer offer = new DailyOffer();
+        offer.setTitle("Offre limitée");
+        offer.setDescription("Offre partagée entre deux instances");
+        offer.setOriginalPrice(new BigDecimal("20.00"));
+        offer.setOfferPrice(new BigDecimal("10.00"));
+        offer.setStartDate(LocalDate.now().minusDays(1));
+        offer.setEndDate(LocalDate.now().plusDays(1));
+        offer.setLimitQuantity(limit);
+        return dailyOfferService.createDailyOffer(offer);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
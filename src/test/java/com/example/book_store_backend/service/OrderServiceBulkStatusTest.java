@@ -0,0 +1,155 @@
+package com.example.book_store_backend.service;
+
+import com.example.book_store_backend.entity.Book;
+import com.example.book_store_backend.entity.Customer;
+import com.example.book_store_backend.entity.OrderStatus;
+import com.example.book_store_backend.entity.PaymentStatus;
+import com.example.book_store_backend.repository.OrderRepository;
+import com.example.book_store_backend.service.OrderService.BulkStatusResult;
+import com.example.book_store_backend.service.OrderService.OrderItemRequest;
+import com.example.book_store_backend.service.OrderService.OrderTransitionResult;
+import com.example.book_store_backend.service.OrderService.TransitionOutcome;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+@SpringBootTest
+class OrderServiceBulkStatusTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    private OrderRepository orderRepository;
+
+    @Test
+    void mixedCancellationBatchRefundsOnlyCancelledOrders() {
+        Book first = createBook("978-7001");
+        Book second = createBook("978-7002");
+        Long customerId = createCustomer("bulk.cancel@example.com", "0611110001");
+
+        Long pending = order(customerId, Map.of(first.getId(), 2, second.getId(), 1));
+        Long confirmed = order(customerId, Map.of(first.getId(), 3));
+        orderService.updateOrderStatus(confirmed, OrderStatus.CONFIRMED);
+        Long delivered = order(customerId, Map.of(first.getId(), 4));
+        orderService.updateOrderStatus(delivered, OrderStatus.SHIPPED);
+        orderService.updateOrderStatus(delivered, OrderStatus.DELIVERED);
+        Long alreadyCancelled = order(customerId, Map.of(second.getId(), 5));
+        orderService.cancelOrder(alreadyCancelled, "test");
+        Long missing = Long.MAX_VALUE;
+
+        BulkStatusResult result = orderService.bulkUpdateOrderStatus(
+                List.of(pending, confirmed, delivered, alreadyCancelled, missing, pending), OrderStatus.CANCELLED);
+
+        assertEquals(5, result.getRequested());
+        assertEquals(2, result.getUpdated());
+        assertEquals(3, result.getFailed());
+        Map<Long, OrderTransitionResult> byId = byOrderId(result);
+        assertEquals(TransitionOutcome.UPDATED, byId.get(pending).getOutcome());
+        assertEquals(TransitionOutcome.UPDATED, byId.get(confirmed).getOutcome());
+        assertEquals(TransitionOutcome.INVALID_TRANSITION, byId.get(delivered).getOutcome());
+        assertEquals("Impossible d'annuler une commande déjà livrée", byId.get(delivered).getMessage());
+        assertEquals(TransitionOutcome.UNCHANGED, byId.get(alreadyCancelled).getOutcome());
+        assertEquals(TransitionOutcome.NOT_FOUND, byId.get(missing).getOutcome());
+
+        // Seules les commandes annulées par le lot rendent leur stock, une fois par livre
+        assertEquals(50 - 4, stockOf(first.getId()));
+        assertEquals(50, stockOf(second.getId()));
+        assertEquals(OrderStatus.DELIVERED, orderService.getOrderById(delivered).getStatus());
+        assertEquals(PaymentStatus.REFUNDED, orderService.getOrderById(pending).getPaymentStatus());
+        assertEquals(PaymentStatus.REFUNDED, orderService.getOrderById(confirmed).getPaymentStatus());
+    }
+
+    @Test
+    void ordersChangedAfterValidationAreReportedAsConflicts() {
+        Book book = createBook("978-7003");
+        Long customerId = createCustomer("bulk.conflict@example.com", "0611110002");
+        Long kept = order(customerId, Map.of(book.getId(), 1));
+        Long changed = order(customerId, Map.of(book.getId(), 1));
+
+        // Une autre transaction expédie la commande entre la lecture des statuts et la mise à jour
+        // Le dépôt est un proxy JDK : la réponse par défaut de l'espion délègue au vrai dépôt
+        Answer<?> repository = mockingDetails(orderRepository).getMockCreationSettings().getDefaultAnswer();
+        AtomicReference<Long> concurrentlyShipped = new AtomicReference<>(changed);
+        doAnswer(invocation -> {
+            Object rows = repository.answer(invocation);
+            Long id = concurrentlyShipped.getAndSet(null);
+            if (id != null) {
+                jdbcTemplate.update("UPDATE orders SET status = 'SHIPPED' WHERE id = ?", id);
+            }
+            return rows;
+        }).when(orderRepository).findStatusesByIdIn(any());
+
+        BulkStatusResult result = orderService.bulkUpdateOrderStatus(List.of(kept, changed), OrderStatus.CONFIRMED);
+
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getFailed());
+        Map<Long, OrderTransitionResult> byId = byOrderId(result);
+        assertEquals(TransitionOutcome.UPDATED, byId.get(kept).getOutcome());
+        assertEquals(TransitionOutcome.CONFLICT, byId.get(changed).getOutcome());
+        assertEquals(OrderStatus.PENDING, byId.get(changed).getNewStatus());
+        assertEquals(OrderStatus.CONFIRMED, orderService.getOrderById(kept).getStatus());
+        assertEquals(OrderStatus.SHIPPED, orderService.getOrderById(changed).getStatus());
+    }
+
+    private Long order(Long customerId, Map<Long, Integer> quantitiesByBook) {
+        List<OrderItemRequest> items = quantitiesByBook.entrySet().stream()
+                .map(entry -> new OrderItemRequest(entry.getKey(), entry.getValue()))
+                .toList();
+        return orderService.createOrder(customerId, items, null, null).getId();
+    }
+
+    private int stockOf(Long bookId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM books WHERE id = ?", Integer.class, bookId);
+    }
+
+    private static Map<Long, OrderTransitionResult> byOrderId(BulkStatusResult result) {
+        return result.getResults().stream().collect(Collectors.toMap(OrderTransitionResult::getOrderId, Function.identity()));
+    }
+
+    private Book createBook(String isbn) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle("Livre " + isbn);
+        book.setAuthor("Auteur");
+        book.setPrice(new BigDecimal("9.90"));
+        book.setStockQuantity(50);
+        book.setCategory("Essai");
+        return bookService.createBook(book);
+    }
+
+    private Long createCustomer(String email, String phoneNumber) {
+        Customer customer = new Customer();
+        customer.setFirstName("Louise");
+        customer.setLastName("Bernard");
+        customer.setEmail(email);
+        customer.setPhoneNumber(phoneNumber);
+        customer.setAddress("3 rue de Paris");
+        customer.setCity("Paris");
+        return customerService.createCustomer(customer).getId();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.book_store_backend.support;
+
+import com.example.book_store_backend.config.SqlMonitoringFilter;
+import com.example.book_store_backend.util.SqlStatementRecorder;
+import com.example.book_store_backend.util.SqlStatementRecorder.Recording;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Assertions sur le nombre de requêtes SQL, pour les tests d'intégration :
+ * <pre>
+ * mvc.perform(get("/api/orders/1")).andExpect(SqlAssertions.statementCountAtMost(3));
+ * SqlAssertions.assertStatementCountAtMost(3, () -> orderService.getOrderById(1L));
+ * </pre>
+ */
+public final class SqlAssertions {
+
+    private SqlAssertions() {
+    }
+
+    /**
+     * La requête HTTP a exécuté au plus {@code max} requêtes SQL (en-tête posé par le filtre de comptage)
+     */
+    public static ResultMatcher statementCountAtMost(int max) {
+        return result -> {
+            String header = result.getResponse().getHeader(SqlMonitoringFilter.STATEMENTS_HEADER);
+            assertNotNull(header, "En-tête " + SqlMonitoringFilter.STATEMENTS_HEADER + " absent : comptage SQL désactivé ?");
+            int count = Integer.parseInt(header);
+            assertTrue(count <= max, result.getRequest().getMethod() + " " + result.getRequest().getRequestURI()
+                    + " a exécuté " + count + " requêtes SQL (au plus " + max + " attendues)");
+        };
+    }
+
+    /**
+     * Aucune forme de requête SQL n'a été répétée au-delà du seuil configuré (pas de N+1)
+     */
+    public static ResultMatcher noRepeatedStatements() {
+        return result -> assertNull(result.getResponse().getHeader(SqlMonitoringFilter.REPEATED_HEADER),
+                result.getRequest().getRequestURI() + " répète une même requête SQL "
+                        + result.getResponse().getHeader(SqlMonitoringFilter.REPEATED_HEADER) + " fois");
+    }
+
+    /**
+     * L'action exécute au plus {@code max} requêtes SQL ; retourne l'enregistrement pour d'autres vérifications
+     */
+    public static Recording assertStatementCountAtMost(int max, SqlAction action) throws Exception {
+        Recording recording = record(action);
+        if (recording.getStatementCount() > max) {
+            fail(recording.getStatementCount() + " requêtes SQL exécutées (au plus " + max + " attendues):\n"
+                    + describe(recording.getCountsByShape()));
+        }
+        return recording;
+    }
+
+    /**
+     * Exécuter une action en comptant ses requêtes SQL
+     */
+    public static Recording record(SqlAction action) throws Exception {
+        try (Recording recording = SqlStatementRecorder.start()) {
+            action.run();
+            return recording;
+        }
+    }
+
+    private static String describe(Map<String, Integer> countsByShape) {
+        return countsByShape.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .map(entry -> "  " + entry.getValue() + " x " + entry.getKey())
+                .collect(Collectors.joining("\n"));
+    }
+
+    @FunctionalInterface
+    public interface SqlAction {
+        void run() throws Exception;
+    }
+}
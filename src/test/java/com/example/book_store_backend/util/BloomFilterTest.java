@@ -0,0 +1,96 @@
+package com.example.book_store_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void neverReportsAnInsertedKeyAsAbsent() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("e:client" + i + "@example.com");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("e:client" + i + "@example.com"));
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        int insertions = 20_000;
+        double target = 0.01;
+        BloomFilter filter = new BloomFilter(insertions, target);
+        for (int i = 0; i < insertions; i++) {
+            filter.put("p:+3361" + i);
+        }
+
+        int probes = 200_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("p:+3399" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate <= target * 1.5, "taux de faux positifs trop élevé: " + rate);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        assertFalse(filter.mightContain("e:inconnu@example.com"));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    void concurrentInsertionsAreNotLost() throws Exception {
+        // Plusieurs threads positionnent des bits d'un même mot : aucun ne doit écraser les autres
+        BloomFilter filter = new BloomFilter(50_000, 0.01);
+        int threads = 8;
+        int keysPerThread = 5_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                await(start);
+                for (int i = 0; i < keysPerThread; i++) {
+                    filter.put("e:" + thread + "-" + i);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < keysPerThread; i++) {
+                assertTrue(filter.mightContain("e:" + t + "-" + i));
+            }
+        }
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.book_store_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClaimCounterTest {
+
+    @Test
+    void rejectsClaimsBeyondGrantedQuota() {
+        ClaimCounter counter = new ClaimCounter();
+        assertFalse(counter.tryClaim(1));
+
+        counter.grant(2);
+        assertTrue(counter.tryClaim(2));
+        assertFalse(counter.tryClaim(1));
+        assertEquals(0, counter.getAvailable());
+
+        counter.release(2);
+        assertTrue(counter.tryClaim(1));
+        assertEquals(1, counter.drainPending());
+        assertEquals(0, counter.drainPending());
+        assertEquals(1, counter.revokeAvailable());
+        assertFalse(counter.tryClaim(1));
+    }
+
+    @Test
+    void neverOversellsUnderContention() throws Exception {
+        int limit = 10_000;
+        int threads = 64;
+        int attemptsPerThread = 2_000;
+        ClaimCounter counter = new ClaimCounter();
+        counter.grant(limit);
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicLong flushed = new AtomicLong();
+        AtomicInteger finished = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            pool.execute(() -> {
+                await(start);
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    int quantity = 1 + (seed + i) % 3;
+                    if (counter.tryClaim(quantity)) {
+                        admitted.addAndGet(quantity);
+                        // Une partie des réservations est annulée, comme une transaction de commande
+                        if (i % 10 == 0) {
+                            counter.release(quantity);
+                            admitted.addAndGet(-quantity);
+                        }
+                    }
+                }
+                finished.incrementAndGet();
+            });
+        }
+        // Vidage concurrent, comme la tâche d'écriture par lot
+        pool.execute(() -> {
+            await(start);
+            while (finished.get() < threads) {
+                flushed.addAndGet(counter.drainPending());
+            }
+        });
+
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+        flushed.addAndGet(counter.drainPending());
+
+        assertTrue(admitted.get() <= limit);
+        assertEquals(limit - admitted.get(), counter.getAvailable());
+        assertEquals(admitted.get(), flushed.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.book_store_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTest {
+
+    @Test
+    void findsClosedIntervalOverlaps() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(1, 5, 1, "a");
+        tree.insert(3, 3, 2, "b");
+        tree.insert(6, 10, 3, "c");
+        tree.insert(12, 20, 4, "d");
+
+        assertEquals(List.of("a", "b"), tree.stab(3));
+        // Bornes incluses
+        assertEquals(List.of("a", "c"), tree.overlapping(5, 6));
+        assertEquals(List.of("c", "d"), tree.overlapping(10, 12));
+        assertTrue(tree.overlapping(11, 11).isEmpty());
+        assertTrue(tree.overlapping(21, 30).isEmpty());
+        assertEquals(4, tree.overlapping(0, 100).size());
+    }
+
+    @Test
+    void sameStartIsDistinguishedById() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(1, 2, 1, "court");
+        tree.insert(1, 9, 2, "long");
+
+        assertTrue(tree.remove(1, 1));
+        assertEquals(List.of("long"), tree.stab(5));
+        assertEquals(List.of("long"), tree.stab(1));
+    }
+
+    @Test
+    void removeReportsMissingEntries() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(1, 5, 1, "a");
+
+        assertFalse(tree.remove(2, 1));
+        assertFalse(tree.remove(1, 2));
+        assertTrue(tree.remove(1, 1));
+        assertFalse(tree.remove(1, 1));
+        assertTrue(tree.isEmpty());
+        assertTrue(tree.stab(3).isEmpty());
+    }
+
+    @Test
+    void keepsMaxEndAcrossRotations() {
+        // Insertions triées : chaque insertion provoque des rotations ; l'intervalle le plus long doit rester visible
+        IntervalTree<Long> tree = new IntervalTree<>();
+        tree.insert(0, 1_000_000, 0, 0L);
+        for (long i = 1; i <= 2_000; i++) {
+            tree.insert(i, i, i, i);
+        }
+
+        assertEquals(List.of(0L), tree.stab(500_000));
+        assertEquals(List.of(0L, 1_000L), tree.stab(1_000));
+        for (long i = 1; i <= 2_000; i += 2) {
+            assertTrue(tree.remove(i, i));
+        }
+        assertEquals(1_001, tree.size());
+        assertEquals(List.of(0L), tree.stab(1_001));
+        assertEquals(List.of(0L, 1_002L), tree.stab(1_002));
+        assertTrue(tree.remove(0, 0));
+        assertTrue(tree.stab(500_000).isEmpty());
+    }
+
+    @Test
+    void matchesNaiveScanUnderRandomInsertsAndDeletes() {
+        Random random = new Random(7);
+        IntervalTree<Long> tree = new IntervalTree<>();
+        Map<Long, long[]> expected = new HashMap<>();
+        for (long id = 0; id < 5_000; id++) {
+            if (!expected.isEmpty() && random.nextInt(3) == 0) {
+                List<Long> ids = new ArrayList<>(expected.keySet());
+                long removedId = ids.get(random.nextInt(ids.size()));
+                assertTrue(tree.remove(expected.remove(removedId)[0], removedId));
+            }
+            long start = random.nextInt(1_000);
+            long end = start + random.nextInt(50);
+            tree.insert(start, end, id, id);
+            expected.put(id, new long[]{start, end});
+        }
+        assertEquals(expected.size(), tree.size());
+
+        for (int query = 0; query < 500; query++) {
+            long from = random.nextInt(1_100);
+            long to = from + random.nextInt(30);
+            List<Long> actual = tree.overlapping(from, to);
+            List<Long> naive = new ArrayList<>();
+            expected.forEach((id, interval) -> {
+                if (interval[0] <= to && interval[1] >= from) {
+                    naive.add(id);
+                }
+            });
+            actual.sort(null);
+            naive.sort(null);
+            assertEquals(naive, actual);
+        }
+    }
+
+    @Test
+    void rejectsReversedInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new IntervalTree<String>().insert(5, 4, 1, "x"));
+    }
+}
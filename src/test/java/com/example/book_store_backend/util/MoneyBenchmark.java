@@ -0,0 +1,83 @@
+package com.example.book_store_backend.util;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Micro-benchmark (hors suite de tests) : total de commande en BigDecimal vs en centimes.
+ * Lancer après mvn test-compile :
+ * java -cp target/test-classes:target/classes com.example.book_store_backend.util.MoneyBenchmark
+ */
+public class MoneyBenchmark {
+
+    private static final int LINES = 1_000;
+    private static final int ROUNDS = 20_000;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        BigDecimal[] prices = new BigDecimal[LINES];
+        long[] priceCents = new long[LINES];
+        int[] quantities = new int[LINES];
+        for (int i = 0; i < LINES; i++) {
+            priceCents[i] = 100 + random.nextInt(10_000);
+            prices[i] = BigDecimal.valueOf(priceCents[i], 2);
+            quantities[i] = 1 + random.nextInt(5);
+        }
+
+        // Préchauffage du JIT
+        for (int i = 0; i < 3; i++) {
+            bigDecimalTotals(prices, quantities);
+            moneyTotals(prices, quantities);
+            centsTotals(priceCents, quantities);
+        }
+
+        report("BigDecimal", () -> bigDecimalTotals(prices, quantities));
+        report("Money (depuis BigDecimal)", () -> moneyTotals(prices, quantities));
+        report("centimes long", () -> centsTotals(priceCents, quantities));
+    }
+
+    private static long bigDecimalTotals(BigDecimal[] prices, int[] quantities) {
+        long checksum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < prices.length; i++) {
+                total = total.add(prices[i].multiply(BigDecimal.valueOf(quantities[i])));
+            }
+            checksum += total.unscaledValue().longValue();
+        }
+        return checksum;
+    }
+
+    private static long moneyTotals(BigDecimal[] prices, int[] quantities) {
+        long checksum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            Money total = Money.ZERO;
+            for (int i = 0; i < prices.length; i++) {
+                total = total.plus(Money.of(prices[i]).times(quantities[i]));
+            }
+            checksum += total.getMinorUnits();
+        }
+        return checksum;
+    }
+
+    private static long centsTotals(long[] priceCents, int[] quantities) {
+        long checksum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long total = 0;
+            for (int i = 0; i < priceCents.length; i++) {
+                total = Math.addExact(total, Math.multiplyExact(priceCents[i], quantities[i]));
+            }
+            checksum += total;
+        }
+        return checksum;
+    }
+
+    private static void report(String label, LongSupplier run) {
+        long start = System.nanoTime();
+        long checksum = run.getAsLong();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-28s %8.2f ns/ligne (checksum %d)%n",
+                label, (double) elapsed / ((long) LINES * ROUNDS), checksum);
+    }
+}
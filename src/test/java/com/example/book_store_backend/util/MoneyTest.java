@@ -0,0 +1,43 @@
+package com.example.book_store_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    @Test
+    void convertsWithHalfUpRounding() {
+        assertEquals(1250, Money.toMinorUnits(new BigDecimal("12.50")));
+        assertEquals(1251, Money.toMinorUnits(new BigDecimal("12.505")));
+        assertEquals(-1251, Money.toMinorUnits(new BigDecimal("-12.505")));
+        assertEquals(new BigDecimal("12.50"), Money.ofMinor(1250).toBigDecimal());
+    }
+
+    @Test
+    void matchesBigDecimalArithmetic() {
+        Money price = Money.of(new BigDecimal("19.99"));
+        assertEquals(new BigDecimal("59.97"), price.times(3).toBigDecimal());
+        assertEquals(new BigDecimal("6.66"), Money.of(new BigDecimal("19.99")).dividedBy(3).toBigDecimal());
+        assertEquals(new BigDecimal("6.67"), Money.of(new BigDecimal("20.00")).dividedBy(3).toBigDecimal());
+        assertEquals(new BigDecimal("-6.67"), Money.of(new BigDecimal("-20.00")).dividedBy(3).toBigDecimal());
+    }
+
+    @Test
+    void computesDiscountPercentageLikeDailyOffer() {
+        Money original = Money.of(new BigDecimal("30.00"));
+        assertEquals(33, original.minus(Money.of(new BigDecimal("20.00"))).percentageOf(original));
+        assertEquals(50, Money.ofMinor(1).percentageOf(Money.ofMinor(2)));
+        assertEquals(-50, Money.ofMinor(-1).percentageOf(Money.ofMinor(2)));
+    }
+
+    @Test
+    void rejectsOverflow() {
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE / 2).times(3));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(1).dividedBy(0));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.book_store_backend.util;
+
+import com.example.book_store_backend.util.TimingWheel.Timeout;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void firesEachDeadlineAtItsTickInOrder() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 1_000);
+        wheel.schedule(1_030, 3);
+        wheel.schedule(1_010, 1);
+        wheel.schedule(1_020, 2);
+
+        List<Integer> fired = new ArrayList<>();
+        assertEquals(1, wheel.advanceTo(1_015, fired::add));
+        assertEquals(List.of(1), fired);
+        assertEquals(2, wheel.advanceTo(1_030, fired::add));
+        assertEquals(List.of(1, 2, 3), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void pastDeadlinesFireOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 1_000);
+        wheel.schedule(500, "passée");
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(1_010, fired::add);
+        assertEquals(List.of("passée"), fired);
+    }
+
+    @Test
+    void farDeadlinesCascadeThroughLevelsAndFireOnTime() {
+        // Échéances au-delà d'un tour du premier niveau (64 graduations) et de plusieurs tours des niveaux supérieurs
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        long[] deadlines = {63, 64, 65, 127, 4_095, 4_096, 4_097, 262_143, 262_144, 1_000_000};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        for (long deadline : deadlines) {
+            List<Long> fired = new ArrayList<>();
+            wheel.advanceTo(deadline - 1, fired::add);
+            assertTrue(fired.isEmpty(), "échéance " + deadline + " déclenchée trop tôt: " + fired);
+            wheel.advanceTo(deadline, fired::add);
+            assertEquals(List.of(deadline), fired);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void matchesNaiveSchedulerOnRandomDeadlines() {
+        Random random = new Random(42);
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            long deadline = 1 + random.nextInt(300_000);
+            wheel.schedule(deadline, deadline);
+            expected.add(deadline);
+        }
+        expected.sort(null);
+
+        List<Long> fired = new ArrayList<>();
+        long now = 0;
+        while (now < 300_000) {
+            now += 1 + random.nextInt(5_000);
+            int before = fired.size();
+            wheel.advanceTo(now, fired::add);
+            for (int i = before; i < fired.size(); i++) {
+                assertTrue(fired.get(i) <= now);
+            }
+            long firedUntil = now;
+            assertEquals(expected.stream().filter(deadline -> deadline <= firedUntil).count(), fired.size());
+        }
+        assertEquals(expected, fired);
+    }
+
+    @Test
+    void cancelledTimeoutsNeverFire() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        Timeout<String> near = wheel.schedule(10, "proche");
+        Timeout<String> far = wheel.schedule(10_000, "lointaine");
+        wheel.schedule(20, "conservée");
+
+        assertTrue(near.cancel());
+        assertTrue(far.cancel());
+        assertFalse(far.cancel());
+        assertEquals(1, wheel.size());
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(20_000, fired::add);
+        assertEquals(List.of("conservée"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void expiredTimeoutCannotBeCancelled() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        Timeout<String> timeout = wheel.schedule(5, "échue");
+        wheel.advanceTo(5, payload -> { });
+
+        assertFalse(timeout.cancel());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rescheduleMovesDeadline() {
+        // Reprogrammer = annuler l'ancienne échéance puis en programmer une nouvelle
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        Timeout<String> first = wheel.schedule(5_000, "offre");
+        assertTrue(first.cancel());
+        Timeout<String> earlier = wheel.schedule(100, "offre");
+        assertEquals(100, earlier.getDeadlineMillis());
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(100, fired::add);
+        assertEquals(List.of("offre"), fired);
+
+        assertTrue(wheel.schedule(200, "offre").cancel());
+        wheel.schedule(10_000, "offre");
+        wheel.advanceTo(9_999, fired::add);
+        assertEquals(1, fired.size());
+        wheel.advanceTo(10_000, fired::add);
+        assertEquals(List.of("offre", "offre"), fired);
+    }
+
+    @Test
+    void rejectsNonPositiveTick() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<>(0, 0));
+    }
+}